@@ -0,0 +1,59 @@
+package com.space.benchmarks;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.Properties;
+
+/**
+ * Same command line as org.openjdk.jmh.Main, but results default to
+ * results/&lt;cosmoport version&gt;-&lt;timestamp&gt;.json so runs from different releases can be compared,
+ * and the GC profiler runs unless other profilers are given, so every result carries gc.alloc.rate.norm
+ * (bytes allocated per operation) next to the time.
+ */
+public class BenchmarkRunner {
+
+    public static void main(String[] args) throws Exception {
+        CommandLineOptions commandLine = new CommandLineOptions(args);
+        if (commandLine.shouldHelp()) {
+            commandLine.showHelp();
+            return;
+        }
+        if (commandLine.shouldList()) {
+            new Runner(commandLine).list();
+            return;
+        }
+
+        ChainedOptionsBuilder options = new OptionsBuilder().parent(commandLine);
+        if (commandLine.getProfilers().isEmpty()) {
+            options.addProfiler(GCProfiler.class);
+        }
+        if (!commandLine.getResult().hasValue() && !commandLine.getResultFormat().hasValue()) {
+            File results = new File("results");
+            if (!results.isDirectory() && !results.mkdirs()) {
+                throw new IOException("Can't create " + results.getAbsolutePath());
+            }
+            String timestamp = new SimpleDateFormat("yyyyMMdd-HHmmss").format(new Date());
+            options.resultFormat(ResultFormatType.JSON)
+                    .result(new File(results, cosmoportVersion() + "-" + timestamp + ".json").getPath());
+        }
+        new Runner(options.build()).run();
+    }
+
+    private static String cosmoportVersion() throws IOException {
+        Properties properties = new Properties();
+        try (InputStream in = BenchmarkRunner.class.getResourceAsStream("/benchmarks.properties")) {
+            properties.load(in);
+        }
+        return properties.getProperty("cosmoport.version");
+    }
+}
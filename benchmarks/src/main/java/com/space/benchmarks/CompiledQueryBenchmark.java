@@ -0,0 +1,108 @@
+package com.space.benchmarks;
+
+import com.space.config.AppConfig;
+import com.space.model.Ship;
+import com.space.model.ShipType;
+import com.space.model.ShipView;
+import com.space.service.ShipFilter;
+import com.space.service.ShipService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * The Specification path against the shape-compiled JPQL path for the same filters. The table is kept
+ * small so query construction, not execution, dominates.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CompiledQueryBenchmark {
+
+    private static final int ROWS = 1000;
+
+    @Param({"none", "typeAndRating", "all"})
+    public String filter;
+
+    private AnnotationConfigApplicationContext context;
+    private ShipService service;
+
+    private ShipFilter shipFilter;
+    private Pageable firstPageByRating;
+
+    @Setup
+    public void setup() {
+        context = new AnnotationConfigApplicationContext();
+        context.getEnvironment().setActiveProfiles("dev");
+        context.register(AppConfig.class);
+        context.refresh();
+        service = context.getBean(ShipService.class);
+
+        Random random = new Random(42);
+        service.createShips(Stream.generate(() -> Ships.random(random)).limit(ROWS).collect(Collectors.toList()));
+
+        switch (filter) {
+            case "none":
+                shipFilter = new ShipFilter();
+                break;
+            case "typeAndRating":
+                shipFilter = new ShipFilter(null, null, ShipType.MILITARY, null, null, false,
+                        null, null, null, null, 1.0, null);
+                break;
+            default:
+                shipFilter = new ShipFilter("ion", "ar", ShipType.MERCHANT, Ships.epochMillis(2900), Ships.epochMillis(3010), true,
+                        0.1, 0.9, 10, 5000, 0.5, 3.0);
+        }
+        firstPageByRating = PageRequest.of(0, 20, Sort.Direction.ASC, "rating");
+
+        // Loads the in-memory indexes outside of the measurement.
+        service.getAllWithCompiledQuery(shipFilter, firstPageByRating);
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public List<Ship> pageWithSpecification() {
+        return service.getAll(service.getSpecification(shipFilter), firstPageByRating);
+    }
+
+    @Benchmark
+    public List<ShipView> pageWithCompiledQuery() {
+        return service.getAllWithCompiledQuery(shipFilter, firstPageByRating);
+    }
+
+    @Benchmark
+    public Integer countWithSpecification() {
+        return service.countShips(service.getSpecification(shipFilter));
+    }
+
+    @Benchmark
+    public Integer countWithCompiledQuery() {
+        return service.countShipsWithCompiledQuery(shipFilter);
+    }
+}
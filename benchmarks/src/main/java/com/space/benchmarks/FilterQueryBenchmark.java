@@ -0,0 +1,115 @@
+package com.space.benchmarks;
+
+import com.space.config.AppConfig;
+import com.space.model.Ship;
+import com.space.model.ShipType;
+import com.space.service.ShipFilter;
+import com.space.service.ShipService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * GET /rest/ships and /rest/ships/count through ShipService against the "dev" embedded H2 database,
+ * with the Flyway migrations applied and the table filled with random ships.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class FilterQueryBenchmark {
+
+    private static final int INSERT_CHUNK = 50000;
+
+    @Param({"10000", "100000", "1000000"})
+    public int rows;
+
+    private AnnotationConfigApplicationContext context;
+    private ShipService service;
+
+    private ShipFilter typeAndRating;
+    private ShipFilter nameTerm;
+    private ShipFilter prodDateRange;
+    private Pageable firstPageByRating;
+    private Pageable firstPageById;
+
+    @Setup
+    public void setup() {
+        context = new AnnotationConfigApplicationContext();
+        context.getEnvironment().setActiveProfiles("dev");
+        context.register(AppConfig.class);
+        context.refresh();
+        service = context.getBean(ShipService.class);
+
+        Random random = new Random(42);
+        for (int inserted = 0; inserted < rows; inserted += INSERT_CHUNK) {
+            List<Ship> chunk = Stream.generate(() -> Ships.random(random))
+                    .limit(Math.min(INSERT_CHUNK, rows - inserted))
+                    .collect(Collectors.toList());
+            service.createShips(chunk);
+        }
+
+        typeAndRating = new ShipFilter(null, null, ShipType.MILITARY, null, null, false,
+                null, null, null, null, 1.0, null);
+        nameTerm = new ShipFilter("ionsat", null, null, null, null, null,
+                null, null, null, null, null, null);
+        prodDateRange = new ShipFilter(null, null, null, Ships.epochMillis(3000), Ships.epochMillis(3005), null,
+                null, null, null, null, null, null);
+        firstPageByRating = PageRequest.of(0, 20, Sort.Direction.ASC, "rating");
+        firstPageById = PageRequest.of(0, 20, Sort.Direction.ASC, "id");
+
+        // Loads the in-memory indexes outside of the measurement.
+        service.getAll(service.getSpecification(nameTerm), firstPageById);
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public List<Ship> pageWithoutFilter() {
+        return service.getAll(service.getSpecification(new ShipFilter()), firstPageById);
+    }
+
+    @Benchmark
+    public List<Ship> pageByTypeAndRating() {
+        return service.getAll(service.getSpecification(typeAndRating), firstPageByRating);
+    }
+
+    @Benchmark
+    public List<Ship> pageByNameSubstring() {
+        return service.getAll(service.getSpecification(nameTerm), firstPageById);
+    }
+
+    @Benchmark
+    public List<Ship> pageByProdDateRange() {
+        return service.getAll(service.getSpecification(prodDateRange), firstPageById);
+    }
+
+    @Benchmark
+    public Integer countByTypeAndRating() {
+        return service.countShips(service.getSpecification(typeAndRating));
+    }
+}
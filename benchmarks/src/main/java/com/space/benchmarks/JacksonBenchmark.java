@@ -0,0 +1,56 @@
+package com.space.benchmarks;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.space.config.WebConfig;
+import com.space.model.Ship;
+import com.space.service.impl.ShipServiceImpl;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Serializes a /rest/ships response body with the ObjectMapper the REST controllers use.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JacksonBenchmark {
+
+    @Param({"3", "100", "1000"})
+    public int ships;
+
+    private ObjectMapper objectMapper;
+    private List<Ship> page;
+
+    @Setup
+    public void setup() {
+        objectMapper = new WebConfig().objectMapper();
+        page = Ships.random(ships, 42);
+        ShipServiceImpl service = new ShipServiceImpl();
+        long id = 1;
+        for (Ship ship : page) {
+            ship.setId(id++);
+            service.calculateRating(ship);
+        }
+    }
+
+    @Benchmark
+    public byte[] writeShips() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(page);
+    }
+}
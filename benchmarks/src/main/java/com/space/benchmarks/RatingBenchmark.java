@@ -0,0 +1,45 @@
+package com.space.benchmarks;
+
+import com.space.model.Ship;
+import com.space.service.impl.ShipServiceImpl;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RatingBenchmark {
+
+    private static final int SHIPS = 1024;
+
+    // calculateRating only reads the ship, no repository needed.
+    private final ShipServiceImpl service = new ShipServiceImpl();
+    private List<Ship> ships;
+    private int next;
+
+    @Setup
+    public void setup() {
+        ships = Ships.random(SHIPS, 42);
+    }
+
+    @Benchmark
+    public Double calculateRating() {
+        Ship ship = ships.get(next++ & (SHIPS - 1));
+        service.calculateRating(ship);
+        return ship.getRating();
+    }
+}
@@ -0,0 +1,101 @@
+package com.space.benchmarks;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.space.config.WebConfig;
+import com.space.controller.ShipRows;
+import com.space.model.Ship;
+import com.space.model.ShipView;
+import com.space.service.impl.ShipServiceImpl;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Encodes a /rest/ships page in each negotiable response format. payloadSize reports the size of each payload
+ * as its bytes counter; it has a single measurement iteration because JMH sums event counters over iterations.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ResponseFormatBenchmark {
+
+    @Param({"json", "smile", "cbor", "rows"})
+    public String format;
+
+    @Param({"100", "1000"})
+    public int ships;
+
+    private ObjectMapper objectMapper;
+    private List<ShipView> page;
+
+    @Setup
+    public void setup() throws IOException {
+        switch (format) {
+            case "smile":
+                objectMapper = WebConfig.configure(Jackson2ObjectMapperBuilder.smile().build());
+                break;
+            case "cbor":
+                objectMapper = WebConfig.configure(Jackson2ObjectMapperBuilder.cbor().build());
+                break;
+            default:
+                objectMapper = new WebConfig().objectMapper();
+        }
+        page = new ArrayList<>(ships);
+        ShipServiceImpl service = new ShipServiceImpl();
+        long id = 1;
+        for (Ship ship : Ships.random(ships, 42)) {
+            ship.setId(id++);
+            service.calculateRating(ship);
+            page.add(ShipView.of(ship));
+        }
+    }
+
+    @Benchmark
+    public byte[] encode() throws IOException {
+        if (!"rows".equals(format)) {
+            return objectMapper.writeValueAsBytes(page);
+        }
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(new BufferedOutputStream(bytes));
+        ShipRows.writeHeader(out);
+        for (ShipView ship : page) {
+            ShipRows.writeRow(out, ship);
+        }
+        out.flush();
+        return bytes.toByteArray();
+    }
+
+    @Benchmark
+    @Warmup(iterations = 0)
+    @Measurement(iterations = 1)
+    public void payloadSize(Payload payload) throws IOException {
+        payload.bytes = encode().length;
+    }
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class Payload {
+        public long bytes;
+    }
+}
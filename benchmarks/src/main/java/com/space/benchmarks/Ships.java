@@ -0,0 +1,60 @@
+package com.space.benchmarks;
+
+import com.space.model.Ship;
+import com.space.model.ShipType;
+
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.GregorianCalendar;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Reproducible ships that pass ShipService validation.
+ */
+final class Ships {
+
+    private static final String[] SYLLABLES = {"or", "ion", "dae", "da", "lus", "ea", "gle", "ex", "cal", "ibur",
+            "mon", "goo", "se", "nep", "tun", "mer", "cu", "ry", "sat", "urn", "ve", "nus", "kep", "ler"};
+    private static final String[] PLANETS = {"Mars", "Jupiter", "Earth", "Neptune", "Mercury", "Saturn", "Venus",
+            "Uranus", "Pluto", "Kepler-22b", "Proxima b", "Trappist-1e"};
+    private static final ShipType[] TYPES = ShipType.values();
+
+    private Ships() {
+    }
+
+    static List<Ship> random(int count, long seed) {
+        Random random = new Random(seed);
+        List<Ship> ships = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            ships.add(random(random));
+        }
+        return ships;
+    }
+
+    static Ship random(Random random) {
+        Ship ship = new Ship();
+        ship.setName(name(random));
+        ship.setPlanet(PLANETS[random.nextInt(PLANETS.length)]);
+        ship.setShipType(TYPES[random.nextInt(TYPES.length)]);
+        ship.setProdDate(new GregorianCalendar(2800 + random.nextInt(219), random.nextInt(12), 1 + random.nextInt(28)).getTime());
+        ship.setUsed(random.nextBoolean());
+        ship.setSpeed((1 + random.nextInt(99)) / 100.0);
+        ship.setCrewSize(1 + random.nextInt(9999));
+        return ship;
+    }
+
+    static long epochMillis(int year) {
+        return new GregorianCalendar(year, Calendar.JANUARY, 1).getTimeInMillis();
+    }
+
+    private static String name(Random random) {
+        StringBuilder name = new StringBuilder();
+        int syllables = 2 + random.nextInt(4);
+        for (int i = 0; i < syllables; i++) {
+            String syllable = SYLLABLES[random.nextInt(SYLLABLES.length)];
+            name.append(i == 0 ? Character.toUpperCase(syllable.charAt(0)) + syllable.substring(1) : syllable);
+        }
+        return name.append(' ').append(1 + random.nextInt(999)).toString();
+    }
+}
@@ -0,0 +1,60 @@
+package com.space.benchmarks;
+
+import com.space.model.Ship;
+import com.space.model.ShipType;
+import com.space.service.ShipFilter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Builds the Specification chain the way ShipController.getShipList does for every request.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SpecificationBenchmark {
+
+    @Param({"none", "typeAndRating", "all"})
+    public String filter;
+
+    private ShipFilter shipFilter;
+
+    @Setup
+    public void setup() {
+        switch (filter) {
+            case "none":
+                shipFilter = new ShipFilter();
+                break;
+            case "typeAndRating":
+                shipFilter = new ShipFilter(null, null, ShipType.MILITARY, null, null, false,
+                        null, null, null, null, 1.0, null);
+                break;
+            default:
+                shipFilter = new ShipFilter("ion", "ar", ShipType.MERCHANT, Ships.epochMillis(2900), Ships.epochMillis(3010), true,
+                        0.1, 0.9, 10, 5000, 0.5, 3.0);
+        }
+    }
+
+    @Benchmark
+    public Specification<Ship> toSpecification() {
+        return new ShipFilter(shipFilter.getName(), shipFilter.getPlanet(), shipFilter.getShipType(),
+                shipFilter.getAfter(), shipFilter.getBefore(), shipFilter.getIsUsed(),
+                shipFilter.getMinSpeed(), shipFilter.getMaxSpeed(), shipFilter.getMinCrewSize(), shipFilter.getMaxCrewSize(),
+                shipFilter.getMinRating(), shipFilter.getMaxRating()).toSpecification();
+    }
+}
@@ -0,0 +1,71 @@
+package com.space.benchmarks;
+
+import com.space.model.Ship;
+import com.space.service.impl.ShipServiceImpl;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.GregorianCalendar;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ValidationBenchmark {
+
+    private static final int SHIPS = 1024;
+
+    private final ShipServiceImpl service = new ShipServiceImpl();
+    private List<Ship> validShips;
+    private Ship invalidShip;
+    private Ship partialUpdate;
+    private int next;
+
+    @Setup
+    public void setup() {
+        validShips = Ships.random(SHIPS, 42);
+
+        invalidShip = new Ship();
+        invalidShip.setName("");
+        invalidShip.setPlanet("Mars");
+        invalidShip.setProdDate(new GregorianCalendar(3100, 0, 1).getTime());
+        invalidShip.setSpeed(1.5);
+        invalidShip.setCrewSize(0);
+
+        partialUpdate = new Ship();
+        partialUpdate.setName("Orion IV");
+        partialUpdate.setSpeed(0.5);
+    }
+
+    @Benchmark
+    public String validateCreateShipValid() {
+        return service.validateCreateShip(validShips.get(next++ & (SHIPS - 1)));
+    }
+
+    @Benchmark
+    public String validateCreateShipInvalid() {
+        return service.validateCreateShip(invalidShip);
+    }
+
+    @Benchmark
+    public String validateUpdateShipFull() {
+        return service.validateUpdateShip(validShips.get(next++ & (SHIPS - 1)));
+    }
+
+    @Benchmark
+    public String validateUpdateShipPartial() {
+        return service.validateUpdateShip(partialUpdate);
+    }
+}
@@ -0,0 +1,18 @@
+-- AppConfig's "dev" profile builds its embedded H2 database from test.sql.
+-- FilterQueryBenchmark fills the table itself, so only the schema is created here.
+DROP TABLE IF EXISTS ship;
+
+CREATE TABLE ship
+(
+    id       BIGINT(20)  NOT NULL AUTO_INCREMENT,
+    name     VARCHAR(50) NULL,
+    planet   VARCHAR(50) NULL,
+    shipType VARCHAR(9)  NULL,
+    prodDate date        NULL,
+    prodYear SMALLINT    NOT NULL DEFAULT 0,
+    isUsed   BIT(1)      NULL,
+    speed    DOUBLE      NULL,
+    crewSize INT(4)      NULL,
+    rating   DOUBLE      NULL,
+    PRIMARY KEY (id)
+);
@@ -6,6 +6,10 @@ CREATE DATABASE IF NOT EXISTS test
 USE cosmoport;
 
 DROP TABLE IF EXISTS ship;
+# Indexes, prodYear and the year partitions are added by the Flyway migrations in src/main/resources/db/migration
+# and db/migration-mysql on application start.
+DROP TABLE IF EXISTS flyway_schema_history;
+DROP TABLE IF EXISTS setting;
 
 CREATE TABLE ship
 (
@@ -0,0 +1,42 @@
+package com.space.build;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Replaces every file under the directory given as the only argument with a gzip copy named file.gz, at the best
+ * compression level. GZIPOutputStream writes no file name and a zero timestamp, so the output is the same on every
+ * build. Run by the precompress-resources execution of the build.
+ */
+public class Precompress {
+
+    public static void main(String[] args) throws IOException {
+        List<Path> files;
+        try (Stream<Path> walk = Files.walk(Paths.get(args[0]))) {
+            files = walk.filter(Files::isRegularFile).collect(Collectors.toList());
+        }
+        for (Path file : files) {
+            gzip(file);
+        }
+    }
+
+    private static void gzip(Path file) throws IOException {
+        Path target = file.resolveSibling(file.getFileName() + ".gz");
+        try (OutputStream out = new GZIPOutputStream(Files.newOutputStream(target)) {
+            {
+                def.setLevel(Deflater.BEST_COMPRESSION);
+            }
+        }) {
+            Files.copy(file, out);
+        }
+        Files.delete(file);
+    }
+}
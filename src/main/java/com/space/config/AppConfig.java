@@ -1,13 +1,41 @@
 package com.space.config;
 
+import com.space.metrics.PoolMetrics;
+import com.space.metrics.RequestMetrics;
+import com.space.metrics.ServiceMetrics;
+import com.space.metrics.SqlMetrics;
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.util.DriverDataSource;
+import com.space.model.Ship;
+import com.space.repository.FilterQueryCache;
+import org.ehcache.config.builders.CacheConfigurationBuilder;
+import org.ehcache.config.builders.ExpiryPolicyBuilder;
+import org.ehcache.config.builders.ResourcePoolsBuilder;
+import org.ehcache.core.config.DefaultConfiguration;
+import org.ehcache.jsr107.Eh107Configuration;
+import org.ehcache.jsr107.EhcacheCachingProvider;
+import com.space.service.ReadConsistency;
+import org.flywaydb.core.Flyway;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.ComponentScan;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.DependsOn;
 import org.springframework.context.annotation.Profile;
+import org.springframework.context.annotation.PropertySource;
+import org.springframework.context.support.PropertySourcesPlaceholderConfigurer;
+import org.springframework.core.env.Environment;
+import org.springframework.core.io.ClassPathResource;
 import org.springframework.dao.annotation.PersistenceExceptionTranslationPostProcessor;
 import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
-import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.jdbc.datasource.SimpleDriverDataSource;
+import org.springframework.jdbc.datasource.embedded.ConnectionProperties;
+import org.springframework.jdbc.datasource.embedded.DataSourceFactory;
 import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+import org.springframework.jdbc.support.JdbcUtils;
+import org.springframework.jdbc.support.MetaDataAccessException;
 import org.springframework.orm.jpa.JpaTransactionManager;
 import org.springframework.orm.jpa.JpaVendorAdapter;
 import org.springframework.orm.jpa.LocalContainerEntityManagerFactoryBean;
@@ -15,9 +43,18 @@ import org.springframework.orm.jpa.vendor.HibernateJpaVendorAdapter;
 import org.springframework.transaction.PlatformTransactionManager;
 import org.springframework.transaction.annotation.EnableTransactionManagement;
 
+import javax.cache.CacheManager;
+import javax.cache.Caching;
 import javax.persistence.EntityManagerFactory;
 import javax.sql.DataSource;
+import java.net.URI;
+import java.sql.Driver;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
 import java.util.Properties;
+import java.util.UUID;
 
 import static org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType.H2;
 
@@ -25,9 +62,22 @@ import static org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType.
 @EnableTransactionManagement
 @ComponentScan("com.space.service")
 @EnableJpaRepositories(basePackages = "com.space.repository")
+@PropertySource("classpath:application.properties")
 public class AppConfig {
 
+    @Autowired
+    private Environment env;
+
+    @Autowired
+    private ReadConsistency readConsistency;
+
+    @Bean
+    public static PropertySourcesPlaceholderConfigurer propertySourcesPlaceholderConfigurer() {
+        return new PropertySourcesPlaceholderConfigurer();
+    }
+
     @Bean
+    @DependsOn("flyway")
     public LocalContainerEntityManagerFactoryBean entityManagerFactory() {
         LocalContainerEntityManagerFactoryBean em = new LocalContainerEntityManagerFactoryBean();
         em.setDataSource(dataSource());
@@ -36,6 +86,9 @@ public class AppConfig {
         JpaVendorAdapter vendorAdapter = new HibernateJpaVendorAdapter();
         em.setJpaVendorAdapter(vendorAdapter);
         em.setJpaProperties(additionalProperties());
+        if (env.getProperty("ships.cache.enabled", Boolean.class, true)) {
+            em.getJpaPropertyMap().put("hibernate.javax.cache.cache_manager", shipCacheManager());
+        }
 
         return em;
     }
@@ -43,19 +96,45 @@ public class AppConfig {
     @Profile("prod")
     @Bean
     public DataSource dataSource() {
-        DriverManagerDataSource dataSource = new DriverManagerDataSource();
-        dataSource.setDriverClassName("com.mysql.cj.jdbc.Driver");
-        dataSource.setUrl("jdbc:mysql://localhost:3306/cosmoport?serverTimezone=UTC");
-        dataSource.setUsername("root");
-        dataSource.setPassword("root");
-        return dataSource;
+        DataSource primary = pooledDataSource("cosmoport", "com.mysql.cj.jdbc.Driver",
+                env.getProperty("datasource.url"),
+                env.getProperty("datasource.username"),
+                env.getProperty("datasource.password"));
+        List<DataSource> replicas = new ArrayList<>();
+        for (String url : env.getProperty("datasource.replica.urls", String[].class, new String[0])) {
+            replicas.add(pooledDataSource("cosmoport-replica-" + replicas.size(), "com.mysql.cj.jdbc.Driver", url.trim(),
+                    env.getProperty("datasource.username"),
+                    env.getProperty("datasource.password")));
+        }
+        return routed(primary, replicas);
     }
 
+    // With datasource.dev.replica a second H2 database, created from the same script, stands in for a replica.
+    // Nothing replicates to it: it keeps the rows of test.sql.
     @Profile("dev")
     @Bean(name = "dataSource")
     public DataSource dataSourceForTests() {
+        DataSource primary = devDataSource("cosmoport");
+        List<DataSource> replicas = new ArrayList<>();
+        if (env.getProperty("datasource.dev.replica", Boolean.class, false)) {
+            replicas.add(devDataSource("cosmoport-replica-0"));
+        }
+        return routed(primary, replicas);
+    }
+
+    private DataSource devDataSource(String poolName) {
+        if (env.getProperty("datasource.dev.pooled", Boolean.class, false)) {
+            DataSource dataSource = pooledDataSource(poolName, "org.h2.Driver",
+                    "jdbc:h2:mem:" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1", "sa", "");
+            ResourceDatabasePopulator populator = new ResourceDatabasePopulator(new ClassPathResource("test.sql"));
+            populator.setSqlScriptEncoding("UTF-8");
+            populator.setIgnoreFailedDrops(true);
+            populator.execute(dataSource);
+            return dataSource;
+        }
 
         return new EmbeddedDatabaseBuilder()
+                .setDataSourceFactory(instrumentedDataSourceFactory())
                 .generateUniqueName(true)
                 .setType(H2)
                 .setScriptEncoding("UTF-8")
@@ -64,6 +143,67 @@ public class AppConfig {
                 .build();
     }
 
+    private DataSource routed(DataSource primary, List<DataSource> replicas) {
+        if (replicas.isEmpty()) {
+            return primary;
+        }
+        return new ReplicaRoutingDataSource(primary, replicas, readConsistency,
+                env.getProperty("datasource.replica.health-check-ms", Long.class, 5000L));
+    }
+
+    // A database created by init.sql has the V1 schema but no history table, so it is baselined at version 1.
+    // Migrations that only one database understands (partitioning) live in db/migration-mysql and db/migration-h2.
+    @Bean(initMethod = "migrate")
+    public Flyway flyway(DataSource dataSource) throws MetaDataAccessException {
+        String vendor = JdbcUtils.commonDatabaseName(
+                JdbcUtils.extractDatabaseMetaData(dataSource, "getDatabaseProductName")).toLowerCase(Locale.ROOT);
+        return Flyway.configure()
+                .dataSource(dataSource)
+                .locations("classpath:db/migration", "classpath:db/migration-" + vendor)
+                .baselineOnMigrate(true)
+                .baselineVersion("1")
+                .load();
+    }
+
+    // Second-level cache region for Ship, sized and expired from application.properties.
+    @Bean(destroyMethod = "close")
+    public CacheManager shipCacheManager() {
+        EhcacheCachingProvider provider = (EhcacheCachingProvider) Caching.getCachingProvider(EhcacheCachingProvider.class.getName());
+        CacheManager cacheManager = provider.getCacheManager(URI.create("urn:cosmoport:" + UUID.randomUUID()),
+                new DefaultConfiguration(getClass().getClassLoader()));
+        cacheManager.createCache(Ship.class.getName(), Eh107Configuration.fromEhcacheCacheConfiguration(
+                CacheConfigurationBuilder.newCacheConfigurationBuilder(Object.class, Object.class,
+                        ResourcePoolsBuilder.heap(env.getProperty("ships.cache.max-entries", Long.class, 10000L)))
+                        .withExpiry(ExpiryPolicyBuilder.timeToLiveExpiration(
+                                Duration.ofSeconds(env.getProperty("ships.cache.ttl-seconds", Long.class, 300L))))));
+        return cacheManager;
+    }
+
+    @Bean
+    public PoolMetrics poolMetrics() {
+        return new PoolMetrics();
+    }
+
+    @Bean
+    public SqlMetrics sqlMetrics() {
+        return new SqlMetrics();
+    }
+
+    @Bean
+    public RequestMetrics requestMetrics() {
+        return new RequestMetrics();
+    }
+
+    @Bean
+    public FilterQueryCache filterQueryCache() {
+        return new FilterQueryCache();
+    }
+
+    @Bean
+    public static ServiceMetrics serviceMetrics() {
+        return new ServiceMetrics();
+    }
+
     @Bean
     public PlatformTransactionManager transactionManager(EntityManagerFactory emf) {
         JpaTransactionManager transactionManager = new JpaTransactionManager();
@@ -77,9 +217,76 @@ public class AppConfig {
         return new PersistenceExceptionTranslationPostProcessor();
     }
 
+    private HikariDataSource pooledDataSource(String poolName, String driverClassName, String url, String username,
+                                              String password) {
+        HikariConfig config = new HikariConfig();
+        config.setPoolName(poolName);
+        // The pool hands out connections of the instrumented driver, so every statement is counted.
+        config.setDataSource(sqlMetrics().instrument(new DriverDataSource(url, driverClassName, new Properties(), username, password)));
+        config.setMinimumIdle(env.getProperty("datasource.pool.min-idle", Integer.class, 5));
+        config.setMaximumPoolSize(env.getProperty("datasource.pool.max-size", Integer.class, 20));
+        config.setConnectionTimeout(env.getProperty("datasource.pool.connection-timeout-ms", Long.class, 30000L));
+        config.setIdleTimeout(env.getProperty("datasource.pool.idle-timeout-ms", Long.class, 600000L));
+        config.setMaxLifetime(env.getProperty("datasource.pool.max-lifetime-ms", Long.class, 1800000L));
+        config.setValidationTimeout(env.getProperty("datasource.pool.validation-timeout-ms", Long.class, 5000L));
+        config.setLeakDetectionThreshold(env.getProperty("datasource.pool.leak-detection-threshold-ms", Long.class, 0L));
+        String testQuery = env.getProperty("datasource.pool.test-query");
+        if (testQuery != null && !testQuery.isEmpty()) {
+            config.setConnectionTestQuery(testQuery);
+        }
+        config.setMetricsTrackerFactory(poolMetrics());
+        return new HikariDataSource(config);
+    }
+
+    private DataSourceFactory instrumentedDataSourceFactory() {
+        SimpleDriverDataSource dataSource = new SimpleDriverDataSource();
+        return new DataSourceFactory() {
+            @Override
+            public ConnectionProperties getConnectionProperties() {
+                return new ConnectionProperties() {
+                    @Override
+                    public void setDriverClass(Class<? extends Driver> driverClass) {
+                        dataSource.setDriverClass(driverClass);
+                    }
+
+                    @Override
+                    public void setUrl(String url) {
+                        dataSource.setUrl(url);
+                    }
+
+                    @Override
+                    public void setUsername(String username) {
+                        dataSource.setUsername(username);
+                    }
+
+                    @Override
+                    public void setPassword(String password) {
+                        dataSource.setPassword(password);
+                    }
+                };
+            }
+
+            @Override
+            public DataSource getDataSource() {
+                return sqlMetrics().instrument(dataSource);
+            }
+        };
+    }
+
     private Properties additionalProperties() {
         Properties properties = new Properties();
         properties.setProperty("hibernate.dialect", "org.hibernate.dialect.MySQL5Dialect");
+        properties.setProperty("hibernate.jdbc.batch_size", env.getProperty("hibernate.jdbc.batch_size", "50"));
+        properties.setProperty("hibernate.order_updates", "true");
+        // Pads IN lists to powers of two, so the trigram id lists don't give every list size its own plan.
+        properties.setProperty("hibernate.query.in_clause_parameter_padding", "true");
+        if (env.getProperty("ships.cache.enabled", Boolean.class, true)) {
+            properties.setProperty("javax.persistence.sharedCache.mode", "ENABLE_SELECTIVE");
+            properties.setProperty("hibernate.cache.use_second_level_cache", "true");
+            properties.setProperty("hibernate.cache.region.factory_class", "jcache");
+        } else {
+            properties.setProperty("hibernate.cache.use_second_level_cache", "false");
+        }
 
         return properties;
     }
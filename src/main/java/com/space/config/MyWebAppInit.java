@@ -1,7 +1,11 @@
 package com.space.config;
 
+import org.springframework.web.filter.DelegatingFilterProxy;
+import org.springframework.web.servlet.FrameworkServlet;
+import org.springframework.web.servlet.resource.ResourceUrlEncodingFilter;
 import org.springframework.web.servlet.support.AbstractAnnotationConfigDispatcherServletInitializer;
 
+import javax.servlet.Filter;
 import javax.servlet.ServletContext;
 import javax.servlet.ServletException;
 
@@ -28,4 +32,12 @@ public class MyWebAppInit extends AbstractAnnotationConfigDispatcherServletIniti
         return new String[]{"/"};
     }
 
+    // CompressionFilter is a bean of the servlet context, where its properties are resolved.
+    @Override
+    protected Filter[] getServletFilters() {
+        DelegatingFilterProxy compressionFilter = new DelegatingFilterProxy("compressionFilter");
+        compressionFilter.setContextAttribute(FrameworkServlet.SERVLET_CONTEXT_PREFIX + DEFAULT_SERVLET_NAME);
+        return new Filter[]{compressionFilter, new ResourceUrlEncodingFilter()};
+    }
+
 }
\ No newline at end of file
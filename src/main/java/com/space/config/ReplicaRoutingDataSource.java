@@ -0,0 +1,214 @@
+package com.space.config;
+
+import com.space.metrics.MetricsSource;
+import com.space.metrics.PrometheusWriter;
+import com.space.service.ReadConsistency;
+import org.hibernate.CacheMode;
+import org.hibernate.Session;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.orm.jpa.EntityManagerHolder;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Sends read-only transactions to the replicas, round robin over the healthy ones, and everything else to the
+ * primary. The connection is only fetched at the first statement (LazyConnectionDataSourceProxy), once the
+ * transaction's read-only flag is known.
+ * <p>
+ * Reads that ReadConsistency keeps on the primary go there: a client's reads for a while after its own write
+ * commits, reads run through ReadConsistency.onPrimary (the in-memory indexes' loads), and those of a request
+ * pinned by readsFromPrimary (responses tagged with the FleetVersion ETag). A replica that refuses a connection is
+ * taken out at once and its read goes to the primary; a background check puts it back once it answers again.
+ * Entities read from a replica are not put into the second-level cache.
+ */
+public class ReplicaRoutingDataSource extends LazyConnectionDataSourceProxy implements MetricsSource, DisposableBean {
+
+    private static final Logger log = LoggerFactory.getLogger(ReplicaRoutingDataSource.class);
+
+    private static final int VALIDATION_TIMEOUT_SECONDS = 2;
+
+    private final DataSource primary;
+    private final List<Replica> replicas = new ArrayList<>();
+    private final ReadConsistency readConsistency;
+    private final AtomicInteger next = new AtomicInteger();
+    private final LongAdder primaryWrites = new LongAdder();
+    private final LongAdder stickyReads = new LongAdder();
+    private final LongAdder failoverReads = new LongAdder();
+    private final LongAdder pinnedReads = new LongAdder();
+    private final ScheduledExecutorService healthChecks = Executors.newSingleThreadScheduledExecutor(task -> {
+        Thread thread = new Thread(task, "replica-health");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public ReplicaRoutingDataSource(DataSource primary, List<DataSource> replicas, ReadConsistency readConsistency,
+                                    long healthCheckMillis) {
+        this.primary = primary;
+        this.readConsistency = readConsistency;
+        Map<Object, Object> targets = new HashMap<>();
+        for (DataSource dataSource : replicas) {
+            Replica replica = new Replica("replica-" + this.replicas.size(), dataSource);
+            targets.put(this.replicas.size(), replica);
+            this.replicas.add(replica);
+        }
+        Router router = new Router();
+        router.setTargetDataSources(targets);
+        router.setDefaultTargetDataSource(primary);
+        router.afterPropertiesSet();
+        setTargetDataSource(router);
+        afterPropertiesSet();
+        healthChecks.scheduleWithFixedDelay(this::checkReplicas, healthCheckMillis, healthCheckMillis, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public void destroy() throws Exception {
+        healthChecks.shutdownNow();
+        for (DataSource dataSource : targets()) {
+            if (dataSource instanceof AutoCloseable) {
+                ((AutoCloseable) dataSource).close();
+            }
+        }
+    }
+
+    @Override
+    public void writeTo(PrometheusWriter writer) {
+        writer.header("ships_datasource_connections_total", "Connections routed to each database.", "counter");
+        writer.sample("ships_datasource_connections_total", PrometheusWriter.label("target", "primary"), primaryWrites.sum());
+        writer.sample("ships_datasource_connections_total", PrometheusWriter.label("target", "primary-sticky"), stickyReads.sum());
+        writer.sample("ships_datasource_connections_total", PrometheusWriter.label("target", "primary-failover"), failoverReads.sum());
+        writer.sample("ships_datasource_connections_total", PrometheusWriter.label("target", "primary-pinned"), pinnedReads.sum());
+        replicas.forEach(replica -> writer.sample("ships_datasource_connections_total",
+                PrometheusWriter.label("target", replica.name), replica.connections.sum()));
+        writer.header("ships_datasource_replica_up", "1 while the replica takes reads.", "gauge");
+        replicas.forEach(replica -> writer.sample("ships_datasource_replica_up",
+                PrometheusWriter.label("replica", replica.name), replica.up ? 1 : 0));
+    }
+
+    // Called before a request's reads run. When they would go to the primary anyway (the client is sticky, or no
+    // replica is up) they are pinned there for the rest of the request and true is returned; false means they
+    // may be served by a lagging replica.
+    public boolean readsFromPrimary(HttpServletRequest request) {
+        if (!readConsistency.isSticky(ReadConsistency.client(request)) && replicas.stream().anyMatch(replica -> replica.up)) {
+            return false;
+        }
+        readConsistency.pinToPrimary(request);
+        return true;
+    }
+
+    // null selects the primary (the default target)
+    private Integer route() {
+        String client = ReadConsistency.currentClient();
+        if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            primaryWrites.increment();
+            if (client != null && TransactionSynchronizationManager.isSynchronizationActive()) {
+                TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+                    @Override
+                    public void afterCommit() {
+                        readConsistency.recordWrite(client);
+                    }
+                });
+            }
+            return null;
+        }
+        if (readConsistency.isSticky(client)) {
+            stickyReads.increment();
+            return null;
+        }
+        if (readConsistency.isPinnedToPrimary()) {
+            pinnedReads.increment();
+            return null;
+        }
+        int start = Math.floorMod(next.getAndIncrement(), replicas.size());
+        for (int i = 0; i < replicas.size(); i++) {
+            int index = (start + i) % replicas.size();
+            if (replicas.get(index).up) {
+                keepOutOfSecondLevelCache();
+                return index;
+            }
+        }
+        failoverReads.increment();
+        return null;
+    }
+
+    // A ship read from a lagging replica would otherwise stay in the shared Ship cache until it expires.
+    private static void keepOutOfSecondLevelCache() {
+        for (Object resource : TransactionSynchronizationManager.getResourceMap().values()) {
+            if (resource instanceof EntityManagerHolder) {
+                ((EntityManagerHolder) resource).getEntityManager().unwrap(Session.class).setCacheMode(CacheMode.GET);
+            }
+        }
+    }
+
+    private void checkReplicas() {
+        for (Replica replica : replicas) {
+            boolean up;
+            try (Connection connection = replica.getTargetDataSource().getConnection()) {
+                up = connection.isValid(VALIDATION_TIMEOUT_SECONDS);
+            } catch (SQLException e) {
+                up = false;
+            }
+            if (up != replica.up) {
+                log.warn("{} {}", replica.name, up ? "is back up" : "failed its health check");
+                replica.up = up;
+            }
+        }
+    }
+
+    private List<DataSource> targets() {
+        List<DataSource> targets = new ArrayList<>();
+        targets.add(primary);
+        replicas.forEach(replica -> targets.add(replica.getTargetDataSource()));
+        return targets;
+    }
+
+    private class Router extends AbstractRoutingDataSource {
+        @Override
+        protected Object determineCurrentLookupKey() {
+            return route();
+        }
+    }
+
+    private class Replica extends DelegatingDataSource {
+        private final String name;
+        private final LongAdder connections = new LongAdder();
+        private volatile boolean up = true;
+
+        private Replica(String name, DataSource target) {
+            super(target);
+            this.name = name;
+        }
+
+        @Override
+        public Connection getConnection() throws SQLException {
+            try {
+                Connection connection = super.getConnection();
+                connections.increment();
+                return connection;
+            } catch (SQLException e) {
+                log.warn("{} refused a connection, reading from the primary until it is back: {}", name, e.getMessage());
+                up = false;
+                failoverReads.increment();
+                return primary.getConnection();
+            }
+        }
+    }
+}
@@ -2,19 +2,34 @@ package com.space.config;
 
 import com.fasterxml.jackson.annotation.JsonAutoDetect;
 import com.fasterxml.jackson.annotation.PropertyAccessor;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.space.controller.ConditionalGetInterceptor;
+import com.space.controller.MetricsInterceptor;
+import com.space.controller.RateLimitInterceptor;
+import com.space.controller.ShipRowsHttpMessageConverter;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.ComponentScan;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.CacheControl;
 import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.converter.StringHttpMessageConverter;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
 import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
 import org.springframework.web.servlet.ViewResolver;
 import org.springframework.web.servlet.config.annotation.EnableWebMvc;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
 import org.springframework.web.servlet.config.annotation.ResourceHandlerRegistry;
 import org.springframework.web.servlet.config.annotation.ViewControllerRegistry;
 import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+import org.springframework.web.servlet.resource.EncodedResourceResolver;
+import org.springframework.web.servlet.resource.VersionResourceResolver;
 import org.springframework.web.servlet.view.InternalResourceViewResolver;
 import org.springframework.web.servlet.view.JstlView;
 
+import java.nio.charset.StandardCharsets;
 import java.util.List;
 
 @Configuration
@@ -22,6 +37,22 @@ import java.util.List;
 @ComponentScan("com.space.controller")
 public class WebConfig implements WebMvcConfigurer {
 
+    // CacheControl has no immutable() before Spring 5.2.
+    private static final CacheControl IMMUTABLE = new CacheControl() {
+        @Override
+        public String getHeaderValue() {
+            return "max-age=31536000, public, immutable";
+        }
+    };
+
+    @Autowired
+    private MetricsInterceptor metricsInterceptor;
+
+    @Autowired
+    private RateLimitInterceptor rateLimitInterceptor;
+
+    @Autowired
+    private ConditionalGetInterceptor conditionalGetInterceptor;
 
     @Bean
     public ViewResolver internalResourceViewResolver() {
@@ -37,16 +68,49 @@ public class WebConfig implements WebMvcConfigurer {
         registry.addViewController("/").setViewName("index");
     }
 
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        // First, so requests answered by a later interceptor (429, 304) are still timed.
+        registry.addInterceptor(metricsInterceptor).addPathPatterns("/rest/**");
+        registry.addInterceptor(rateLimitInterceptor).addPathPatterns("/rest/**").excludePathPatterns("/rest/metrics");
+        registry.addInterceptor(conditionalGetInterceptor)
+                .addPathPatterns("/rest/ships", "/rest/ships/*", "/rest/async/ships", "/rest/async/ships/*")
+                .excludePathPatterns("/rest/ships/export");
+    }
+
+    // Resource URLs carry a hash of the content (see ResourceUrlEncodingFilter), so a changed file gets a new URL
+    // and browsers can keep a fetched one for a year without revalidating. Precompressed .gz/.br siblings
+    // produced by the build are served to clients that accept them.
     @Override
     public void addResourceHandlers(ResourceHandlerRegistry registry) {
-        registry.addResourceHandler("/resources/**").addResourceLocations("/resources/");
+        registry.addResourceHandler("/resources/**")
+                .addResourceLocations("/resources/")
+                .setCacheControl(IMMUTABLE)
+                .resourceChain(true)
+                .addResolver(new EncodedResourceResolver())
+                .addResolver(new VersionResourceResolver().addContentVersionStrategy("/**"));
     }
 
+    @Bean
+    public ObjectMapper objectMapper() {
+        return configure(Jackson2ObjectMapperBuilder.json().build());
+    }
+
+    // JSON stays the default: with no Accept header, or */*, the first converter that can write the body wins.
     @Override
     public void configureMessageConverters(List<HttpMessageConverter<?>> converters) {
-        MappingJackson2HttpMessageConverter converter = new MappingJackson2HttpMessageConverter();
-        converter.getObjectMapper().setVisibility(PropertyAccessor.ALL, JsonAutoDetect.Visibility.NONE);
-        converter.getObjectMapper().setVisibility(PropertyAccessor.FIELD, JsonAutoDetect.Visibility.ANY);
-        converters.add(converter);
+        converters.add(new StringHttpMessageConverter(StandardCharsets.UTF_8));
+        converters.add(new MappingJackson2HttpMessageConverter(objectMapper()));
+        converters.add(new MappingJackson2SmileHttpMessageConverter(configure(Jackson2ObjectMapperBuilder.smile().build())));
+        converters.add(new MappingJackson2CborHttpMessageConverter(configure(Jackson2ObjectMapperBuilder.cbor().build())));
+        converters.add(new ShipRowsHttpMessageConverter());
+    }
+
+    // Ships are serialized from their fields, getters are ignored. The mapper should come from
+    // Jackson2ObjectMapperBuilder, which turns off FAIL_ON_UNKNOWN_PROPERTIES and DEFAULT_VIEW_INCLUSION.
+    public static ObjectMapper configure(ObjectMapper objectMapper) {
+        objectMapper.setVisibility(PropertyAccessor.ALL, JsonAutoDetect.Visibility.NONE);
+        objectMapper.setVisibility(PropertyAccessor.FIELD, JsonAutoDetect.Visibility.ANY);
+        return objectMapper;
     }
 }
\ No newline at end of file
@@ -0,0 +1,53 @@
+package com.space.controller;
+
+import com.space.model.RerateStatus;
+import com.space.service.FilterShapeRecorder;
+import com.space.service.RatingCalculator;
+import com.space.service.impl.RerateJob;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/rest/admin")
+public class AdminController {
+
+    @Autowired
+    private FilterShapeRecorder filterShapeRecorder;
+
+    @Autowired
+    private RerateJob rerateJob;
+
+    @GetMapping("/filter-shapes")
+    public List<FilterShapeRecorder.ShapeStats> getFilterShapes() {
+        return filterShapeRecorder.getShapes();
+    }
+
+    @DeleteMapping("/filter-shapes")
+    public void resetFilterShapes() {
+        filterShapeRecorder.reset();
+    }
+
+    // Switches ShipService to the new reference year and re-rates the stored ships in the background.
+    @PostMapping("/rerate")
+    @ResponseStatus(HttpStatus.ACCEPTED)
+    public RerateStatus startRerate(@RequestParam Integer referenceYear) {
+        if (referenceYear < RatingCalculator.DEFAULT_REFERENCE_YEAR) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "Reference year should not be earlier than " + RatingCalculator.DEFAULT_REFERENCE_YEAR + ".");
+        }
+        try {
+            return rerateJob.start(referenceYear);
+        } catch (IllegalStateException e) {
+            throw new ResponseStatusException(HttpStatus.CONFLICT, e.getMessage());
+        }
+    }
+
+    @GetMapping("/rerate")
+    public RerateStatus getRerateStatus() {
+        return rerateJob.getStatus();
+    }
+}
@@ -0,0 +1,111 @@
+package com.space.controller;
+
+import com.space.model.Ship;
+import com.space.model.ShipType;
+import com.space.model.ShipView;
+import com.space.service.QueryExecutor;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.async.DeferredResult;
+import org.springframework.web.server.ResponseStatusException;
+
+import javax.servlet.http.HttpServletResponse;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.Supplier;
+
+/**
+ * Same reads as ShipController, run on the QueryExecutor pool. The container thread is released
+ * as soon as the query is queued; a full queue or a query slower than ships.async.timeout-ms gives 503.
+ */
+@RestController
+@RequestMapping("/rest/async")
+public class AsyncShipController {
+
+    @Autowired
+    private ShipController shipController;
+
+    @Autowired
+    private QueryExecutor queryExecutor;
+
+    @Value("${ships.async.timeout-ms:10000}")
+    private long timeoutMs;
+
+    @GetMapping("/ships")
+    public DeferredResult<List<ShipView>> getShipList(@RequestParam(required = false) String name,
+                                                      @RequestParam(required = false) String planet,
+                                                      @RequestParam(required = false) ShipType shipType,
+                                                      @RequestParam(required = false) Long after,
+                                                      @RequestParam(required = false) Long before,
+                                                      @RequestParam(required = false) Boolean isUsed,
+                                                      @RequestParam(required = false) Double minSpeed,
+                                                      @RequestParam(required = false) Double maxSpeed,
+                                                      @RequestParam(required = false) Integer minCrewSize,
+                                                      @RequestParam(required = false) Integer maxCrewSize,
+                                                      @RequestParam(required = false) Double minRating,
+                                                      @RequestParam(required = false) Double maxRating,
+                                                      @RequestParam(required = false, defaultValue = "ID") ShipOrder order,
+                                                      @RequestParam(required = false, defaultValue = "0") Integer pageNumber,
+                                                      @RequestParam(required = false, defaultValue = "3") Integer pageSize,
+                                                      @RequestParam(required = false) String cursor,
+                                                      HttpServletResponse response) {
+        return defer(() -> shipController.getShipList(name, planet, shipType, after, before, isUsed,
+                minSpeed, maxSpeed, minCrewSize, maxCrewSize, minRating, maxRating,
+                order, pageNumber, pageSize, cursor, response));
+    }
+
+    @GetMapping("/ships/count")
+    public DeferredResult<Integer> getShipsCount(@RequestParam(required = false) String name,
+                                                 @RequestParam(required = false) String planet,
+                                                 @RequestParam(required = false) ShipType shipType,
+                                                 @RequestParam(required = false) Long after,
+                                                 @RequestParam(required = false) Long before,
+                                                 @RequestParam(required = false) Boolean isUsed,
+                                                 @RequestParam(required = false) Double minSpeed,
+                                                 @RequestParam(required = false) Double maxSpeed,
+                                                 @RequestParam(required = false) Integer minCrewSize,
+                                                 @RequestParam(required = false) Integer maxCrewSize,
+                                                 @RequestParam(required = false) Double minRating,
+                                                 @RequestParam(required = false) Double maxRating) {
+        return defer(() -> shipController.getShipsCount(name, planet, shipType, after, before, isUsed,
+                minSpeed, maxSpeed, minCrewSize, maxCrewSize, minRating, maxRating));
+    }
+
+    @GetMapping("/ships/{id}")
+    public DeferredResult<Ship> getShip(@PathVariable Long id) {
+        return defer(() -> shipController.getShip(id));
+    }
+
+    private <T> DeferredResult<T> defer(Supplier<T> query) {
+        CompletableFuture<T> future;
+        try {
+            future = queryExecutor.submit(query);
+        } catch (RejectedExecutionException e) {
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Too many queries in progress, retry later.");
+        }
+        DeferredResult<T> result = new DeferredResult<>(timeoutMs);
+        result.onTimeout(() -> {
+            queryExecutor.recordTimeout();
+            result.setErrorResult(new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE,
+                    "Query didn't finish within " + timeoutMs + " ms."));
+            // A query still waiting in the queue is dropped without running.
+            future.cancel(false);
+        });
+        future.whenComplete((value, error) -> {
+            if (error == null) {
+                result.setResult(value);
+            } else {
+                result.setErrorResult(error instanceof CompletionException && error.getCause() != null ? error.getCause() : error);
+            }
+        });
+        return result;
+    }
+}
@@ -0,0 +1,259 @@
+package com.space.controller;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.UrlPathHelper;
+import org.springframework.web.util.WebUtils;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.ServletOutputStream;
+import javax.servlet.WriteListener;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import javax.servlet.http.HttpServletResponseWrapper;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.io.UncheckedIOException;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Gzips /rest responses once they grow past ships.compression.min-size bytes, for clients sending
+ * Accept-Encoding: gzip. Smaller bodies are sent as they are, with their Content-Length. Output is flushed
+ * through the deflater, so streamed exports still reach the client as they are written.
+ */
+@Component
+public class CompressionFilter extends OncePerRequestFilter {
+
+    private static final UrlPathHelper URL_PATH_HELPER = new UrlPathHelper();
+
+    @Value("${ships.compression.enabled}")
+    private boolean enabled;
+
+    @Value("${ships.compression.min-size}")
+    private int minSize;
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !enabled || !URL_PATH_HELPER.getPathWithinApplication(request).startsWith("/rest/");
+    }
+
+    // The async dispatch of a /rest/async read writes the body, so the response is finished there.
+    @Override
+    protected boolean shouldNotFilterAsyncDispatch() {
+        return false;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        GzipResponse gzipResponse = WebUtils.getNativeResponse(response, GzipResponse.class);
+        if (gzipResponse == null) {
+            gzipResponse = new GzipResponse(response, acceptsGzip(request));
+        }
+        chain.doFilter(request, gzipResponse);
+        if (!isAsyncStarted(request)) {
+            gzipResponse.finish();
+        }
+    }
+
+    private static boolean acceptsGzip(HttpServletRequest request) {
+        String acceptEncoding = request.getHeader(HttpHeaders.ACCEPT_ENCODING);
+        if (acceptEncoding == null) {
+            return false;
+        }
+        for (String coding : acceptEncoding.split(",")) {
+            String[] parts = coding.trim().split(";");
+            if ((parts[0].trim().equalsIgnoreCase("gzip") || parts[0].trim().equals("*"))
+                    && !(parts.length > 1 && parts[1].replace(" ", "").matches("q=0(\\.0*)?"))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Holds the first minSize bytes back. If the body ends there it is written plain, with its length; otherwise
+     * the headers are switched to gzip before anything is committed.
+     */
+    private class GzipResponse extends HttpServletResponseWrapper {
+
+        private final boolean acceptsGzip;
+        private final ServletOutputStream stream = new ServletOutputStream() {
+            @Override
+            public void write(int b) throws IOException {
+                GzipResponse.this.write(new byte[]{(byte) b}, 0, 1);
+            }
+
+            @Override
+            public void write(byte[] b, int off, int len) throws IOException {
+                GzipResponse.this.write(b, off, len);
+            }
+
+            // While the body fits the buffer a flush is deferred: sending it would commit the plain coding.
+            @Override
+            public void flush() throws IOException {
+                if (out != null) {
+                    out.flush();
+                }
+            }
+
+            @Override
+            public boolean isReady() {
+                return out instanceof ServletOutputStream ? ((ServletOutputStream) out).isReady() : true;
+            }
+
+            // Non-blocking writes can't go through the buffer and the deflater, so the body is sent plain, straight
+            // to the container's stream, which then calls the listener.
+            @Override
+            public void setWriteListener(WriteListener writeListener) {
+                if (out instanceof GZIPOutputStream) {
+                    throw new IllegalStateException("The response is already being gzipped");
+                }
+                try {
+                    if (out == null) {
+                        start(false);
+                    }
+                    ((ServletOutputStream) out).setWriteListener(writeListener);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }
+        };
+        private byte[] buffer = new byte[minSize];
+        private int count;
+        private OutputStream out;
+        private PrintWriter writer;
+        private boolean finished;
+
+        GzipResponse(HttpServletResponse response, boolean acceptsGzip) {
+            super(response);
+            this.acceptsGzip = acceptsGzip;
+        }
+
+        @Override
+        public ServletOutputStream getOutputStream() {
+            return stream;
+        }
+
+        @Override
+        public PrintWriter getWriter() throws IOException {
+            if (writer == null) {
+                writer = new PrintWriter(new OutputStreamWriter(stream, getCharacterEncoding()));
+            }
+            return writer;
+        }
+
+        // The length is only known once the coding is; finish() sets it for plain bodies.
+        @Override
+        public void setContentLength(int len) {
+        }
+
+        @Override
+        public void setContentLengthLong(long len) {
+        }
+
+        @Override
+        public void setHeader(String name, String value) {
+            if (!HttpHeaders.CONTENT_LENGTH.equalsIgnoreCase(name)) {
+                super.setHeader(name, value);
+            }
+        }
+
+        @Override
+        public void addHeader(String name, String value) {
+            if (!HttpHeaders.CONTENT_LENGTH.equalsIgnoreCase(name)) {
+                super.addHeader(name, value);
+            }
+        }
+
+        @Override
+        public void flushBuffer() throws IOException {
+            if (writer != null) {
+                writer.flush();
+            }
+            stream.flush();
+        }
+
+        @Override
+        public void resetBuffer() {
+            super.resetBuffer();
+            count = 0;
+        }
+
+        @Override
+        public void reset() {
+            super.reset();
+            count = 0;
+        }
+
+        @Override
+        public void sendError(int sc, String msg) throws IOException {
+            finished = true;
+            super.sendError(sc, msg);
+        }
+
+        @Override
+        public void sendError(int sc) throws IOException {
+            finished = true;
+            super.sendError(sc);
+        }
+
+        private void write(byte[] b, int off, int len) throws IOException {
+            if (out == null) {
+                if (count + len <= buffer.length) {
+                    System.arraycopy(b, off, buffer, count, len);
+                    count += len;
+                    return;
+                }
+                start(acceptsGzip);
+            }
+            out.write(b, off, len);
+        }
+
+        private void start(boolean gzip) throws IOException {
+            HttpServletResponse response = (HttpServletResponse) getResponse();
+            response.addHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+            if (gzip && !response.containsHeader(HttpHeaders.CONTENT_ENCODING)) {
+                response.setHeader(HttpHeaders.CONTENT_ENCODING, "gzip");
+                // The gzipped body differs byte for byte from the plain one, so its ETag can only be weak.
+                String etag = response.getHeader(HttpHeaders.ETAG);
+                if (etag != null && !etag.startsWith("W/")) {
+                    response.setHeader(HttpHeaders.ETAG, "W/" + etag);
+                }
+                out = new GZIPOutputStream(response.getOutputStream(), 8192, true);
+            } else {
+                out = response.getOutputStream();
+            }
+            out.write(buffer, 0, count);
+            buffer = null;
+        }
+
+        void finish() throws IOException {
+            if (writer != null) {
+                writer.flush();
+            }
+            if (finished) {
+                return;
+            }
+            finished = true;
+            if (out == null) {
+                if (getResponse().isCommitted()) {
+                    return;
+                }
+                if (count > 0) {
+                    getResponse().setContentLength(count);
+                }
+                start(false);
+            }
+            if (out instanceof GZIPOutputStream) {
+                ((GZIPOutputStream) out).finish();
+            }
+            out.flush();
+        }
+    }
+}
@@ -0,0 +1,103 @@
+package com.space.controller;
+
+import com.space.config.ReplicaRoutingDataSource;
+import com.space.service.FleetVersion;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.MethodParameter;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.server.ServerHttpRequest;
+import org.springframework.http.server.ServerHttpResponse;
+import org.springframework.http.server.ServletServerHttpRequest;
+import org.springframework.http.server.ServletServerHttpResponse;
+import org.springframework.web.bind.annotation.ControllerAdvice;
+import org.springframework.web.servlet.HandlerInterceptor;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyAdvice;
+
+import javax.servlet.DispatcherType;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import javax.sql.DataSource;
+
+/**
+ * Strong ETags for the ship reads, derived from FleetVersion and the Accept header. A matching
+ * If-None-Match is answered with 304 before the handler runs, so no query is made. If-None-Match: * goes to the
+ * handler: whether the ship exists is only known there. The tag is computed before the handler runs and written as
+ * its body is, so error responses (which are written without one) carry none.
+ * <p>
+ * FleetVersion follows the primary, so with read replicas only responses read from the primary are tagged (see
+ * ReplicaRoutingDataSource.readsFromPrimary): a lagging replica's rows would otherwise be cached as current.
+ */
+@ControllerAdvice
+public class ConditionalGetInterceptor implements HandlerInterceptor, ResponseBodyAdvice<Object> {
+
+    private static final String ETAG_ATTRIBUTE = ConditionalGetInterceptor.class.getName() + ".etag";
+
+    @Autowired
+    private FleetVersion fleetVersion;
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        // Async dispatches of /rest/async reads were already tagged on the way in.
+        if (request.getDispatcherType() == DispatcherType.ASYNC
+                || !"GET".equals(request.getMethod()) && !"HEAD".equals(request.getMethod())) {
+            return true;
+        }
+        String accept = request.getHeader(HttpHeaders.ACCEPT);
+        String etag = "\"" + fleetVersion.current()
+                + (accept == null ? "" : "-" + Integer.toHexString(accept.hashCode())) + "\"";
+        response.setHeader(HttpHeaders.CACHE_CONTROL, "no-cache");
+        response.setHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT);
+        // The client's tag was only ever given out with rows from the primary.
+        if (matches(request.getHeader(HttpHeaders.IF_NONE_MATCH), etag)) {
+            response.setHeader(HttpHeaders.ETAG, etag);
+            response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+            return false;
+        }
+        if (!(dataSource instanceof ReplicaRoutingDataSource)
+                || ((ReplicaRoutingDataSource) dataSource).readsFromPrimary(request)) {
+            request.setAttribute(ETAG_ATTRIBUTE, etag);
+        }
+        return true;
+    }
+
+    @Override
+    public boolean supports(MethodParameter returnType, Class<? extends HttpMessageConverter<?>> converterType) {
+        return true;
+    }
+
+    @Override
+    public Object beforeBodyWrite(Object body, MethodParameter returnType, MediaType selectedContentType,
+                                  Class<? extends HttpMessageConverter<?>> selectedConverterType,
+                                  ServerHttpRequest request, ServerHttpResponse response) {
+        if (request instanceof ServletServerHttpRequest && response instanceof ServletServerHttpResponse) {
+            Object etag = ((ServletServerHttpRequest) request).getServletRequest().getAttribute(ETAG_ATTRIBUTE);
+            HttpServletResponse servletResponse = ((ServletServerHttpResponse) response).getServletResponse();
+            if (etag != null && servletResponse.getStatus() / 100 == 2) {
+                servletResponse.setHeader(HttpHeaders.ETAG, (String) etag);
+            }
+        }
+        return body;
+    }
+
+    // If-None-Match uses the weak comparison: W/ prefixes are ignored.
+    private static boolean matches(String ifNoneMatch, String etag) {
+        if (ifNoneMatch == null) {
+            return false;
+        }
+        for (String candidate : ifNoneMatch.split(",")) {
+            candidate = candidate.trim();
+            if (candidate.startsWith("W/")) {
+                candidate = candidate.substring(2);
+            }
+            if (candidate.equals(etag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
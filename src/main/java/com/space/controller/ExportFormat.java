@@ -0,0 +1,132 @@
+package com.space.controller;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.space.model.ShipView;
+
+import java.io.BufferedOutputStream;
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Row formats of GET /rest/ships/export. Each ship is written as soon as it is read from the cursor.
+ */
+public enum ExportFormat {
+    NDJSON("application/x-ndjson") {
+        @Override
+        ShipWriter open(OutputStream out, ObjectMapper objectMapper) throws IOException {
+            JsonGenerator generator = objectMapper.getFactory().createGenerator(out);
+            generator.setRootValueSeparator(null);
+            ObjectWriter writer = objectMapper.writer().without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+            return new ShipWriter() {
+                @Override
+                public void write(ShipView ship) throws IOException {
+                    writer.writeValue(generator, ship);
+                    generator.writeRaw('\n');
+                }
+
+                @Override
+                public void close() throws IOException {
+                    generator.close();
+                }
+            };
+        }
+    },
+    ROWS(ShipRows.CONTENT_TYPE) {
+        @Override
+        ShipWriter open(OutputStream out, ObjectMapper objectMapper) throws IOException {
+            DataOutputStream data = new DataOutputStream(new BufferedOutputStream(out));
+            ShipRows.writeHeader(data);
+            return new ShipWriter() {
+                @Override
+                public void write(ShipView ship) throws IOException {
+                    ShipRows.writeRow(data, ship);
+                }
+
+                @Override
+                public void close() throws IOException {
+                    data.close();
+                }
+            };
+        }
+    },
+    CSV("text/csv;charset=UTF-8") {
+        @Override
+        ShipWriter open(OutputStream out, ObjectMapper objectMapper) throws IOException {
+            Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+            writer.write("id,name,planet,shipType,prodDate,isUsed,speed,crewSize,rating\r\n");
+            return new ShipWriter() {
+                @Override
+                public void write(ShipView ship) throws IOException {
+                    writer.write(String.valueOf(ship.getId()));
+                    writer.write(',');
+                    writeText(writer, ship.getName());
+                    writer.write(',');
+                    writeText(writer, ship.getPlanet());
+                    writer.write(',');
+                    writeValue(writer, ship.getShipType());
+                    writer.write(',');
+                    writeValue(writer, ship.getProdDate() == null ? null : ship.getProdDate().getTime());
+                    writer.write(',');
+                    writeValue(writer, ship.getUsed());
+                    writer.write(',');
+                    writeValue(writer, ship.getSpeed());
+                    writer.write(',');
+                    writeValue(writer, ship.getCrewSize());
+                    writer.write(',');
+                    writeValue(writer, ship.getRating());
+                    writer.write("\r\n");
+                }
+
+                @Override
+                public void close() throws IOException {
+                    writer.close();
+                }
+            };
+        }
+    };
+
+    private final String contentType;
+
+    ExportFormat(String contentType) {
+        this.contentType = contentType;
+    }
+
+    public String getContentType() {
+        return contentType;
+    }
+
+    abstract ShipWriter open(OutputStream out, ObjectMapper objectMapper) throws IOException;
+
+    // RFC 4180: quote fields that contain a separator, a quote or a line break, doubling inner quotes.
+    private static void writeText(Writer writer, String value) throws IOException {
+        if (value == null) {
+            return;
+        }
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+            writer.write(value);
+            return;
+        }
+        writer.write('"');
+        writer.write(value.replace("\"", "\"\""));
+        writer.write('"');
+    }
+
+    private static void writeValue(Writer writer, Object value) throws IOException {
+        if (value != null) {
+            writer.write(value.toString());
+        }
+    }
+
+    interface ShipWriter extends Closeable {
+        void write(ShipView ship) throws IOException;
+    }
+}
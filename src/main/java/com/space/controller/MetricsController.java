@@ -0,0 +1,27 @@
+package com.space.controller;
+
+import com.space.metrics.MetricsSource;
+import com.space.metrics.PrometheusWriter;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/rest")
+public class MetricsController {
+
+    @Autowired
+    private List<MetricsSource> sources;
+
+    @GetMapping(value = "/metrics", produces = "text/plain;version=0.0.4;charset=utf-8")
+    public String getMetrics() {
+        PrometheusWriter writer = new PrometheusWriter();
+        for (MetricsSource source : sources) {
+            source.writeTo(writer);
+        }
+        return writer.toString();
+    }
+}
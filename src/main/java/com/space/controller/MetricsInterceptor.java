@@ -0,0 +1,49 @@
+package com.space.controller;
+
+import com.space.metrics.RequestMetrics;
+import com.space.metrics.SqlMetrics;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.AsyncHandlerInterceptor;
+import org.springframework.web.servlet.HandlerMapping;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+/**
+ * Times every /rest request and counts the SQL it runs on the request thread. An async request is
+ * timed from its arrival to its completed dispatch; queries run on the QueryExecutor pool are not counted.
+ */
+@Component
+public class MetricsInterceptor implements AsyncHandlerInterceptor {
+
+    private static final String START_ATTRIBUTE = MetricsInterceptor.class.getName() + ".start";
+
+    @Autowired
+    private RequestMetrics requestMetrics;
+
+    @Autowired
+    private SqlMetrics sqlMetrics;
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        if (request.getAttribute(START_ATTRIBUTE) == null) {
+            request.setAttribute(START_ATTRIBUTE, System.nanoTime());
+        }
+        sqlMetrics.begin();
+        return true;
+    }
+
+    @Override
+    public void afterConcurrentHandlingStarted(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        sqlMetrics.end();
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) {
+        long elapsed = System.nanoTime() - (Long) request.getAttribute(START_ATTRIBUTE);
+        Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        requestMetrics.record(request.getMethod(), pattern == null ? request.getRequestURI() : pattern.toString(),
+                elapsed, sqlMetrics.end());
+    }
+}
@@ -0,0 +1,229 @@
+package com.space.controller;
+
+import com.space.metrics.MetricsSource;
+import com.space.metrics.PrometheusWriter;
+import com.space.service.ReadConsistency;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.env.Environment;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.HandlerInterceptor;
+import org.springframework.web.servlet.HandlerMapping;
+
+import javax.servlet.DispatcherType;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Token buckets per client and endpoint group, with the rate and burst of each group from ships.rate-limit.*.
+ * A request that finds its bucket empty gets 429 and a Retry-After before the handler runs. The client is the
+ * X-Api-Key header when the key is one of ships.rate-limit.api-keys, else the remote address, so a client can't
+ * get fresh buckets by making up keys.
+ * <p>
+ * A bucket is a single CAS-updated time at which it would be full again (the generic cell rate algorithm),
+ * so admission takes no lock. A client whose buckets are all full holds no state and is dropped once more
+ * than ships.rate-limit.max-clients are tracked; while that many clients are still draining, new ones share
+ * one bucket.
+ */
+@Component
+public class RateLimitInterceptor implements HandlerInterceptor, MetricsSource, InitializingBean {
+
+    public static final String API_KEY_HEADER = ReadConsistency.API_KEY_HEADER;
+
+    private static final long SWEEP_INTERVAL_NANOS = TimeUnit.SECONDS.toNanos(1);
+    private static final String OTHER_CLIENTS = "other";
+
+    enum Group {
+        READ, LIST, COUNT, EXPORT, WRITE;
+
+        private final String property = "ships.rate-limit." + name().toLowerCase();
+    }
+
+    @Autowired
+    private Environment environment;
+
+    @Value("${ships.rate-limit.enabled:true}")
+    private boolean enabled;
+
+    @Value("${ships.rate-limit.max-clients:10000}")
+    private int maxClients;
+
+    @Value("${ships.rate-limit.api-keys:}")
+    private String[] apiKeys;
+
+    @Value("${ships.rate-limit.exempt-clients:}")
+    private String[] exemptClients;
+
+    private final long[] intervalNanos = new long[Group.values().length];
+    private final long[] capacityNanos = new long[Group.values().length];
+    private Set<String> exempt;
+    private Set<String> knownKeys;
+
+    private final Map<String, AtomicLongArray> buckets = new ConcurrentHashMap<>();
+    private final AtomicLong lastSweep = new AtomicLong(System.nanoTime());
+    private final Map<String, LongAdder> rejected = new ConcurrentHashMap<>();
+
+    @Override
+    public void afterPropertiesSet() {
+        for (Group group : Group.values()) {
+            double rate = environment.getProperty(group.property + ".rate", Double.class, 0.);
+            double burst = environment.getProperty(group.property + ".burst", Double.class, Math.max(rate, 1));
+            // A rate of 0 leaves the group unlimited.
+            intervalNanos[group.ordinal()] = rate > 0 ? (long) (TimeUnit.SECONDS.toNanos(1) / rate) : 0;
+            capacityNanos[group.ordinal()] = (long) (intervalNanos[group.ordinal()] * Math.max(burst, 1));
+        }
+        exempt = new HashSet<>(Arrays.asList(exemptClients));
+        knownKeys = new HashSet<>(Arrays.asList(apiKeys));
+        // An exempt key has to be recognised to be exempt.
+        for (String client : exempt) {
+            if (client.startsWith("key:")) {
+                knownKeys.add(client.substring("key:".length()));
+            }
+        }
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) throws IOException {
+        // Async dispatches were admitted on the way in.
+        if (!enabled || request.getDispatcherType() == DispatcherType.ASYNC) {
+            return true;
+        }
+        Group group = group(request);
+        if (intervalNanos[group.ordinal()] == 0) {
+            return true;
+        }
+        String client = limitedClient(request);
+        if (exempt.contains(client)) {
+            return true;
+        }
+        long now = System.nanoTime();
+        long waitNanos = acquire(bucketsOf(client, now), group, now);
+        if (waitNanos <= 0) {
+            return true;
+        }
+        rejected(client, group).increment();
+        long retryAfter = Math.max(1, (waitNanos + TimeUnit.SECONDS.toNanos(1) - 1) / TimeUnit.SECONDS.toNanos(1));
+        response.setHeader(HttpHeaders.RETRY_AFTER, Long.toString(retryAfter));
+        response.sendError(HttpStatus.TOO_MANY_REQUESTS.value(), "Too many requests, retry in " + retryAfter + " s.");
+        return false;
+    }
+
+    @Override
+    public void writeTo(PrometheusWriter writer) {
+        writer.gauge("ships_rate_limit_clients", "Clients with a partly drained token bucket.", null, buckets.size());
+        if (rejected.isEmpty()) {
+            return;
+        }
+        writer.header("ships_rate_limit_rejected_total", "Requests answered with 429, by client and endpoint group.", "counter");
+        rejected.forEach((key, count) -> {
+            int separator = key.lastIndexOf(' ');
+            writer.sample("ships_rate_limit_rejected_total",
+                    PrometheusWriter.label("client", key.substring(0, separator)) + ","
+                            + PrometheusWriter.label("endpoint", key.substring(separator + 1)),
+                    count.sum());
+        });
+    }
+
+    // Returns 0 when a token was taken, otherwise how long until one is available.
+    private long acquire(AtomicLongArray fullAt, Group group, long now) {
+        int index = group.ordinal();
+        long interval = intervalNanos[index];
+        while (true) {
+            long current = fullAt.get(index);
+            long next = (current - now > 0 ? current : now) + interval;
+            long excess = next - now - capacityNanos[index];
+            if (excess > 0) {
+                return excess;
+            }
+            if (fullAt.compareAndSet(index, current, next)) {
+                return 0;
+            }
+        }
+    }
+
+    private AtomicLongArray bucketsOf(String client, long now) {
+        AtomicLongArray fullAt = buckets.get(client);
+        if (fullAt != null) {
+            return fullAt;
+        }
+        if (buckets.size() >= maxClients) {
+            sweep(now);
+            if (buckets.size() >= maxClients) {
+                client = OTHER_CLIENTS;
+            }
+        }
+        return buckets.computeIfAbsent(client, key -> {
+            AtomicLongArray initial = new AtomicLongArray(Group.values().length);
+            for (int i = 0; i < initial.length(); i++) {
+                initial.set(i, now);
+            }
+            return initial;
+        });
+    }
+
+    // Forgets the clients whose buckets have all refilled, at most once a second.
+    private void sweep(long now) {
+        long last = lastSweep.get();
+        if (now - last < SWEEP_INTERVAL_NANOS || !lastSweep.compareAndSet(last, now)) {
+            return;
+        }
+        buckets.values().removeIf(fullAt -> {
+            for (int i = 0; i < fullAt.length(); i++) {
+                if (fullAt.get(i) - now > 0) {
+                    return false;
+                }
+            }
+            return true;
+        });
+    }
+
+    // API keys are labelled by their first characters only, so scrapes don't leak them.
+    private LongAdder rejected(String client, Group group) {
+        String label = client.startsWith("key:") && client.length() > 12 ? client.substring(0, 12) + "..." : client;
+        String key = label + " " + group.name();
+        LongAdder count = rejected.get(key);
+        if (count != null) {
+            return count;
+        }
+        if (rejected.size() >= maxClients) {
+            key = OTHER_CLIENTS + " " + group.name();
+        }
+        return rejected.computeIfAbsent(key, k -> new LongAdder());
+    }
+
+    private String limitedClient(HttpServletRequest request) {
+        String apiKey = request.getHeader(API_KEY_HEADER);
+        return apiKey != null && knownKeys.contains(apiKey) ? "key:" + apiKey : request.getRemoteAddr();
+    }
+
+    private static Group group(HttpServletRequest request) {
+        if (!"GET".equals(request.getMethod()) && !"HEAD".equals(request.getMethod())) {
+            return Group.WRITE;
+        }
+        Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        String path = pattern == null ? request.getRequestURI() : pattern.toString();
+        if (path.endsWith("/export")) {
+            return Group.EXPORT;
+        }
+        if (path.endsWith("/count")) {
+            return Group.COUNT;
+        }
+        if (path.endsWith("/ships") || path.endsWith("/facets")) {
+            return Group.LIST;
+        }
+        return Group.READ;
+    }
+}
@@ -1,9 +1,20 @@
 package com.space.controller;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.space.model.BatchItemResult;
+import com.space.model.BulkResult;
+import com.space.model.FleetStats;
 import com.space.model.Ship;
+import com.space.model.ShipFacets;
 import com.space.model.ShipType;
+import com.space.model.ShipView;
+import com.space.repository.FilterQueryCache;
+import com.space.service.FilterShapeRecorder;
+import com.space.service.ShipFilter;
 import com.space.service.ShipService;
+import com.space.service.impl.UpdateCoalescer;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
@@ -12,39 +23,93 @@ import org.springframework.http.HttpStatus;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.server.ResponseStatusException;
 
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 @RestController
 @RequestMapping("/rest")
 public class ShipController {
 
+    public static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+
     @Autowired
     private ShipService service;
 
+    @Autowired
+    private FilterShapeRecorder filterShapeRecorder;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private UpdateCoalescer updateCoalescer;
+
+    @Value("${ships.index-reads:false}")
+    private boolean indexReads;
+
+    @Value("${ships.batch.max-items:50000}")
+    private int maxBatchItems;
+
+    @Value("${ships.write-behind.timeout-ms:10000}")
+    private long writeBehindTimeoutMs;
+
     @RequestMapping(value = "/ships", method = RequestMethod.GET)
-    public List<Ship> getShipList(@RequestParam(required = false) String name,
-                                  @RequestParam(required = false) String planet,
-                                  @RequestParam(required = false) ShipType shipType,
-                                  @RequestParam(required = false) Long after,
-                                  @RequestParam(required = false) Long before,
-                                  @RequestParam(required = false) Boolean isUsed,
-                                  @RequestParam(required = false) Double minSpeed,
-                                  @RequestParam(required = false) Double maxSpeed,
-                                  @RequestParam(required = false) Integer minCrewSize,
-                                  @RequestParam(required = false) Integer maxCrewSize,
-                                  @RequestParam(required = false) Double minRating,
-                                  @RequestParam(required = false) Double maxRating,
-                                  @RequestParam(required = false, defaultValue = "ID") ShipOrder order,
-                                  @RequestParam(required = false, defaultValue = "0") Integer pageNumber,
-                                  @RequestParam(required = false, defaultValue = "3") Integer pageSize) {
+    public List<ShipView> getShipList(@RequestParam(required = false) String name,
+                                      @RequestParam(required = false) String planet,
+                                      @RequestParam(required = false) ShipType shipType,
+                                      @RequestParam(required = false) Long after,
+                                      @RequestParam(required = false) Long before,
+                                      @RequestParam(required = false) Boolean isUsed,
+                                      @RequestParam(required = false) Double minSpeed,
+                                      @RequestParam(required = false) Double maxSpeed,
+                                      @RequestParam(required = false) Integer minCrewSize,
+                                      @RequestParam(required = false) Integer maxCrewSize,
+                                      @RequestParam(required = false) Double minRating,
+                                      @RequestParam(required = false) Double maxRating,
+                                      @RequestParam(required = false, defaultValue = "ID") ShipOrder order,
+                                      @RequestParam(required = false, defaultValue = "0") Integer pageNumber,
+                                      @RequestParam(required = false, defaultValue = "3") Integer pageSize,
+                                      @RequestParam(required = false) String cursor,
+                                      HttpServletResponse response) {
+        ShipFilter filter = new ShipFilter(name, planet, shipType, after, before, isUsed,
+                minSpeed, maxSpeed, minCrewSize, maxCrewSize, minRating, maxRating);
+        filterShapeRecorder.record(filter.getShape(), order.getFieldName());
+        if (cursor != null) {
+            return getShipSlice(service.getSpecification(filter), order, pageSize, cursor, response);
+        }
         Pageable page = PageRequest.of(pageNumber, pageSize, Sort.Direction.ASC, order.getFieldName());
-        return service.getAll(Specification.where(ShipService.getShipsByNameSpec(name).
-                and(Specification.where(ShipService.getShipsByPlanetSpec(planet)))).
-                and(Specification.where(ShipService.getShipsByTypeSpec(shipType))).
-                and(Specification.where(ShipService.getShipsByProdDateSpec(before, after))).
-                and(Specification.where(ShipService.getShipsByIsUsedSpec(isUsed))).
-                and(Specification.where(ShipService.getShipsBySpeedSpec(minSpeed, maxSpeed))).
-                and(Specification.where(ShipService.getShipsByCrewSizeSpec(minCrewSize, maxCrewSize))).
-                and(Specification.where(ShipService.getShipsByRatingSpec(minRating, maxRating))), page);
+        if (indexReads) {
+            return service.getAllWithCycles(name, planet, shipType, after, before, isUsed,
+                    minSpeed, maxSpeed, minCrewSize, maxCrewSize, minRating, maxRating, page);
+        }
+        return service.getAllWithCompiledQuery(filter, page);
+    }
+
+    // Keyset pagination: an empty cursor starts from the beginning, the X-Next-Cursor header carries
+    // the position for the next page and is absent on the last one.
+    private List<ShipView> getShipSlice(Specification<Ship> specification, ShipOrder order, Integer pageSize,
+                                        String cursor, HttpServletResponse response) {
+        if (pageSize < 1) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Page size should be positive.");
+        }
+        if (!cursor.isEmpty()) {
+            try {
+                specification = specification.and(ShipCursor.decode(cursor, order).toSpecification());
+            } catch (IllegalArgumentException e) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
+            }
+        }
+        Sort sort = order == ShipOrder.ID ? Sort.by("id") : Sort.by(order.getFieldName(), "id");
+        List<ShipView> ships = service.getSlice(specification, sort, pageSize + 1);
+        if (ships.size() > pageSize) {
+            ships = ships.subList(0, pageSize);
+            response.setHeader(NEXT_CURSOR_HEADER, ShipCursor.after(order, ships.get(pageSize - 1)).encode());
+        }
+        return ships;
     }
 
     @GetMapping("/ships/count")
@@ -60,14 +125,69 @@ public class ShipController {
                                  @RequestParam(required = false) Integer maxCrewSize,
                                  @RequestParam(required = false) Double minRating,
                                  @RequestParam(required = false) Double maxRating) {
-        return service.countShips(Specification.where(ShipService.getShipsByNameSpec(name).
-                and(Specification.where(ShipService.getShipsByPlanetSpec(planet)))).
-                and(Specification.where(ShipService.getShipsByTypeSpec(shipType))).
-                and(Specification.where(ShipService.getShipsByProdDateSpec(before, after))).
-                and(Specification.where(ShipService.getShipsByIsUsedSpec(isUsed))).
-                and(Specification.where(ShipService.getShipsBySpeedSpec(minSpeed, maxSpeed))).
-                and(Specification.where(ShipService.getShipsByCrewSizeSpec(minCrewSize, maxCrewSize))).
-                and(Specification.where(ShipService.getShipsByRatingSpec(minRating, maxRating))));
+        if (indexReads) {
+            return service.countShipsWithCycles(name, planet, shipType, after, before, isUsed,
+                    minSpeed, maxSpeed, minCrewSize, maxCrewSize, minRating, maxRating);
+        }
+        return service.countShipsWithCompiledQuery(new ShipFilter(name, planet, shipType, after, before, isUsed,
+                minSpeed, maxSpeed, minCrewSize, maxCrewSize, minRating, maxRating));
+    }
+
+    @GetMapping("/ships/facets")
+    public ShipFacets getFacets(@RequestParam(required = false) String name,
+                                @RequestParam(required = false) String planet,
+                                @RequestParam(required = false) ShipType shipType,
+                                @RequestParam(required = false) Long after,
+                                @RequestParam(required = false) Long before,
+                                @RequestParam(required = false) Boolean isUsed,
+                                @RequestParam(required = false) Double minSpeed,
+                                @RequestParam(required = false) Double maxSpeed,
+                                @RequestParam(required = false) Integer minCrewSize,
+                                @RequestParam(required = false) Integer maxCrewSize,
+                                @RequestParam(required = false) Double minRating,
+                                @RequestParam(required = false) Double maxRating) {
+        ShipFilter filter = new ShipFilter(name, planet, shipType, after, before, isUsed,
+                minSpeed, maxSpeed, minCrewSize, maxCrewSize, minRating, maxRating);
+        return indexReads ? service.getFacetsWithCycles(filter) : service.getFacets(filter);
+    }
+
+    // Whole-fleet aggregates, maintained in memory; filters are not supported.
+    @GetMapping("/ships/stats")
+    public FleetStats getStats() {
+        return service.getStats();
+    }
+
+    @GetMapping("/ships/export")
+    public void exportShips(@RequestParam(required = false) String name,
+                            @RequestParam(required = false) String planet,
+                            @RequestParam(required = false) ShipType shipType,
+                            @RequestParam(required = false) Long after,
+                            @RequestParam(required = false) Long before,
+                            @RequestParam(required = false) Boolean isUsed,
+                            @RequestParam(required = false) Double minSpeed,
+                            @RequestParam(required = false) Double maxSpeed,
+                            @RequestParam(required = false) Integer minCrewSize,
+                            @RequestParam(required = false) Integer maxCrewSize,
+                            @RequestParam(required = false) Double minRating,
+                            @RequestParam(required = false) Double maxRating,
+                            @RequestParam(required = false, defaultValue = "ID") ShipOrder order,
+                            @RequestParam(required = false, defaultValue = "NDJSON") ExportFormat format,
+                            HttpServletResponse response) throws IOException {
+        ShipFilter filter = new ShipFilter(name, planet, shipType, after, before, isUsed,
+                minSpeed, maxSpeed, minCrewSize, maxCrewSize, minRating, maxRating);
+        Sort sort = order == ShipOrder.ID ? Sort.by("id") : Sort.by(order.getFieldName(), "id");
+        response.setContentType(format.getContentType());
+        try (ExportFormat.ShipWriter writer = format.open(response.getOutputStream(), objectMapper)) {
+            service.exportShips(service.getSpecification(filter), sort, ship -> {
+                try {
+                    writer.write(ship);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
     }
 
     @PostMapping("/ships")
@@ -81,16 +201,27 @@ public class ShipController {
         return ship;
     }
 
+    @PostMapping("/ships/batch")
+    public List<BatchItemResult> createShips(@RequestBody List<Ship> ships) {
+        if (ships.size() > maxBatchItems) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "Batch should contain at most " + maxBatchItems + " ships.");
+        }
+        return service.createShips(ships);
+    }
+
     @GetMapping("/ships/{id}")
     public @ResponseBody Ship getShip(@PathVariable Long id) {
         if (!service.isIdValid(id)) {
             throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Id " + id + " has wrong format.");
         }
-        if (!service.isIdExists(id)) {
+        // Taken before the read, see UpdateCoalescer.pendingPatch.
+        Ship pendingPatch = updateCoalescer.pendingPatch(id);
+        Ship ship = service.getShip(id);
+        if (ship == null) {
             throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Id " + id + " doesn't exists");
         }
-        Ship ship = service.getShip(id);
-        return ship;
+        return pendingPatch == null ? ship : updateCoalescer.overlay(ship, pendingPatch);
     }
 
     @PostMapping("/ships/{id}")
@@ -98,15 +229,19 @@ public class ShipController {
         if (!service.isIdValid(id)) {
             throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Id " + id + " has wrong format.");
         }
-        if (!service.isIdExists(id)) {
-            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Id " + id + " doesn't exists");
-        }
         String errorMessage = service.validateUpdateShip(ship);
         if (!errorMessage.isEmpty()) {
+            // An unknown id is reported before a bad body.
+            if (service.getShip(id) == null) {
+                throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Id " + id + " doesn't exists");
+            }
             throw new ResponseStatusException(HttpStatus.BAD_REQUEST, errorMessage);
         }
 
-        Ship updatedShip = service.updateShip(id, ship);
+        Ship updatedShip = updateCoalescer.isEnabled() ? awaitMergedUpdate(id, ship) : service.updateShip(id, ship);
+        if (updatedShip == null) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Id " + id + " doesn't exists");
+        }
 
         return updatedShip;
     }
@@ -116,10 +251,80 @@ public class ShipController {
         if (!service.isIdValid(id)) {
             throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Id " + id + " has wrong format.");
         }
-        if (!service.isIdExists(id)) {
+        if (!service.deleteShip(id)) {
             throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Id " + id + " doesn't exists");
         }
-        service.deleteShip(id);
+    }
+
+    // Sets the non-null fields of the body on every ship matching the filters, in one statement.
+    @PatchMapping("/ships")
+    public BulkResult updateShips(@RequestParam(required = false) String name,
+                                  @RequestParam(required = false) String planet,
+                                  @RequestParam(required = false) ShipType shipType,
+                                  @RequestParam(required = false) Long after,
+                                  @RequestParam(required = false) Long before,
+                                  @RequestParam(required = false) Boolean isUsed,
+                                  @RequestParam(required = false) Double minSpeed,
+                                  @RequestParam(required = false) Double maxSpeed,
+                                  @RequestParam(required = false) Integer minCrewSize,
+                                  @RequestParam(required = false) Integer maxCrewSize,
+                                  @RequestParam(required = false) Double minRating,
+                                  @RequestParam(required = false) Double maxRating,
+                                  @RequestBody Ship ship) {
+        ShipFilter filter = bulkFilter(new ShipFilter(name, planet, shipType, after, before, isUsed,
+                minSpeed, maxSpeed, minCrewSize, maxCrewSize, minRating, maxRating));
+        String errorMessage = service.validateUpdateShip(ship);
+        if (!errorMessage.isEmpty()) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, errorMessage);
+        }
+        if (FilterQueryCache.patchShape(ship) == 0) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Nothing to update.");
+        }
+        return new BulkResult(service.updateShips(filter, ship));
+    }
+
+    @DeleteMapping("/ships")
+    public BulkResult deleteShips(@RequestParam(required = false) String name,
+                                  @RequestParam(required = false) String planet,
+                                  @RequestParam(required = false) ShipType shipType,
+                                  @RequestParam(required = false) Long after,
+                                  @RequestParam(required = false) Long before,
+                                  @RequestParam(required = false) Boolean isUsed,
+                                  @RequestParam(required = false) Double minSpeed,
+                                  @RequestParam(required = false) Double maxSpeed,
+                                  @RequestParam(required = false) Integer minCrewSize,
+                                  @RequestParam(required = false) Integer maxCrewSize,
+                                  @RequestParam(required = false) Double minRating,
+                                  @RequestParam(required = false) Double maxRating) {
+        return new BulkResult(service.deleteShips(bulkFilter(new ShipFilter(name, planet, shipType, after, before,
+                isUsed, minSpeed, maxSpeed, minCrewSize, maxCrewSize, minRating, maxRating))));
+    }
+
+    // Refuses to touch the whole table by accident.
+    private static ShipFilter bulkFilter(ShipFilter filter) {
+        if (filter.getShape() == 0) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "At least one filter is required.");
+        }
+        return filter;
+    }
+
+    // Write-behind: the caller is answered once the window's merged update for the ship has committed. An update
+    // that hasn't committed within ships.write-behind.timeout-ms gives 503; it stays queued and may still commit.
+    private Ship awaitMergedUpdate(Long id, Ship ship) {
+        try {
+            return updateCoalescer.submit(id, ship).get(writeBehindTimeoutMs, TimeUnit.MILLISECONDS);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new IllegalStateException(e.getCause());
+        } catch (TimeoutException e) {
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE,
+                    "Update didn't commit within " + writeBehindTimeoutMs + " ms.");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Interrupted while waiting for the update.");
+        }
     }
 
 }
@@ -0,0 +1,82 @@
+package com.space.controller;
+
+import com.space.model.Ship;
+import com.space.model.ShipView;
+import com.space.service.ShipService;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.Date;
+
+/**
+ * Position of the last ship of a keyset page: the value of the order field plus the id as tiebreaker.
+ * Encoded as an opaque URL-safe token.
+ */
+public class ShipCursor {
+
+    private final ShipOrder order;
+    private final String value;
+    private final long id;
+
+    private ShipCursor(ShipOrder order, String value, long id) {
+        this.order = order;
+        this.value = value;
+        this.id = id;
+    }
+
+    public static ShipCursor after(ShipOrder order, ShipView ship) {
+        String value;
+        switch (order) {
+            case SPEED:
+                value = ship.getSpeed() == null ? "" : Double.toString(ship.getSpeed());
+                break;
+            case DATE:
+                value = ship.getProdDate() == null ? "" : Long.toString(ship.getProdDate().getTime());
+                break;
+            case RATING:
+                value = ship.getRating() == null ? "" : Double.toString(ship.getRating());
+                break;
+            default:
+                value = Long.toString(ship.getId());
+        }
+        return new ShipCursor(order, value, ship.getId());
+    }
+
+    public static ShipCursor decode(String token, ShipOrder order) {
+        String[] parts;
+        try {
+            parts = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8).split("\\|", -1);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Cursor is malformed.");
+        }
+        if (parts.length != 3 || !parts[0].equals(order.name())) {
+            throw new IllegalArgumentException("Cursor doesn't belong to order " + order + ".");
+        }
+        try {
+            ShipCursor cursor = new ShipCursor(order, parts[1], Long.parseLong(parts[2]));
+            cursor.toSpecification();
+            return cursor;
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Cursor is malformed.");
+        }
+    }
+
+    public String encode() {
+        String raw = order.name() + "|" + value + "|" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public Specification<Ship> toSpecification() {
+        String field = order.getFieldName();
+        switch (order) {
+            case SPEED:
+            case RATING:
+                return ShipService.getShipsAfterSpec(field, value.isEmpty() ? null : Double.valueOf(value), id);
+            case DATE:
+                return ShipService.getShipsAfterSpec(field, value.isEmpty() ? null : new Date(Long.parseLong(value)), id);
+            default:
+                return ShipService.getShipsAfterSpec(field, Long.valueOf(value), id);
+        }
+    }
+}
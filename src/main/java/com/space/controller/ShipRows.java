@@ -0,0 +1,154 @@
+package com.space.controller;
+
+import com.space.model.ShipType;
+import com.space.model.ShipView;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * application/x-ship-rows: ships as fixed-schema binary rows, without field names. The stream is the bytes
+ * "SHR" and a version byte, then rows until the end of the stream, so lists and exports share the format.
+ * <p>
+ * A row starts with a big-endian unsigned short: bits 0-8 are set for the non-null fields in Ship order (id,
+ * name, planet, shipType, prodDate, isUsed, speed, crewSize, rating) and bit 9 is isUsed. The present fields
+ * follow: id as an unsigned LEB128 varint, strings as a varint byte length and UTF-8, shipType as its ordinal
+ * byte, prodDate (epoch millis) and crewSize as zigzag varints, speed and rating as IEEE 754 doubles.
+ */
+public final class ShipRows {
+
+    public static final String CONTENT_TYPE = "application/x-ship-rows";
+
+    private static final byte[] HEADER = {'S', 'H', 'R', 1};
+    private static final ShipType[] SHIP_TYPES = ShipType.values();
+
+    private static final int ID = 1;
+    private static final int NAME = 1 << 1;
+    private static final int PLANET = 1 << 2;
+    private static final int SHIP_TYPE = 1 << 3;
+    private static final int PROD_DATE = 1 << 4;
+    private static final int IS_USED = 1 << 5;
+    private static final int SPEED = 1 << 6;
+    private static final int CREW_SIZE = 1 << 7;
+    private static final int RATING = 1 << 8;
+    private static final int USED = 1 << 9;
+
+    private ShipRows() {
+    }
+
+    public static void writeHeader(DataOutputStream out) throws IOException {
+        out.write(HEADER);
+    }
+
+    public static void writeRow(DataOutputStream out, ShipView ship) throws IOException {
+        int flags = (ship.getId() != null ? ID : 0)
+                | (ship.getName() != null ? NAME : 0)
+                | (ship.getPlanet() != null ? PLANET : 0)
+                | (ship.getShipType() != null ? SHIP_TYPE : 0)
+                | (ship.getProdDate() != null ? PROD_DATE : 0)
+                | (ship.getUsed() != null ? IS_USED | (ship.getUsed() ? USED : 0) : 0)
+                | (ship.getSpeed() != null ? SPEED : 0)
+                | (ship.getCrewSize() != null ? CREW_SIZE : 0)
+                | (ship.getRating() != null ? RATING : 0);
+        out.writeShort(flags);
+        if (ship.getId() != null) {
+            writeVarLong(out, ship.getId());
+        }
+        if (ship.getName() != null) {
+            writeString(out, ship.getName());
+        }
+        if (ship.getPlanet() != null) {
+            writeString(out, ship.getPlanet());
+        }
+        if (ship.getShipType() != null) {
+            out.writeByte(ship.getShipType().ordinal());
+        }
+        if (ship.getProdDate() != null) {
+            writeVarLong(out, zigzag(ship.getProdDate().getTime()));
+        }
+        if (ship.getSpeed() != null) {
+            out.writeDouble(ship.getSpeed());
+        }
+        if (ship.getCrewSize() != null) {
+            writeVarLong(out, zigzag(ship.getCrewSize()));
+        }
+        if (ship.getRating() != null) {
+            out.writeDouble(ship.getRating());
+        }
+    }
+
+    public static List<ShipView> read(InputStream stream) throws IOException {
+        DataInputStream in = new DataInputStream(stream);
+        byte[] header = new byte[HEADER.length];
+        in.readFully(header);
+        if (header[0] != HEADER[0] || header[1] != HEADER[1] || header[2] != HEADER[2]) {
+            throw new IOException("Not a ship rows stream.");
+        }
+        if (header[3] != HEADER[3]) {
+            throw new IOException("Unsupported ship rows version " + header[3] + ".");
+        }
+        List<ShipView> ships = new ArrayList<>();
+        int first;
+        while ((first = in.read()) >= 0) {
+            int flags = first << 8 | in.readUnsignedByte();
+            ships.add(new ShipView(
+                    (flags & ID) != 0 ? readVarLong(in) : null,
+                    (flags & NAME) != 0 ? readString(in) : null,
+                    (flags & PLANET) != 0 ? readString(in) : null,
+                    (flags & SHIP_TYPE) != 0 ? SHIP_TYPES[in.readUnsignedByte()] : null,
+                    (flags & PROD_DATE) != 0 ? new Date(unzigzag(readVarLong(in))) : null,
+                    (flags & IS_USED) != 0 ? (flags & USED) != 0 : null,
+                    (flags & SPEED) != 0 ? in.readDouble() : null,
+                    (flags & CREW_SIZE) != 0 ? (int) unzigzag(readVarLong(in)) : null,
+                    (flags & RATING) != 0 ? in.readDouble() : null));
+        }
+        return ships;
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        writeVarLong(out, bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        byte[] bytes = new byte[(int) readVarLong(in)];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static void writeVarLong(DataOutputStream out, long value) throws IOException {
+        while ((value & ~0x7FL) != 0) {
+            out.writeByte((int) (value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.writeByte((int) value);
+    }
+
+    private static long readVarLong(DataInputStream in) throws IOException {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            int b = in.readUnsignedByte();
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new EOFException("Malformed varint.");
+    }
+
+    private static long zigzag(long value) {
+        return value << 1 ^ value >> 63;
+    }
+
+    private static long unzigzag(long value) {
+        return value >>> 1 ^ -(value & 1);
+    }
+}
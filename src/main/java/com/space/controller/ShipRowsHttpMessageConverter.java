@@ -0,0 +1,71 @@
+package com.space.controller;
+
+import com.space.model.ShipView;
+import org.springframework.core.ResolvableType;
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.AbstractGenericHttpMessageConverter;
+import org.springframework.http.converter.HttpMessageNotReadableException;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.lang.reflect.Type;
+import java.util.List;
+
+/**
+ * Reads and writes List&lt;ShipView&gt; bodies as application/x-ship-rows, see ShipRows.
+ */
+public class ShipRowsHttpMessageConverter extends AbstractGenericHttpMessageConverter<List<ShipView>> {
+
+    public ShipRowsHttpMessageConverter() {
+        super(MediaType.parseMediaType(ShipRows.CONTENT_TYPE));
+    }
+
+    @Override
+    protected boolean supports(Class<?> clazz) {
+        return false;
+    }
+
+    @Override
+    public boolean canRead(Type type, Class<?> contextClass, MediaType mediaType) {
+        return isShipViewList(type) && canRead(mediaType);
+    }
+
+    @Override
+    public boolean canWrite(Type type, Class<?> clazz, MediaType mediaType) {
+        return isShipViewList(type != null ? type : clazz) && canWrite(mediaType);
+    }
+
+    @Override
+    public List<ShipView> read(Type type, Class<?> contextClass, HttpInputMessage inputMessage) throws IOException {
+        return readInternal(null, inputMessage);
+    }
+
+    @Override
+    protected List<ShipView> readInternal(Class<? extends List<ShipView>> clazz, HttpInputMessage inputMessage)
+            throws IOException {
+        try {
+            return ShipRows.read(inputMessage.getBody());
+        } catch (IOException e) {
+            throw new HttpMessageNotReadableException("Could not read ship rows: " + e.getMessage(), e, inputMessage);
+        }
+    }
+
+    @Override
+    protected void writeInternal(List<ShipView> ships, Type type, HttpOutputMessage outputMessage) throws IOException {
+        DataOutputStream out = new DataOutputStream(new BufferedOutputStream(outputMessage.getBody()));
+        ShipRows.writeHeader(out);
+        for (ShipView ship : ships) {
+            ShipRows.writeRow(out, ship);
+        }
+        out.flush();
+    }
+
+    private static boolean isShipViewList(Type type) {
+        ResolvableType resolved = ResolvableType.forType(type);
+        return List.class.isAssignableFrom(resolved.toClass())
+                && resolved.asCollection().resolveGeneric(0) == ShipView.class;
+    }
+}
@@ -0,0 +1,5 @@
+package com.space.metrics;
+
+public interface MetricsSource {
+    void writeTo(PrometheusWriter writer);
+}
@@ -0,0 +1,89 @@
+package com.space.metrics;
+
+import com.zaxxer.hikari.metrics.IMetricsTracker;
+import com.zaxxer.hikari.metrics.MetricsTrackerFactory;
+import com.zaxxer.hikari.metrics.PoolStats;
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Collects HikariCP pool gauges and connection acquire/usage latencies for the /rest/metrics endpoint.
+ */
+public class PoolMetrics implements MetricsTrackerFactory, MetricsSource {
+
+    private final Map<String, Tracker> trackers = new ConcurrentHashMap<>();
+
+    @Override
+    public IMetricsTracker create(String poolName, PoolStats poolStats) {
+        Tracker tracker = new Tracker(poolStats);
+        trackers.put(poolName, tracker);
+        return tracker;
+    }
+
+    @Override
+    public void writeTo(PrometheusWriter writer) {
+        if (trackers.isEmpty()) {
+            return;
+        }
+        writer.header("hikaricp_connections_active", "Connections currently borrowed from the pool.", "gauge");
+        trackers.forEach((pool, tracker) -> writer.sample("hikaricp_connections_active", poolLabel(pool), tracker.poolStats.getActiveConnections()));
+        writer.header("hikaricp_connections_idle", "Idle connections in the pool.", "gauge");
+        trackers.forEach((pool, tracker) -> writer.sample("hikaricp_connections_idle", poolLabel(pool), tracker.poolStats.getIdleConnections()));
+        writer.header("hikaricp_connections_pending", "Threads waiting for a connection.", "gauge");
+        trackers.forEach((pool, tracker) -> writer.sample("hikaricp_connections_pending", poolLabel(pool), tracker.poolStats.getPendingThreads()));
+        writer.header("hikaricp_connections", "Total connections in the pool.", "gauge");
+        trackers.forEach((pool, tracker) -> writer.sample("hikaricp_connections", poolLabel(pool), tracker.poolStats.getTotalConnections()));
+        writer.header("hikaricp_connections_max", "Maximum pool size.", "gauge");
+        trackers.forEach((pool, tracker) -> writer.sample("hikaricp_connections_max", poolLabel(pool), tracker.poolStats.getMaxConnections()));
+        writer.header("hikaricp_connections_min", "Minimum idle connections.", "gauge");
+        trackers.forEach((pool, tracker) -> writer.sample("hikaricp_connections_min", poolLabel(pool), tracker.poolStats.getMinConnections()));
+        writer.header("hikaricp_connection_timeout_total", "Connection requests that timed out.", "counter");
+        trackers.forEach((pool, tracker) -> writer.sample("hikaricp_connection_timeout_total", poolLabel(pool), tracker.timeouts.sum()));
+        writer.header("hikaricp_connection_acquire_seconds", "Time spent waiting for a connection from the pool.", "summary");
+        trackers.forEach((pool, tracker) -> writer.summary("hikaricp_connection_acquire_seconds", poolLabel(pool),
+                tracker.acquireMicros, tracker.acquireMicrosSum.sum(), 1e-6));
+        writer.header("hikaricp_connection_usage_seconds", "Time a connection was held before being returned.", "summary");
+        trackers.forEach((pool, tracker) -> writer.summary("hikaricp_connection_usage_seconds", poolLabel(pool),
+                tracker.usageMillis, tracker.usageMillisSum.sum(), 1e-3));
+    }
+
+    private static String poolLabel(String pool) {
+        return PrometheusWriter.label("pool", pool);
+    }
+
+    private static class Tracker implements IMetricsTracker {
+        private final PoolStats poolStats;
+        private final Histogram acquireMicros = new ConcurrentHistogram(2);
+        private final LongAdder acquireMicrosSum = new LongAdder();
+        private final Histogram usageMillis = new ConcurrentHistogram(2);
+        private final LongAdder usageMillisSum = new LongAdder();
+        private final LongAdder timeouts = new LongAdder();
+
+        private Tracker(PoolStats poolStats) {
+            this.poolStats = poolStats;
+        }
+
+        @Override
+        public void recordConnectionAcquiredNanos(long elapsedAcquiredNanos) {
+            long micros = TimeUnit.NANOSECONDS.toMicros(elapsedAcquiredNanos);
+            acquireMicros.recordValue(micros);
+            acquireMicrosSum.add(micros);
+        }
+
+        @Override
+        public void recordConnectionUsageMillis(long elapsedBorrowedMillis) {
+            usageMillis.recordValue(elapsedBorrowedMillis);
+            usageMillisSum.add(elapsedBorrowedMillis);
+        }
+
+        @Override
+        public void recordConnectionTimeout() {
+            timeouts.increment();
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package com.space.metrics;
+
+import org.HdrHistogram.Histogram;
+
+/**
+ * Renders metrics in the Prometheus text exposition format (version 0.0.4).
+ */
+public class PrometheusWriter {
+
+    private static final double[] QUANTILES = {0.5, 0.9, 0.99, 0.999};
+
+    private final StringBuilder out = new StringBuilder();
+
+    public void gauge(String name, String help, String labels, double value) {
+        header(name, help, "gauge");
+        sample(name, labels, value);
+    }
+
+    public void counter(String name, String help, String labels, double value) {
+        header(name, help, "counter");
+        sample(name, labels, value);
+    }
+
+    public void header(String name, String help, String type) {
+        out.append("# HELP ").append(name).append(' ').append(help).append('\n');
+        out.append("# TYPE ").append(name).append(' ').append(type).append('\n');
+    }
+
+    public void sample(String name, String labels, double value) {
+        out.append(name);
+        if (labels != null && !labels.isEmpty()) {
+            out.append('{').append(labels).append('}');
+        }
+        out.append(' ').append(format(value)).append('\n');
+    }
+
+    // Writes the samples of a summary whose histogram holds values in `unit`s of a second (e.g. 1e-6 for micros).
+    public void summary(String name, String labels, Histogram histogram, double sum, double unit) {
+        String prefix = labels == null || labels.isEmpty() ? "" : labels + ",";
+        for (double quantile : QUANTILES) {
+            double value = histogram.getTotalCount() == 0 ? 0 : histogram.getValueAtPercentile(quantile * 100) * unit;
+            sample(name, prefix + "quantile=\"" + quantile + "\"", value);
+        }
+        sample(name + "_sum", labels, sum * unit);
+        sample(name + "_count", labels, histogram.getTotalCount());
+    }
+
+    public static String label(String name, String value) {
+        return name + "=\"" + value.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n") + "\"";
+    }
+
+    private static String format(double value) {
+        if (value == (long) value) {
+            return Long.toString((long) value);
+        }
+        return Double.toString(value);
+    }
+
+    @Override
+    public String toString() {
+        return out.toString();
+    }
+}
@@ -0,0 +1,58 @@
+package com.space.metrics;
+
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Latency, SQL statements and rows read per request, by HTTP method and handler path pattern.
+ */
+public class RequestMetrics implements MetricsSource {
+
+    private final Map<String, Endpoint> endpoints = new ConcurrentHashMap<>();
+
+    public void record(String method, String path, long elapsedNanos, SqlMetrics.Counts sql) {
+        Endpoint endpoint = endpoints.computeIfAbsent(method + " " + path, key -> new Endpoint(method, path));
+        long micros = TimeUnit.NANOSECONDS.toMicros(elapsedNanos);
+        endpoint.latencyMicros.recordValue(micros);
+        endpoint.latencyMicrosSum.add(micros);
+        endpoint.statements.recordValue(sql.getStatements());
+        endpoint.statementsSum.add(sql.getStatements());
+        endpoint.rows.recordValue(sql.getRows());
+        endpoint.rowsSum.add(sql.getRows());
+    }
+
+    @Override
+    public void writeTo(PrometheusWriter writer) {
+        if (endpoints.isEmpty()) {
+            return;
+        }
+        writer.header("ships_http_request_seconds", "Time to handle a request.", "summary");
+        endpoints.values().forEach(endpoint -> writer.summary("ships_http_request_seconds", endpoint.labels,
+                endpoint.latencyMicros, endpoint.latencyMicrosSum.sum(), 1e-6));
+        writer.header("ships_http_request_sql_statements", "SQL statements executed per request.", "summary");
+        endpoints.values().forEach(endpoint -> writer.summary("ships_http_request_sql_statements", endpoint.labels,
+                endpoint.statements, endpoint.statementsSum.sum(), 1));
+        writer.header("ships_http_request_sql_rows", "Result set rows read per request.", "summary");
+        endpoints.values().forEach(endpoint -> writer.summary("ships_http_request_sql_rows", endpoint.labels,
+                endpoint.rows, endpoint.rowsSum.sum(), 1));
+    }
+
+    private static class Endpoint {
+        private final String labels;
+        private final Histogram latencyMicros = new ConcurrentHistogram(2);
+        private final LongAdder latencyMicrosSum = new LongAdder();
+        private final Histogram statements = new ConcurrentHistogram(2);
+        private final LongAdder statementsSum = new LongAdder();
+        private final Histogram rows = new ConcurrentHistogram(2);
+        private final LongAdder rowsSum = new LongAdder();
+
+        private Endpoint(String method, String path) {
+            this.labels = PrometheusWriter.label("method", method) + "," + PrometheusWriter.label("path", path);
+        }
+    }
+}
@@ -0,0 +1,72 @@
+package com.space.metrics;
+
+import com.space.service.ShipService;
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+import org.aopalliance.intercept.MethodInterceptor;
+import org.springframework.aop.framework.ProxyFactory;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.core.Ordered;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Wraps the ShipService bean in a proxy that records how long each of its methods takes. The timing
+ * proxy sits outside the transactional one, so a call's time includes opening and committing its transaction.
+ */
+public class ServiceMetrics implements BeanPostProcessor, Ordered, MetricsSource {
+
+    private final Map<String, Method> methods = new ConcurrentHashMap<>();
+
+    // After the transaction proxy has been created, which only recognises ShipServiceImpl itself.
+    @Override
+    public int getOrder() {
+        return Ordered.LOWEST_PRECEDENCE;
+    }
+
+    @Override
+    public Object postProcessAfterInitialization(Object bean, String beanName) {
+        if (!(bean instanceof ShipService)) {
+            return bean;
+        }
+        ProxyFactory proxyFactory = new ProxyFactory();
+        proxyFactory.setTarget(bean);
+        proxyFactory.addInterface(ShipService.class);
+        proxyFactory.addAdvice((MethodInterceptor) invocation -> {
+            long start = System.nanoTime();
+            try {
+                return invocation.proceed();
+            } finally {
+                Method method = methods.computeIfAbsent(invocation.getMethod().getName(), Method::new);
+                long micros = TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - start);
+                method.latencyMicros.recordValue(micros);
+                method.latencyMicrosSum.add(micros);
+            }
+        });
+        return proxyFactory.getProxy(getClass().getClassLoader());
+    }
+
+    @Override
+    public void writeTo(PrometheusWriter writer) {
+        if (methods.isEmpty()) {
+            return;
+        }
+        writer.header("ships_service_call_seconds", "Time spent in a ShipService method.", "summary");
+        methods.values().forEach(method -> writer.summary("ships_service_call_seconds", method.labels,
+                method.latencyMicros, method.latencyMicrosSum.sum(), 1e-6));
+    }
+
+    // Overloads share a series, none of the ShipService overloads are on a hot path.
+    private static class Method {
+        private final String labels;
+        private final Histogram latencyMicros = new ConcurrentHistogram(2);
+        private final LongAdder latencyMicrosSum = new LongAdder();
+
+        private Method(String name) {
+            this.labels = PrometheusWriter.label("method", name);
+        }
+    }
+}
@@ -0,0 +1,130 @@
+package com.space.metrics;
+
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counts the SQL statements executed and the result set rows read through an instrumented DataSource,
+ * in total and for the scope opened on the current thread (a request, see MetricsInterceptor).
+ * A batch counts as one statement, since it is one round trip.
+ */
+public class SqlMetrics implements MetricsSource {
+
+    private final LongAdder statements = new LongAdder();
+    private final LongAdder rows = new LongAdder();
+    private final ThreadLocal<Counts> scope = new ThreadLocal<>();
+
+    public DataSource instrument(DataSource dataSource) {
+        return new DelegatingDataSource(dataSource) {
+            @Override
+            public Connection getConnection() throws SQLException {
+                return wrap(Connection.class, super.getConnection(), this::connectionCall);
+            }
+
+            @Override
+            public Connection getConnection(String username, String password) throws SQLException {
+                return wrap(Connection.class, super.getConnection(username, password), this::connectionCall);
+            }
+
+            private Object connectionCall(Object connection, Method method, Object[] args) throws Throwable {
+                Object result = invoke(connection, method, args);
+                if (result instanceof CallableStatement) {
+                    return wrap(CallableStatement.class, result, SqlMetrics.this::statementCall);
+                }
+                if (result instanceof PreparedStatement) {
+                    return wrap(PreparedStatement.class, result, SqlMetrics.this::statementCall);
+                }
+                if (result instanceof Statement) {
+                    return wrap(Statement.class, result, SqlMetrics.this::statementCall);
+                }
+                return result;
+            }
+        };
+    }
+
+    // Starts counting for the current thread; end() returns what was counted since.
+    public void begin() {
+        scope.set(new Counts());
+    }
+
+    public Counts end() {
+        Counts counts = scope.get();
+        scope.remove();
+        return counts == null ? new Counts() : counts;
+    }
+
+    @Override
+    public void writeTo(PrometheusWriter writer) {
+        writer.counter("ships_sql_statements_total", "SQL statements executed.", null, statements.sum());
+        writer.counter("ships_sql_rows_total", "Result set rows read.", null, rows.sum());
+    }
+
+    private Object statementCall(Object statement, Method method, Object[] args) throws Throwable {
+        String name = method.getName();
+        if (name.startsWith("execute")) {
+            statements.increment();
+            Counts counts = scope.get();
+            if (counts != null) {
+                counts.statements++;
+            }
+        }
+        Object result = invoke(statement, method, args);
+        if (result instanceof ResultSet && (name.equals("executeQuery") || name.equals("getResultSet"))) {
+            return wrap(ResultSet.class, result, this::resultSetCall);
+        }
+        return result;
+    }
+
+    private Object resultSetCall(Object resultSet, Method method, Object[] args) throws Throwable {
+        Object result = invoke(resultSet, method, args);
+        if (method.getName().equals("next") && Boolean.TRUE.equals(result)) {
+            rows.increment();
+            Counts counts = scope.get();
+            if (counts != null) {
+                counts.rows++;
+            }
+        }
+        return result;
+    }
+
+    private static <T> T wrap(Class<T> type, Object target, Call call) {
+        return type.cast(Proxy.newProxyInstance(SqlMetrics.class.getClassLoader(), new Class<?>[]{type},
+                (proxy, method, args) -> call.invoke(target, method, args)));
+    }
+
+    private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+
+    private interface Call {
+        Object invoke(Object target, Method method, Object[] args) throws Throwable;
+    }
+
+    public static class Counts {
+        private long statements;
+        private long rows;
+
+        public long getStatements() {
+            return statements;
+        }
+
+        public long getRows() {
+            return rows;
+        }
+    }
+}
@@ -0,0 +1,35 @@
+package com.space.model;
+
+public class BatchItemResult {
+    private int index;
+    private int status;
+    private Long id;
+    private String error;
+
+    public BatchItemResult(int index, int status, Long id, String error) {
+        this.index = index;
+        this.status = status;
+        this.id = id;
+        this.error = error;
+    }
+
+    public int getIndex() {
+        return index;
+    }
+
+    public int getStatus() {
+        return status;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public String getError() {
+        return error;
+    }
+}
@@ -0,0 +1,13 @@
+package com.space.model;
+
+public class BulkResult {
+    private int affected;
+
+    public BulkResult(int affected) {
+        this.affected = affected;
+    }
+
+    public int getAffected() {
+        return affected;
+    }
+}
@@ -0,0 +1,129 @@
+package com.space.model;
+
+import java.util.Map;
+
+/**
+ * Fleet aggregates returned by /rest/ships/stats. Summaries of an empty fleet have null fields.
+ */
+public class FleetStats {
+
+    private long count;
+    private Map<ShipType, Long> shipTypes;
+    private Map<String, Long> planets;
+    private long used;
+    private long unused;
+    private Summary speed;
+    private Summary rating;
+    private CrewSizeSummary crewSize;
+
+    public FleetStats(long count, Map<ShipType, Long> shipTypes, Map<String, Long> planets, long used, long unused,
+                      Summary speed, Summary rating, CrewSizeSummary crewSize) {
+        this.count = count;
+        this.shipTypes = shipTypes;
+        this.planets = planets;
+        this.used = used;
+        this.unused = unused;
+        this.speed = speed;
+        this.rating = rating;
+        this.crewSize = crewSize;
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public Map<ShipType, Long> getShipTypes() {
+        return shipTypes;
+    }
+
+    public Map<String, Long> getPlanets() {
+        return planets;
+    }
+
+    public long getUsed() {
+        return used;
+    }
+
+    public long getUnused() {
+        return unused;
+    }
+
+    public Summary getSpeed() {
+        return speed;
+    }
+
+    public Summary getRating() {
+        return rating;
+    }
+
+    public CrewSizeSummary getCrewSize() {
+        return crewSize;
+    }
+
+    public static class Summary {
+        private Double min;
+        private Double max;
+        private Double avg;
+
+        public Summary(Double min, Double max, Double avg) {
+            this.min = min;
+            this.max = max;
+            this.avg = avg;
+        }
+
+        public Double getMin() {
+            return min;
+        }
+
+        public Double getMax() {
+            return max;
+        }
+
+        public Double getAvg() {
+            return avg;
+        }
+    }
+
+    // Percentiles use the nearest-rank definition, so they are always an actual crew size.
+    public static class CrewSizeSummary {
+        private Integer min;
+        private Integer max;
+        private Double avg;
+        private Integer p50;
+        private Integer p90;
+        private Integer p99;
+
+        public CrewSizeSummary(Integer min, Integer max, Double avg, Integer p50, Integer p90, Integer p99) {
+            this.min = min;
+            this.max = max;
+            this.avg = avg;
+            this.p50 = p50;
+            this.p90 = p90;
+            this.p99 = p99;
+        }
+
+        public Integer getMin() {
+            return min;
+        }
+
+        public Integer getMax() {
+            return max;
+        }
+
+        public Double getAvg() {
+            return avg;
+        }
+
+        public Integer getP50() {
+            return p50;
+        }
+
+        public Integer getP90() {
+            return p90;
+        }
+
+        public Integer getP99() {
+            return p99;
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package com.space.model;
+
+/**
+ * State of the bulk re-rating job, as reported by /rest/admin/rerate.
+ */
+public class RerateStatus {
+
+    public enum State {
+        IDLE, RUNNING, DONE, FAILED
+    }
+
+    private State state;
+    private Integer referenceYear;
+    private long scanned;
+    private long updated;
+    private Long startedAt;
+    private Long finishedAt;
+    private String error;
+
+    public RerateStatus(State state, Integer referenceYear, long scanned, long updated,
+                        Long startedAt, Long finishedAt, String error) {
+        this.state = state;
+        this.referenceYear = referenceYear;
+        this.scanned = scanned;
+        this.updated = updated;
+        this.startedAt = startedAt;
+        this.finishedAt = finishedAt;
+        this.error = error;
+    }
+
+    public State getState() {
+        return state;
+    }
+
+    public Integer getReferenceYear() {
+        return referenceYear;
+    }
+
+    public long getScanned() {
+        return scanned;
+    }
+
+    public long getUpdated() {
+        return updated;
+    }
+
+    public Long getStartedAt() {
+        return startedAt;
+    }
+
+    public Long getFinishedAt() {
+        return finishedAt;
+    }
+
+    public String getError() {
+        return error;
+    }
+}
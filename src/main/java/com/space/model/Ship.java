@@ -1,13 +1,24 @@
 package com.space.model;
 
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.space.service.RatingCalculator;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+
 import javax.persistence.Entity;
 import javax.persistence.EnumType;
 import javax.persistence.Enumerated;
 import javax.persistence.*;
 import java.util.Date;
+import java.util.TimeZone;
+
 @Entity
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
 public class Ship {
+    private static final RatingCalculator PROD_YEARS = new RatingCalculator(TimeZone.getDefault());
+
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
@@ -22,6 +33,11 @@ public class Ship {
 
     private Date prodDate;
 
+    // Year of prodDate in the JVM's zone (0 without one), kept in step by the entity. The MySQL table is
+    // range-partitioned on it.
+    @JsonIgnore
+    private Integer prodYear;
+
     private Boolean isUsed;
 
     private Double speed;
@@ -68,6 +84,23 @@ public class Ship {
 
     public void setProdDate(Date prodDate) {
         this.prodDate = prodDate;
+        updateProdYear();
+    }
+
+    public Integer getProdYear() {
+        return prodYear;
+    }
+
+    // Ships bound from JSON have their fields set directly, so the year is also derived before every write.
+    @PrePersist
+    @PreUpdate
+    private void updateProdYear() {
+        prodYear = prodDate == null ? 0 : prodYearOf(prodDate.getTime());
+    }
+
+    // In the default zone, as the services' RatingCalculators compute it, without a Calendar per call.
+    public static int prodYearOf(long epochMillis) {
+        return PROD_YEARS.yearOf(epochMillis);
     }
 
     public Boolean getUsed() {
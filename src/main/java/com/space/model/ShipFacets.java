@@ -0,0 +1,39 @@
+package com.space.model;
+
+import java.util.Map;
+
+/**
+ * Facet counts returned by /rest/ships/facets. Each facet is counted with every filter except its own,
+ * so it shows what /rest/ships/count would return if only that filter were changed. Rating buckets are
+ * keyed by their lower bound, bucket k holds ratings in [k, k + 1).
+ */
+public class ShipFacets {
+
+    private long count;
+    private Map<ShipType, Long> shipType;
+    private Map<Boolean, Long> isUsed;
+    private Map<Integer, Long> rating;
+
+    public ShipFacets(long count, Map<ShipType, Long> shipType, Map<Boolean, Long> isUsed, Map<Integer, Long> rating) {
+        this.count = count;
+        this.shipType = shipType;
+        this.isUsed = isUsed;
+        this.rating = rating;
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public Map<ShipType, Long> getShipType() {
+        return shipType;
+    }
+
+    public Map<Boolean, Long> getIsUsed() {
+        return isUsed;
+    }
+
+    public Map<Integer, Long> getRating() {
+        return rating;
+    }
+}
@@ -0,0 +1,79 @@
+package com.space.model;
+
+import java.util.Date;
+
+/**
+ * Read-only copy of a ship row for the listing and export reads, built straight from the result set
+ * (JPQL constructor expression) so no entity is registered in the persistence context. Fields and getters
+ * mirror Ship, so both serialize to the same JSON.
+ */
+public final class ShipView {
+
+    public static final String JPQL_CONSTRUCTOR = "NEW com.space.model.ShipView(s.id, s.name, s.planet, s.shipType, " +
+            "s.prodDate, s.isUsed, s.speed, s.crewSize, s.rating)";
+
+    private final Long id;
+    private final String name;
+    private final String planet;
+    private final ShipType shipType;
+    private final Date prodDate;
+    private final Boolean isUsed;
+    private final Double speed;
+    private final Integer crewSize;
+    private final Double rating;
+
+    public ShipView(Long id, String name, String planet, ShipType shipType, Date prodDate,
+                    Boolean isUsed, Double speed, Integer crewSize, Double rating) {
+        this.id = id;
+        this.name = name;
+        this.planet = planet;
+        this.shipType = shipType;
+        this.prodDate = prodDate;
+        this.isUsed = isUsed;
+        this.speed = speed;
+        this.crewSize = crewSize;
+        this.rating = rating;
+    }
+
+    public static ShipView of(Ship ship) {
+        return new ShipView(ship.getId(), ship.getName(), ship.getPlanet(), ship.getShipType(), ship.getProdDate(),
+                ship.getUsed(), ship.getSpeed(), ship.getCrewSize(), ship.getRating());
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public String getPlanet() {
+        return planet;
+    }
+
+    public ShipType getShipType() {
+        return shipType;
+    }
+
+    // The Date is shared, not copied: views are only read and serialized.
+    public Date getProdDate() {
+        return prodDate;
+    }
+
+    public Boolean getUsed() {
+        return isUsed;
+    }
+
+    public Double getSpeed() {
+        return speed;
+    }
+
+    public Integer getCrewSize() {
+        return crewSize;
+    }
+
+    public Double getRating() {
+        return rating;
+    }
+}
@@ -0,0 +1,283 @@
+package com.space.repository;
+
+import com.space.metrics.MetricsSource;
+import com.space.metrics.PrometheusWriter;
+import com.space.model.Ship;
+import com.space.model.ShipView;
+import com.space.service.ShipFilter;
+import org.springframework.data.domain.Sort;
+
+import javax.persistence.Query;
+import java.util.Date;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * JPQL for the /rest/ships filters, rendered once per shape (the parameters present, see ShipFilter.getShape(),
+ * plus the trigram id lists) and order, with only the present filters in the WHERE clause. Requests then only
+ * bind values, and because the text of a shape never changes Hibernate's query plan cache parses it once too.
+ * The predicates are the same as the ShipService specifications.
+ * <p>
+ * The bulk UPDATE is also keyed by the fields it sets (SET_* bits, see patchShape()). When speed, prodDate or
+ * isUsed change the rating is recomputed in the same statement, with the arithmetic of RatingCalculator:
+ * the 0.5 for used ships is a division by 2 and Math.round(x) is FLOOR(x + 0.5), so both give the same double.
+ */
+public class FilterQueryCache implements MetricsSource {
+
+    public static final int NAME_CANDIDATES = 1 << 12;
+    public static final int PLANET_CANDIDATES = 1 << 13;
+
+    public static final int SET_NAME = 1;
+    public static final int SET_PLANET = 1 << 1;
+    public static final int SET_SHIP_TYPE = 1 << 2;
+    public static final int SET_PROD_DATE = 1 << 3;
+    public static final int SET_IS_USED = 1 << 4;
+    public static final int SET_SPEED = 1 << 5;
+    public static final int SET_CREW_SIZE = 1 << 6;
+    private static final int RATING_INPUTS = SET_PROD_DATE | SET_IS_USED | SET_SPEED;
+
+    private static final int SELECT = 0;
+    private static final int COUNT = 1;
+    private static final int UPDATE = 2;
+    private static final int DELETE = 3;
+
+    private final ConcurrentMap<Key, String> queries = new ConcurrentHashMap<>();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    public String select(int shape, Sort sort) {
+        return get(new Key(SELECT, shape, 0, sort));
+    }
+
+    public String count(int shape) {
+        return get(new Key(COUNT, shape, 0, Sort.unsorted()));
+    }
+
+    public String update(int shape, int fields) {
+        return get(new Key(UPDATE, shape, fields, Sort.unsorted()));
+    }
+
+    public String delete(int shape) {
+        return get(new Key(DELETE, shape, 0, Sort.unsorted()));
+    }
+
+    public static int patchShape(Ship patch) {
+        int fields = 0;
+        fields |= patch.getName() != null ? SET_NAME : 0;
+        fields |= patch.getPlanet() != null ? SET_PLANET : 0;
+        fields |= patch.getShipType() != null ? SET_SHIP_TYPE : 0;
+        fields |= patch.getProdDate() != null ? SET_PROD_DATE : 0;
+        fields |= patch.getUsed() != null ? SET_IS_USED : 0;
+        fields |= patch.getSpeed() != null ? SET_SPEED : 0;
+        fields |= patch.getCrewSize() != null ? SET_CREW_SIZE : 0;
+        return fields;
+    }
+
+    // prodYear is the year of patch.getProdDate(), as RatingCalculator.yearOf() computes it.
+    public static void bindPatch(Query query, Ship patch, Integer prodYear, int referenceYear) {
+        int fields = patchShape(patch);
+        if (patch.getName() != null) {
+            query.setParameter("newName", patch.getName());
+        }
+        if (patch.getPlanet() != null) {
+            query.setParameter("newPlanet", patch.getPlanet());
+        }
+        if (patch.getShipType() != null) {
+            query.setParameter("newShipType", patch.getShipType());
+        }
+        if (patch.getProdDate() != null) {
+            query.setParameter("newProdDate", patch.getProdDate());
+            query.setParameter("newProdYear", prodYear);
+        }
+        if (patch.getUsed() != null) {
+            query.setParameter("newIsUsed", patch.getUsed());
+            query.setParameter("newUsedDivisor", patch.getUsed() ? 2. : 1.);
+        }
+        if (patch.getSpeed() != null) {
+            query.setParameter("newSpeed", patch.getSpeed());
+        }
+        if (patch.getCrewSize() != null) {
+            query.setParameter("newCrewSize", patch.getCrewSize());
+        }
+        if ((fields & RATING_INPUTS) != 0) {
+            query.setParameter("referenceYear", referenceYear);
+        }
+    }
+
+    public static void bind(Query query, ShipFilter filter, List<Long> nameIds, List<Long> planetIds) {
+        if (filter.getName() != null) {
+            query.setParameter("name", "%" + filter.getName() + "%");
+        }
+        if (filter.getPlanet() != null) {
+            query.setParameter("planet", "%" + filter.getPlanet() + "%");
+        }
+        if (filter.getShipType() != null) {
+            query.setParameter("shipType", filter.getShipType());
+        }
+        if (filter.getAfter() != null) {
+            query.setParameter("after", new Date(filter.getAfter()));
+            query.setParameter("afterYear", Ship.prodYearOf(filter.getAfter()));
+        }
+        if (filter.getBefore() != null) {
+            query.setParameter("before", new Date(filter.getBefore()));
+            query.setParameter("beforeYear", Ship.prodYearOf(filter.getBefore()));
+        }
+        if (filter.getIsUsed() != null) {
+            query.setParameter("isUsed", filter.getIsUsed());
+        }
+        if (filter.getMinSpeed() != null) {
+            query.setParameter("minSpeed", filter.getMinSpeed());
+        }
+        if (filter.getMaxSpeed() != null) {
+            query.setParameter("maxSpeed", filter.getMaxSpeed());
+        }
+        if (filter.getMinCrewSize() != null) {
+            query.setParameter("minCrewSize", filter.getMinCrewSize());
+        }
+        if (filter.getMaxCrewSize() != null) {
+            query.setParameter("maxCrewSize", filter.getMaxCrewSize());
+        }
+        if (filter.getMinRating() != null) {
+            query.setParameter("minRating", filter.getMinRating());
+        }
+        if (filter.getMaxRating() != null) {
+            query.setParameter("maxRating", filter.getMaxRating());
+        }
+        if (nameIds != null) {
+            query.setParameter("nameIds", nameIds);
+        }
+        if (planetIds != null) {
+            query.setParameter("planetIds", planetIds);
+        }
+    }
+
+    @Override
+    public void writeTo(PrometheusWriter writer) {
+        writer.counter("ships_query_cache_hits_total", "Filter queries served from the compiled query cache.", null, hits.sum());
+        writer.counter("ships_query_cache_misses_total", "Filter queries that had to be compiled.", null, misses.sum());
+        writer.gauge("ships_query_cache_size", "Compiled filter queries in the cache.", null, queries.size());
+    }
+
+    private String get(Key key) {
+        String jpql = queries.get(key);
+        if (jpql != null) {
+            hits.increment();
+            return jpql;
+        }
+        misses.increment();
+        return queries.computeIfAbsent(key, FilterQueryCache::compile);
+    }
+
+    private static String compile(Key key) {
+        StringBuilder jpql = new StringBuilder();
+        switch (key.kind) {
+            case SELECT:
+                jpql.append("SELECT ").append(ShipView.JPQL_CONSTRUCTOR).append(" FROM Ship s");
+                break;
+            case COUNT:
+                jpql.append("SELECT COUNT(s) FROM Ship s");
+                break;
+            case UPDATE:
+                jpql.append("UPDATE Ship s");
+                set(jpql, key.fields);
+                break;
+            default:
+                jpql.append("DELETE FROM Ship s");
+        }
+        Where where = new Where(jpql, key.shape);
+        where.add(ShipFilter.NAME, "s.name LIKE :name");
+        where.add(ShipFilter.PLANET, "s.planet LIKE :planet");
+        where.add(ShipFilter.SHIP_TYPE, "s.shipType = :shipType");
+        // The prodYear bounds are implied by the prodDate ones; they let MySQL prune the year partitions.
+        where.add(ShipFilter.AFTER, "s.prodDate >= :after AND s.prodYear >= :afterYear");
+        where.add(ShipFilter.BEFORE, "s.prodDate <= :before AND s.prodYear <= :beforeYear");
+        where.add(ShipFilter.IS_USED, "s.isUsed = :isUsed");
+        where.add(ShipFilter.MIN_SPEED, "s.speed >= :minSpeed");
+        where.add(ShipFilter.MAX_SPEED, "s.speed <= :maxSpeed");
+        where.add(ShipFilter.MIN_CREW_SIZE, "s.crewSize >= :minCrewSize");
+        where.add(ShipFilter.MAX_CREW_SIZE, "s.crewSize <= :maxCrewSize");
+        where.add(ShipFilter.MIN_RATING, "s.rating >= :minRating");
+        where.add(ShipFilter.MAX_RATING, "s.rating <= :maxRating");
+        where.add(NAME_CANDIDATES, "s.id IN :nameIds");
+        where.add(PLANET_CANDIDATES, "s.id IN :planetIds");
+        String separator = " ORDER BY ";
+        for (Sort.Order order : key.sort) {
+            jpql.append(separator).append("s.").append(order.getProperty()).append(order.isAscending() ? " ASC" : " DESC");
+            separator = ", ";
+        }
+        return jpql.toString();
+    }
+
+    // The rating reads the new value of a field when it is set, so the order of the assignments doesn't matter.
+    private static void set(StringBuilder jpql, int fields) {
+        Where set = new Where(jpql, fields, " SET ", ", ");
+        set.add(SET_NAME, "s.name = :newName");
+        set.add(SET_PLANET, "s.planet = :newPlanet");
+        set.add(SET_SHIP_TYPE, "s.shipType = :newShipType");
+        set.add(SET_PROD_DATE, "s.prodDate = :newProdDate, s.prodYear = :newProdYear");
+        set.add(SET_IS_USED, "s.isUsed = :newIsUsed");
+        set.add(SET_SPEED, "s.speed = :newSpeed");
+        set.add(SET_CREW_SIZE, "s.crewSize = :newCrewSize");
+        // COALESCE types the parameter as the column: next to the literal 80, H2 would bind it as an integer.
+        String speed = (fields & SET_SPEED) != 0 ? "COALESCE(:newSpeed, s.speed)" : "s.speed";
+        String usedDivisor = (fields & SET_IS_USED) != 0 ? ":newUsedDivisor" : "CASE WHEN s.isUsed = true THEN 2 ELSE 1 END";
+        String prodYear = (fields & SET_PROD_DATE) != 0 ? ":newProdYear" : "s.prodYear";
+        set.add(RATING_INPUTS, "s.rating = FLOOR(80 * " + speed + " / " + usedDivisor
+                + " / (:referenceYear - " + prodYear + " + 1) * 100 + 0.5) / 100");
+    }
+
+    private static class Where {
+        private final StringBuilder jpql;
+        private final int shape;
+        private final String next;
+        private String separator;
+
+        private Where(StringBuilder jpql, int shape) {
+            this(jpql, shape, " WHERE ", " AND ");
+        }
+
+        private Where(StringBuilder jpql, int shape, String first, String next) {
+            this.jpql = jpql;
+            this.shape = shape;
+            this.separator = first;
+            this.next = next;
+        }
+
+        private void add(int parameter, String predicate) {
+            if ((shape & parameter) != 0) {
+                jpql.append(separator).append(predicate);
+                separator = next;
+            }
+        }
+    }
+
+    private static class Key {
+        private final int kind;
+        private final int shape;
+        private final int fields;
+        private final Sort sort;
+
+        private Key(int kind, int shape, int fields, Sort sort) {
+            this.kind = kind;
+            this.shape = shape;
+            this.fields = fields;
+            this.sort = sort;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+            Key key = (Key) o;
+            return kind == key.kind && shape == key.shape && fields == key.fields && sort.equals(key.sort);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(kind, shape, fields, sort);
+        }
+    }
+}
@@ -0,0 +1,23 @@
+package com.space.repository;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+
+/**
+ * Fetch size for the statements that walk a whole table (exports, index and statistics loads). MySQL Connector/J
+ * buffers the full result set whatever the fetch size, unless the URL sets useCursorFetch, and that also turns
+ * every other statement into a server-side prepared one. On MySQL these statements stream instead (fetch size
+ * Integer.MIN_VALUE): rows are read off the socket as the result set advances, with no server-side cursor, and the
+ * connection runs nothing else until the result set is closed. Other drivers get the configured fetch size.
+ */
+public final class ScanFetchSize {
+
+    private static final String MYSQL = "MySQL";
+
+    private ScanFetchSize() {
+    }
+
+    public static int of(Connection connection, int fetchSize) throws SQLException {
+        return MYSQL.equals(connection.getMetaData().getDatabaseProductName()) ? Integer.MIN_VALUE : fetchSize;
+    }
+}
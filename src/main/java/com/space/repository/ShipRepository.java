@@ -10,5 +10,5 @@ import java.awt.print.Pageable;
 import java.util.List;
 import java.util.Optional;
 
-public interface ShipRepository extends JpaRepository<Ship, Long>, JpaSpecificationExecutor<Ship> {
+public interface ShipRepository extends JpaRepository<Ship, Long>, JpaSpecificationExecutor<Ship>, ShipRepositoryCustom {
 }
\ No newline at end of file
@@ -0,0 +1,40 @@
+package com.space.repository;
+
+import com.space.model.Ship;
+import com.space.model.ShipView;
+import com.space.service.ShipFilter;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.util.List;
+import java.util.function.Consumer;
+
+public interface ShipRepositoryCustom {
+    void insertAll(List<Ship> ships);
+
+    List<ShipView> findSlice(Specification<Ship> specification, Sort sort, int limit);
+
+    // Must run inside a transaction.
+    void scan(Specification<Ship> specification, Sort sort, Consumer<ShipView> consumer);
+
+    // Whether LIKE and comparisons on the ship column ignore case, as its collation decides. Must run inside a
+    // transaction.
+    boolean isCaseInsensitive(String column);
+
+    // Same results as findAll/count with ShipFilter.toSpecification() narrowed to the id lists (when not null),
+    // through the JPQL compiled for the filter's shape by FilterQueryCache.
+    List<ShipView> findByFilter(ShipFilter filter, long[] nameIds, long[] planetIds, Pageable pageable);
+
+    long countByFilter(ShipFilter filter, long[] nameIds, long[] planetIds);
+
+    // One UPDATE/DELETE statement for every ship matching the filter, returning the number of rows changed.
+    // prodYear is the year of patch.getProdDate(); the rating is recomputed when speed, prodDate or isUsed are set.
+    int updateByFilter(ShipFilter filter, Ship patch, Integer prodYear, int referenceYear);
+
+    int deleteByFilter(ShipFilter filter);
+
+    // One row per (shipType, isUsed, floor(rating)) among the ships matching the specification:
+    // the three keys, the number of ships and the number of them that also match ratingSpecification.
+    List<Object[]> countFacetGroups(Specification<Ship> specification, Specification<Ship> ratingSpecification);
+}
@@ -0,0 +1,239 @@
+package com.space.repository;
+
+import com.space.model.Ship;
+import com.space.model.ShipView;
+import com.space.service.ShipFilter;
+import org.hibernate.ScrollMode;
+import org.hibernate.ScrollableResults;
+import org.hibernate.Session;
+import org.hibernate.query.Query;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import javax.persistence.TypedQuery;
+import javax.persistence.criteria.CriteriaBuilder;
+import javax.persistence.criteria.CriteriaQuery;
+import javax.persistence.criteria.Expression;
+import javax.persistence.criteria.Order;
+import javax.persistence.criteria.Predicate;
+import javax.persistence.criteria.Root;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+public class ShipRepositoryImpl implements ShipRepositoryCustom {
+
+    private static final String INSERT_SHIP = "INSERT INTO ship(name, planet, shipType, prodDate, isUsed, speed, crewSize, rating, prodYear) " +
+            "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Autowired
+    private FilterQueryCache filterQueryCache;
+
+    @Value("${hibernate.jdbc.batch_size:50}")
+    private int batchSize;
+
+    @Value("${ships.export.fetch-size:1000}")
+    private int exportFetchSize;
+
+    // Hibernate silently disables insert batching for IDENTITY ids, so the rows are
+    // batched with plain JDBC on the connection of the current JPA transaction.
+    @Override
+    @Transactional
+    public void insertAll(List<Ship> ships) {
+        entityManager.unwrap(Session.class).doWork(connection -> {
+            try (PreparedStatement statement = connection.prepareStatement(INSERT_SHIP, Statement.RETURN_GENERATED_KEYS)) {
+                for (int start = 0; start < ships.size(); start += batchSize) {
+                    int end = Math.min(start + batchSize, ships.size());
+                    for (int i = start; i < end; i++) {
+                        bind(statement, ships.get(i));
+                        statement.addBatch();
+                    }
+                    statement.executeBatch();
+                    try (ResultSet keys = statement.getGeneratedKeys()) {
+                        for (int i = start; i < end && keys.next(); i++) {
+                            ships.get(i).setId(keys.getLong(1));
+                        }
+                    }
+                }
+            }
+        });
+    }
+
+    // Unlike findAll(spec, pageable) this issues no count query and no OFFSET: the caller
+    // positions the slice through the specification (keyset pagination).
+    @Override
+    public List<ShipView> findSlice(Specification<Ship> specification, Sort sort, int limit) {
+        return entityManager.createQuery(criteriaQuery(specification, sort)).setMaxResults(limit).getResultList();
+    }
+
+    // A forward-only cursor over projections, so neither the JDBC driver nor the persistence
+    // context holds more than one fetch of rows at a time (see ScanFetchSize).
+    @Override
+    public void scan(Specification<Ship> specification, Sort sort, Consumer<ShipView> consumer) {
+        Session session = entityManager.unwrap(Session.class);
+        Query<?> query = entityManager.createQuery(criteriaQuery(specification, sort)).unwrap(Query.class);
+        query.setFetchSize(session.doReturningWork(connection -> ScanFetchSize.of(connection, exportFetchSize)));
+        try (ScrollableResults results = query.scroll(ScrollMode.FORWARD_ONLY)) {
+            while (results.next()) {
+                consumer.accept((ShipView) results.get(0));
+            }
+        }
+    }
+
+    // Connector/J reports case sensitivity from the column's collation (utf8mb4_0900_ai_ci and the other _ci ones
+    // ignore case). H2 always reports it as case sensitive, so its VARCHAR_IGNORECASE is told by the type name.
+    @Override
+    public boolean isCaseInsensitive(String column) {
+        return entityManager.unwrap(Session.class).doReturningWork(connection -> {
+            try (Statement statement = connection.createStatement();
+                 ResultSet resultSet = statement.executeQuery("SELECT " + column + " FROM ship WHERE 1 = 0")) {
+                ResultSetMetaData metaData = resultSet.getMetaData();
+                return !metaData.isCaseSensitive(1) || metaData.getColumnTypeName(1).endsWith("_IGNORECASE");
+            }
+        });
+    }
+
+    @Override
+    public List<ShipView> findByFilter(ShipFilter filter, long[] nameIds, long[] planetIds, Pageable pageable) {
+        if (isEmpty(nameIds) || isEmpty(planetIds)) {
+            return new ArrayList<>();
+        }
+        TypedQuery<ShipView> query = entityManager.createQuery(
+                filterQueryCache.select(shape(filter, nameIds, planetIds), pageable.getSort()), ShipView.class);
+        FilterQueryCache.bind(query, filter, toList(nameIds), toList(planetIds));
+        return query.setFirstResult((int) pageable.getOffset()).setMaxResults(pageable.getPageSize()).getResultList();
+    }
+
+    @Override
+    public long countByFilter(ShipFilter filter, long[] nameIds, long[] planetIds) {
+        if (isEmpty(nameIds) || isEmpty(planetIds)) {
+            return 0;
+        }
+        TypedQuery<Long> query = entityManager.createQuery(
+                filterQueryCache.count(shape(filter, nameIds, planetIds)), Long.class);
+        FilterQueryCache.bind(query, filter, toList(nameIds), toList(planetIds));
+        return query.getSingleResult();
+    }
+
+    @Override
+    public int updateByFilter(ShipFilter filter, Ship patch, Integer prodYear, int referenceYear) {
+        javax.persistence.Query query = entityManager.createQuery(filterQueryCache.update(filter.getShape(), FilterQueryCache.patchShape(patch)));
+        FilterQueryCache.bind(query, filter, null, null);
+        FilterQueryCache.bindPatch(query, patch, prodYear, referenceYear);
+        return query.executeUpdate();
+    }
+
+    @Override
+    public int deleteByFilter(ShipFilter filter) {
+        javax.persistence.Query query = entityManager.createQuery(filterQueryCache.delete(filter.getShape()));
+        FilterQueryCache.bind(query, filter, null, null);
+        return query.executeUpdate();
+    }
+
+    @Override
+    public List<Object[]> countFacetGroups(Specification<Ship> specification, Specification<Ship> ratingSpecification) {
+        CriteriaBuilder criteriaBuilder = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Object[]> query = criteriaBuilder.createQuery(Object[].class);
+        Root<Ship> root = query.from(Ship.class);
+        Predicate predicate = specification == null ? null : specification.toPredicate(root, query, criteriaBuilder);
+        if (predicate != null) {
+            query.where(predicate);
+        }
+        Expression<Integer> ratingBucket = criteriaBuilder.function("FLOOR", Integer.class, root.get("rating"));
+        Expression<Integer> ratingMatches = criteriaBuilder.<Integer>selectCase()
+                .when(ratingSpecification.toPredicate(root, query, criteriaBuilder), 1)
+                .otherwise(0);
+        query.multiselect(root.get("shipType"), root.get("isUsed"), ratingBucket,
+                criteriaBuilder.count(root), criteriaBuilder.sum(ratingMatches));
+        query.groupBy(root.get("shipType"), root.get("isUsed"), ratingBucket);
+        return entityManager.createQuery(query).getResultList();
+    }
+
+    private CriteriaQuery<ShipView> criteriaQuery(Specification<Ship> specification, Sort sort) {
+        CriteriaBuilder criteriaBuilder = entityManager.getCriteriaBuilder();
+        CriteriaQuery<ShipView> query = criteriaBuilder.createQuery(ShipView.class);
+        Root<Ship> root = query.from(Ship.class);
+        query.select(criteriaBuilder.construct(ShipView.class, root.get("id"), root.get("name"), root.get("planet"),
+                root.get("shipType"), root.get("prodDate"), root.get("isUsed"), root.get("speed"),
+                root.get("crewSize"), root.get("rating")));
+        Predicate predicate = specification == null ? null : specification.toPredicate(root, query, criteriaBuilder);
+        if (predicate != null) {
+            query.where(predicate);
+        }
+        List<Order> orders = new ArrayList<>();
+        for (Sort.Order order : sort) {
+            orders.add(order.isAscending()
+                    ? criteriaBuilder.asc(root.get(order.getProperty()))
+                    : criteriaBuilder.desc(root.get(order.getProperty())));
+        }
+        query.orderBy(orders);
+        return query;
+    }
+
+    private static int shape(ShipFilter filter, long[] nameIds, long[] planetIds) {
+        return filter.getShape()
+                | (nameIds != null ? FilterQueryCache.NAME_CANDIDATES : 0)
+                | (planetIds != null ? FilterQueryCache.PLANET_CANDIDATES : 0);
+    }
+
+    // An empty id list matches nothing, and IN () is not valid JPQL.
+    private static boolean isEmpty(long[] ids) {
+        return ids != null && ids.length == 0;
+    }
+
+    private static List<Long> toList(long[] ids) {
+        if (ids == null) {
+            return null;
+        }
+        List<Long> list = new ArrayList<>(ids.length);
+        for (long id : ids) {
+            list.add(id);
+        }
+        return list;
+    }
+
+    private static void bind(PreparedStatement statement, Ship ship) throws SQLException {
+        statement.setString(1, ship.getName());
+        statement.setString(2, ship.getPlanet());
+        statement.setString(3, ship.getShipType() == null ? null : ship.getShipType().name());
+        statement.setTimestamp(4, ship.getProdDate() == null ? null : new Timestamp(ship.getProdDate().getTime()));
+        if (ship.getUsed() == null) {
+            statement.setNull(5, Types.BIT);
+        } else {
+            statement.setBoolean(5, ship.getUsed());
+        }
+        if (ship.getSpeed() == null) {
+            statement.setNull(6, Types.DOUBLE);
+        } else {
+            statement.setDouble(6, ship.getSpeed());
+        }
+        if (ship.getCrewSize() == null) {
+            statement.setNull(7, Types.INTEGER);
+        } else {
+            statement.setInt(7, ship.getCrewSize());
+        }
+        if (ship.getRating() == null) {
+            statement.setNull(8, Types.DOUBLE);
+        } else {
+            statement.setDouble(8, ship.getRating());
+        }
+        // Ships read from JSON haven't been through the entity callbacks that set prodYear.
+        statement.setInt(9, ship.getProdDate() == null ? 0 : Ship.prodYearOf(ship.getProdDate().getTime()));
+    }
+}
@@ -0,0 +1,169 @@
+package com.space.service;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counts the filter shapes (which parameters are present, plus the order column) that reach
+ * GET /rest/ships and tells which index from db/migration would serve each of them.
+ */
+@Component
+public class FilterShapeRecorder {
+
+    private static final Logger log = LoggerFactory.getLogger(FilterShapeRecorder.class);
+
+    // Keep in sync with db/migration/V2__ship_filter_indexes.sql.
+    private static final Map<String, List<String>> INDEXES = new LinkedHashMap<>();
+
+    static {
+        INDEXES.put("idx_ship_type_used_rating", Arrays.asList("shipType", "isUsed", "rating"));
+        INDEXES.put("idx_ship_type_used_speed", Arrays.asList("shipType", "isUsed", "speed"));
+        INDEXES.put("idx_ship_type_used_prod_date", Arrays.asList("shipType", "isUsed", "prodDate"));
+        INDEXES.put("idx_ship_used_rating", Arrays.asList("isUsed", "rating"));
+        INDEXES.put("idx_ship_rating", Collections.singletonList("rating"));
+        INDEXES.put("idx_ship_speed", Collections.singletonList("speed"));
+        INDEXES.put("idx_ship_prod_date", Collections.singletonList("prodDate"));
+        INDEXES.put("idx_ship_crew_size", Collections.singletonList("crewSize"));
+    }
+
+    private final Map<String, ShapeStats> shapes = new ConcurrentHashMap<>();
+
+    public void record(int shape, String orderColumn) {
+        String key = ShipFilter.describeShape(shape) + "|" + orderColumn;
+        ShapeStats stats = shapes.get(key);
+        if (stats == null) {
+            ShapeStats created = new ShapeStats(shape, orderColumn);
+            stats = shapes.putIfAbsent(key, created);
+            if (stats == null) {
+                stats = created;
+                log.info("New /rest/ships filter shape [{}] ordered by {}: served by {}{}",
+                        ShipFilter.describeShape(shape), orderColumn,
+                        created.servedBy == null ? "no index (full scan)" : created.servedBy,
+                        created.suggestedIndex == null ? "" : ", suggested index " + created.suggestedIndex);
+            }
+        }
+        stats.count.increment();
+    }
+
+    public List<ShapeStats> getShapes() {
+        List<ShapeStats> result = new ArrayList<>(shapes.values());
+        result.sort(Comparator.comparingLong(ShapeStats::getCount).reversed());
+        return result;
+    }
+
+    public void reset() {
+        shapes.clear();
+    }
+
+    private static Set<String> equalityColumns(int shape) {
+        Set<String> columns = new LinkedHashSet<>();
+        if ((shape & ShipFilter.SHIP_TYPE) != 0) {
+            columns.add("shipType");
+        }
+        if ((shape & ShipFilter.IS_USED) != 0) {
+            columns.add("isUsed");
+        }
+        return columns;
+    }
+
+    private static Set<String> rangeColumns(int shape) {
+        Set<String> columns = new LinkedHashSet<>();
+        if ((shape & (ShipFilter.MIN_RATING | ShipFilter.MAX_RATING)) != 0) {
+            columns.add("rating");
+        }
+        if ((shape & (ShipFilter.MIN_SPEED | ShipFilter.MAX_SPEED)) != 0) {
+            columns.add("speed");
+        }
+        if ((shape & (ShipFilter.AFTER | ShipFilter.BEFORE)) != 0) {
+            columns.add("prodDate");
+        }
+        if ((shape & (ShipFilter.MIN_CREW_SIZE | ShipFilter.MAX_CREW_SIZE)) != 0) {
+            columns.add("crewSize");
+        }
+        return columns;
+    }
+
+    // A B-tree index serves its leading equality columns plus one following column used either
+    // as a range predicate or as the ORDER BY column. The index with the longest usable prefix wins.
+    private static String bestIndex(Set<String> equality, Set<String> range, String orderColumn) {
+        String best = null;
+        int bestScore = 0;
+        for (Map.Entry<String, List<String>> index : INDEXES.entrySet()) {
+            int score = 0;
+            for (String column : index.getValue()) {
+                if (equality.contains(column)) {
+                    score++;
+                    continue;
+                }
+                if (range.contains(column) || column.equals(orderColumn)) {
+                    score++;
+                }
+                break;
+            }
+            if (score > bestScore) {
+                best = index.getKey();
+                bestScore = score;
+            }
+        }
+        return best;
+    }
+
+    private static String suggestIndex(Set<String> equality, Set<String> range, String orderColumn, String servedBy) {
+        List<String> columns = new ArrayList<>(equality);
+        if (!range.isEmpty()) {
+            columns.add(range.iterator().next());
+        } else if (!"id".equals(orderColumn)) {
+            columns.add(orderColumn);
+        }
+        if (columns.isEmpty() || (servedBy != null && INDEXES.get(servedBy).containsAll(columns))) {
+            return null;
+        }
+        return "(" + String.join(", ", columns) + ")";
+    }
+
+    public static class ShapeStats {
+        private final String parameters;
+        private final String order;
+        private final String servedBy;
+        private final String suggestedIndex;
+        @JsonIgnore
+        private final LongAdder count = new LongAdder();
+
+        private ShapeStats(int shape, String orderColumn) {
+            Set<String> equality = equalityColumns(shape);
+            Set<String> range = rangeColumns(shape);
+            this.parameters = ShipFilter.describeShape(shape);
+            this.order = orderColumn;
+            this.servedBy = bestIndex(equality, range, orderColumn);
+            this.suggestedIndex = suggestIndex(equality, range, orderColumn, servedBy);
+        }
+
+        public String getParameters() {
+            return parameters;
+        }
+
+        public String getOrder() {
+            return order;
+        }
+
+        public String getServedBy() {
+            return servedBy;
+        }
+
+        public String getSuggestedIndex() {
+            return suggestedIndex;
+        }
+
+        @JsonProperty("count")
+        public long getCount() {
+            return count.sum();
+        }
+    }
+}
@@ -0,0 +1,45 @@
+package com.space.service;
+
+import com.space.model.Ship;
+import org.springframework.stereotype.Component;
+
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Counter bumped after every committed change to the ship table. Together with a random epoch chosen
+ * at startup it names the current state of the fleet, e.g. for ETags. Writes that don't go through this
+ * instance's ShipService (other instances, manual SQL) are not seen.
+ */
+@Component
+public class FleetVersion implements ShipChangeListener {
+
+    private final String epoch = UUID.randomUUID().toString().substring(0, 8);
+    private final AtomicLong version = new AtomicLong();
+
+    // Read before running a query: a change that commits while the query runs bumps the version
+    // past the one returned here, so the result is never labelled newer than it is.
+    public String current() {
+        return epoch + "-" + version.get();
+    }
+
+    // For changes reads show before they commit, see UpdateCoalescer.
+    public void advance() {
+        version.incrementAndGet();
+    }
+
+    @Override
+    public void shipSaved(Ship previous, Ship current) {
+        version.incrementAndGet();
+    }
+
+    @Override
+    public void shipDeleted(Ship previous) {
+        version.incrementAndGet();
+    }
+
+    @Override
+    public void shipsChanged() {
+        version.incrementAndGet();
+    }
+}
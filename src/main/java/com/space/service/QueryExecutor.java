@@ -0,0 +1,97 @@
+package com.space.service;
+
+import com.space.metrics.MetricsSource;
+import com.space.metrics.PrometheusWriter;
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Bounded pool the /rest/async endpoints run their queries on, so slow queries queue up here
+ * instead of holding servlet container threads. A full queue rejects the task right away.
+ */
+@Component
+public class QueryExecutor implements MetricsSource, InitializingBean, DisposableBean {
+
+    @Value("${ships.async.pool-size:16}")
+    private int poolSize;
+
+    @Value("${ships.async.queue-capacity:100}")
+    private int queueCapacity;
+
+    private ThreadPoolExecutor executor;
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder timeouts = new LongAdder();
+    private final Histogram queueWaitMicros = new ConcurrentHistogram(2);
+    private final LongAdder queueWaitMicrosSum = new LongAdder();
+
+    @Override
+    public void afterPropertiesSet() {
+        AtomicInteger threads = new AtomicInteger();
+        executor = new ThreadPoolExecutor(poolSize, poolSize, 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), task -> {
+            Thread thread = new Thread(task, "ship-query-" + threads.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }, new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    @Override
+    public void destroy() {
+        executor.shutdownNow();
+    }
+
+    // Throws RejectedExecutionException when every thread is busy and the queue is full. The task sees the
+    // submitting request's attributes, so its queries are routed as the request's own (ReadConsistency).
+    public <T> CompletableFuture<T> submit(Supplier<T> task) {
+        long enqueuedAt = System.nanoTime();
+        RequestAttributes requestAttributes = RequestContextHolder.getRequestAttributes();
+        try {
+            return CompletableFuture.supplyAsync(() -> {
+                long micros = TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - enqueuedAt);
+                queueWaitMicros.recordValue(micros);
+                queueWaitMicrosSum.add(micros);
+                RequestContextHolder.setRequestAttributes(requestAttributes);
+                try {
+                    return task.get();
+                } finally {
+                    RequestContextHolder.resetRequestAttributes();
+                }
+            }, executor);
+        } catch (RejectedExecutionException e) {
+            rejected.increment();
+            throw e;
+        }
+    }
+
+    public void recordTimeout() {
+        timeouts.increment();
+    }
+
+    @Override
+    public void writeTo(PrometheusWriter writer) {
+        writer.gauge("ships_async_queue_depth", "Queries waiting for a thread.", null, executor.getQueue().size());
+        writer.gauge("ships_async_queue_capacity", "Queries that can wait before new ones are rejected.", null, queueCapacity);
+        writer.gauge("ships_async_threads_active", "Threads currently running a query.", null, executor.getActiveCount());
+        writer.gauge("ships_async_threads_max", "Size of the query pool.", null, executor.getMaximumPoolSize());
+        writer.counter("ships_async_completed_total", "Queries run to completion.", null, executor.getCompletedTaskCount());
+        writer.counter("ships_async_rejected_total", "Queries rejected because the queue was full.", null, rejected.sum());
+        writer.counter("ships_async_timeouts_total", "Requests answered with 503 because the query took too long.", null, timeouts.sum());
+        writer.header("ships_async_queue_wait_seconds", "Time a query spent in the queue before it started.", "summary");
+        writer.summary("ships_async_queue_wait_seconds", null, queueWaitMicros, queueWaitMicrosSum.sum(), 1e-6);
+    }
+}
@@ -0,0 +1,49 @@
+package com.space.service;
+
+import java.util.Arrays;
+import java.util.Calendar;
+import java.util.GregorianCalendar;
+import java.util.TimeZone;
+
+/**
+ * rating = 80 * speed * k / (referenceYear - prodYear + 1), k = 0.5 for used ships, rounded to two decimals.
+ * The production year is looked up in a table of local year starts, so no Calendar is allocated per ship.
+ */
+public final class RatingCalculator {
+
+    public static final int DEFAULT_REFERENCE_YEAR = 3019;
+
+    private static final int FIRST_YEAR = 1900;
+    private static final int LAST_YEAR = 3100;
+
+    private final TimeZone zone;
+    // yearStarts[i] is the first millisecond of FIRST_YEAR + i in the zone
+    private final long[] yearStarts;
+
+    public RatingCalculator(TimeZone zone) {
+        this.zone = (TimeZone) zone.clone();
+        this.yearStarts = new long[LAST_YEAR - FIRST_YEAR + 2];
+        GregorianCalendar calendar = new GregorianCalendar(this.zone);
+        calendar.clear();
+        for (int i = 0; i < yearStarts.length; i++) {
+            calendar.set(FIRST_YEAR + i, Calendar.JANUARY, 1, 0, 0, 0);
+            yearStarts[i] = calendar.getTimeInMillis();
+        }
+    }
+
+    public int yearOf(long epochMillis) {
+        if (epochMillis < yearStarts[0] || epochMillis >= yearStarts[yearStarts.length - 1]) {
+            GregorianCalendar calendar = new GregorianCalendar(zone);
+            calendar.setTimeInMillis(epochMillis);
+            return calendar.get(Calendar.YEAR);
+        }
+        int position = Arrays.binarySearch(yearStarts, epochMillis);
+        return FIRST_YEAR + (position >= 0 ? position : -position - 2);
+    }
+
+    public double rating(long prodDateMillis, boolean used, double speed, int referenceYear) {
+        double k = used ? 0.5 : 1;
+        double rating = 80 * speed * k / (referenceYear - yearOf(prodDateMillis) + 1);
+        return Math.round(rating * 100) / 100.0;
+    }
+}
@@ -0,0 +1,103 @@
+package com.space.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import javax.servlet.http.HttpServletRequest;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Which reads may be served by a lagging replica (see config.ReplicaRoutingDataSource), and which must go to the
+ * primary: those of a client that wrote within datasource.replica.sticky-ms (read your own writes), those run
+ * through onPrimary, and those of a request pinned with pinToPrimary.
+ * <p>
+ * A client is its X-Api-Key, or else its address together with the first X-Forwarded-For hop and its User-Agent,
+ * so clients behind one NAT or proxy only share stickiness when they also run the same agent. The key only
+ * decides where the client's own reads go, so it is taken as given.
+ */
+@Component
+public class ReadConsistency {
+
+    public static final String API_KEY_HEADER = "X-Api-Key";
+
+    private static final int MAX_STICKY_CLIENTS = 10000;
+    private static final String PRIMARY_READS_ATTRIBUTE = ReadConsistency.class.getName() + ".primaryReads";
+
+    @Value("${datasource.replica.sticky-ms:5000}")
+    private long stickyMillis = 5000;
+
+    private final Map<String, Long> lastWrites = new ConcurrentHashMap<>();
+    private final ThreadLocal<Boolean> primaryOnly = new ThreadLocal<>();
+
+    public static String client(HttpServletRequest request) {
+        String apiKey = request.getHeader(API_KEY_HEADER);
+        if (apiKey != null && !apiKey.isEmpty()) {
+            return "key:" + apiKey;
+        }
+        String forwardedFor = request.getHeader("X-Forwarded-For");
+        String firstHop = forwardedFor == null ? "" : forwardedFor.split(",", 2)[0].trim();
+        String userAgent = request.getHeader("User-Agent");
+        return "addr:" + request.getRemoteAddr() + "/" + firstHop + "/" + (userAgent == null ? "" : userAgent);
+    }
+
+    // The client of the request the current thread serves (the /rest/async pool runs with the request's
+    // attributes, see QueryExecutor), or null on other threads.
+    public static String currentClient() {
+        HttpServletRequest request = currentRequest();
+        return request == null ? null : client(request);
+    }
+
+    public static HttpServletRequest currentRequest() {
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        return attributes instanceof ServletRequestAttributes ? ((ServletRequestAttributes) attributes).getRequest() : null;
+    }
+
+    // Called once a client's write has committed.
+    public void recordWrite(String client) {
+        long now = System.currentTimeMillis();
+        if (lastWrites.size() >= MAX_STICKY_CLIENTS) {
+            lastWrites.values().removeIf(lastWrite -> now - lastWrite >= stickyMillis);
+        }
+        lastWrites.put(client, now);
+    }
+
+    public boolean isSticky(String client) {
+        if (client == null) {
+            return false;
+        }
+        Long lastWrite = lastWrites.get(client);
+        return lastWrite != null && System.currentTimeMillis() - lastWrite < stickyMillis;
+    }
+
+    // Runs the work with every connection it opens routed to the primary. A transaction it joins keeps the
+    // connection it already has, so the work should start its own.
+    public <T> T onPrimary(Supplier<T> work) {
+        Boolean outer = primaryOnly.get();
+        primaryOnly.set(Boolean.TRUE);
+        try {
+            return work.get();
+        } finally {
+            if (outer == null) {
+                primaryOnly.remove();
+            }
+        }
+    }
+
+    // Sends the rest of the request's reads to the primary.
+    public void pinToPrimary(HttpServletRequest request) {
+        request.setAttribute(PRIMARY_READS_ATTRIBUTE, Boolean.TRUE);
+    }
+
+    public boolean isPinnedToPrimary() {
+        if (primaryOnly.get() != null) {
+            return true;
+        }
+        HttpServletRequest request = currentRequest();
+        return request != null && request.getAttribute(PRIMARY_READS_ATTRIBUTE) != null;
+    }
+}
@@ -0,0 +1,25 @@
+package com.space.service;
+
+import com.space.model.Ship;
+
+/**
+ * Notified by ShipServiceImpl after a write has been committed, so in-memory views of the ship table stay in sync.
+ */
+public interface ShipChangeListener {
+
+    // previous is null for a newly created ship
+    void shipSaved(Ship previous, Ship current);
+
+    void shipDeleted(Ship previous);
+
+    // The table changed in a way that isn't described ship by ship (bulk statements, external scripts).
+    void shipsChanged();
+
+    // Bracket every write on the writer's thread: the write's notification, if it commits, comes in between.
+    // For listeners that need to know whether a table read of theirs could have raced with a commit.
+    default void writeStarting() {
+    }
+
+    default void writeFinished() {
+    }
+}
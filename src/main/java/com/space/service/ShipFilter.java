@@ -0,0 +1,204 @@
+package com.space.service;
+
+import com.space.model.Ship;
+import com.space.model.ShipType;
+import org.springframework.data.jpa.domain.Specification;
+
+/**
+ * The twelve optional /rest/ships filter parameters. Bound from the query string by Spring MVC.
+ */
+public class ShipFilter {
+
+    public static final int NAME = 1;
+    public static final int PLANET = 1 << 1;
+    public static final int SHIP_TYPE = 1 << 2;
+    public static final int AFTER = 1 << 3;
+    public static final int BEFORE = 1 << 4;
+    public static final int IS_USED = 1 << 5;
+    public static final int MIN_SPEED = 1 << 6;
+    public static final int MAX_SPEED = 1 << 7;
+    public static final int MIN_CREW_SIZE = 1 << 8;
+    public static final int MAX_CREW_SIZE = 1 << 9;
+    public static final int MIN_RATING = 1 << 10;
+    public static final int MAX_RATING = 1 << 11;
+
+    private static final String[] PARAMETER_NAMES = {"name", "planet", "shipType", "after", "before", "isUsed",
+            "minSpeed", "maxSpeed", "minCrewSize", "maxCrewSize", "minRating", "maxRating"};
+
+    private String name;
+    private String planet;
+    private ShipType shipType;
+    private Long after;
+    private Long before;
+    private Boolean isUsed;
+    private Double minSpeed;
+    private Double maxSpeed;
+    private Integer minCrewSize;
+    private Integer maxCrewSize;
+    private Double minRating;
+    private Double maxRating;
+
+    public ShipFilter() {
+    }
+
+    public ShipFilter(String name,
+                      String planet,
+                      ShipType shipType,
+                      Long after,
+                      Long before,
+                      Boolean isUsed,
+                      Double minSpeed,
+                      Double maxSpeed,
+                      Integer minCrewSize,
+                      Integer maxCrewSize,
+                      Double minRating,
+                      Double maxRating) {
+        this.name = name;
+        this.planet = planet;
+        this.shipType = shipType;
+        this.after = after;
+        this.before = before;
+        this.isUsed = isUsed;
+        this.minSpeed = minSpeed;
+        this.maxSpeed = maxSpeed;
+        this.minCrewSize = minCrewSize;
+        this.maxCrewSize = maxCrewSize;
+        this.minRating = minRating;
+        this.maxRating = maxRating;
+    }
+
+    // Bit mask of the parameters that are present, see the constants above.
+    public int getShape() {
+        int shape = 0;
+        shape |= name != null ? NAME : 0;
+        shape |= planet != null ? PLANET : 0;
+        shape |= shipType != null ? SHIP_TYPE : 0;
+        shape |= after != null ? AFTER : 0;
+        shape |= before != null ? BEFORE : 0;
+        shape |= isUsed != null ? IS_USED : 0;
+        shape |= minSpeed != null ? MIN_SPEED : 0;
+        shape |= maxSpeed != null ? MAX_SPEED : 0;
+        shape |= minCrewSize != null ? MIN_CREW_SIZE : 0;
+        shape |= maxCrewSize != null ? MAX_CREW_SIZE : 0;
+        shape |= minRating != null ? MIN_RATING : 0;
+        shape |= maxRating != null ? MAX_RATING : 0;
+        return shape;
+    }
+
+    public static String describeShape(int shape) {
+        StringBuilder description = new StringBuilder();
+        for (int i = 0; i < PARAMETER_NAMES.length; i++) {
+            if ((shape & (1 << i)) != 0) {
+                description.append(description.length() == 0 ? "" : ",").append(PARAMETER_NAMES[i]);
+            }
+        }
+        return description.toString();
+    }
+
+    public Specification<Ship> toSpecification() {
+        return Specification.where(ShipService.getShipsByNameSpec(name).
+                and(Specification.where(ShipService.getShipsByPlanetSpec(planet)))).
+                and(Specification.where(ShipService.getShipsByTypeSpec(shipType))).
+                and(Specification.where(ShipService.getShipsByProdDateSpec(before, after))).
+                and(Specification.where(ShipService.getShipsByIsUsedSpec(isUsed))).
+                and(Specification.where(ShipService.getShipsBySpeedSpec(minSpeed, maxSpeed))).
+                and(Specification.where(ShipService.getShipsByCrewSizeSpec(minCrewSize, maxCrewSize))).
+                and(Specification.where(ShipService.getShipsByRatingSpec(minRating, maxRating)));
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    public String getPlanet() {
+        return planet;
+    }
+
+    public void setPlanet(String planet) {
+        this.planet = planet;
+    }
+
+    public ShipType getShipType() {
+        return shipType;
+    }
+
+    public void setShipType(ShipType shipType) {
+        this.shipType = shipType;
+    }
+
+    public Long getAfter() {
+        return after;
+    }
+
+    public void setAfter(Long after) {
+        this.after = after;
+    }
+
+    public Long getBefore() {
+        return before;
+    }
+
+    public void setBefore(Long before) {
+        this.before = before;
+    }
+
+    public Boolean getIsUsed() {
+        return isUsed;
+    }
+
+    public void setIsUsed(Boolean isUsed) {
+        this.isUsed = isUsed;
+    }
+
+    public Double getMinSpeed() {
+        return minSpeed;
+    }
+
+    public void setMinSpeed(Double minSpeed) {
+        this.minSpeed = minSpeed;
+    }
+
+    public Double getMaxSpeed() {
+        return maxSpeed;
+    }
+
+    public void setMaxSpeed(Double maxSpeed) {
+        this.maxSpeed = maxSpeed;
+    }
+
+    public Integer getMinCrewSize() {
+        return minCrewSize;
+    }
+
+    public void setMinCrewSize(Integer minCrewSize) {
+        this.minCrewSize = minCrewSize;
+    }
+
+    public Integer getMaxCrewSize() {
+        return maxCrewSize;
+    }
+
+    public void setMaxCrewSize(Integer maxCrewSize) {
+        this.maxCrewSize = maxCrewSize;
+    }
+
+    public Double getMinRating() {
+        return minRating;
+    }
+
+    public void setMinRating(Double minRating) {
+        this.minRating = minRating;
+    }
+
+    public Double getMaxRating() {
+        return maxRating;
+    }
+
+    public void setMaxRating(Double maxRating) {
+        this.maxRating = maxRating;
+    }
+}
@@ -1,21 +1,31 @@
 package com.space.service;
 
+import com.space.model.BatchItemResult;
+import com.space.model.FleetStats;
 import com.space.model.Ship;
+import com.space.model.ShipFacets;
 import com.space.model.ShipType;
+import com.space.model.ShipView;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
 import org.springframework.data.jpa.domain.Specification;
 import org.springframework.web.bind.annotation.RequestParam;
 
 import javax.persistence.criteria.CriteriaBuilder;
 import javax.persistence.criteria.CriteriaQuery;
+import javax.persistence.criteria.Path;
 import javax.persistence.criteria.Predicate;
 import javax.persistence.criteria.Root;
 import java.util.Date;
 import java.util.List;
+import java.util.function.Consumer;
 
 public interface ShipService {
+    // The filter's predicates, narrowed by the trigram index where the name or planet term allows it.
+    Specification<Ship> getSpecification(ShipFilter filter);
+
     List<Ship> getAll(Specification<Ship> shipSpecification, Pageable pageable);
-    List<Ship> getAllWithStreams(String name,
+    List<ShipView> getAllWithStreams(String name,
                                 String planet,
                                 ShipType shipType,
                                 Long after,
@@ -28,7 +38,7 @@ public interface ShipService {
                                 Double minRating,
                                 Double maxRating,
                                 Pageable page);
-    List<Ship> getAllWithCycles(String name,
+    List<ShipView> getAllWithCycles(String name,
                                 String planet,
                                 ShipType shipType,
                                 Long after,
@@ -42,7 +52,16 @@ public interface ShipService {
                                 Double maxRating,
                                 Pageable page);
 
+    // Same result as getAll(getSpecification(filter), pageable), through the query compiled for the filter's shape.
+    List<ShipView> getAllWithCompiledQuery(ShipFilter filter, Pageable pageable);
+
+    List<ShipView> getSlice(Specification<Ship> shipSpecification, Sort sort, int limit);
+
+    // Streams every matching ship to the consumer in a read-only transaction.
+    void exportShips(Specification<Ship> shipSpecification, Sort sort, Consumer<ShipView> consumer);
+
     Integer countShips(Specification<Ship> shipSpecification);
+    Integer countShipsWithCompiledQuery(ShipFilter filter);
     Integer countShipsWithStreams(String name,
                                   String planet,
                                   ShipType shipType,
@@ -67,10 +86,26 @@ public interface ShipService {
                                  Integer maxCrewSize,
                                  Double minRating,
                                  Double maxRating);
+    // Counts per shipType, isUsed and rating bucket, each with every other filter applied.
+    ShipFacets getFacets(ShipFilter filter);
+    ShipFacets getFacetsWithCycles(ShipFilter filter);
+    // Aggregates over the whole fleet, see FleetStatistics.
+    FleetStats getStats();
+    // Year the ratings are computed against, see RatingCalculator. A year that is set is stored and kept
+    // across restarts.
+    int getRatingReferenceYear();
+    void setRatingReferenceYear(int referenceYear);
+
     Ship createShip(Ship ship);
+    List<BatchItemResult> createShips(List<Ship> ships);
+    // The point operations return null/false for an unknown id.
     Ship updateShip(Long id, Ship ship);
     Ship getShip(Long id);
-    void deleteShip(Long id);
+    boolean deleteShip(Long id);
+    // PATCH/DELETE /rest/ships: one statement for every ship matching the filter, returning the number of ships
+    // changed. The patch sets its non-null fields, as updateShip does.
+    int updateShips(ShipFilter filter, Ship patch);
+    int deleteShips(ShipFilter filter);
     boolean isIdValid (Long id);
     boolean isIdExists (Long id);
     String validateCreateShip (Ship ship);
@@ -134,12 +169,19 @@ public interface ShipService {
         return new Specification<Ship>() {
             @Override
             public Predicate toPredicate(Root<Ship> root, CriteriaQuery<?> criteriaQuery, CriteriaBuilder criteriaBuilder) {
+                // The prodYear bounds are implied by the prodDate ones; they let MySQL prune the year partitions.
                 if (before != null && after != null) {
-                    return criteriaBuilder.between(root.get("prodDate"), new Date(after), new Date(before));
+                    return criteriaBuilder.and(
+                            criteriaBuilder.between(root.get("prodDate"), new Date(after), new Date(before)),
+                            criteriaBuilder.between(root.get("prodYear"), Ship.prodYearOf(after), Ship.prodYearOf(before)));
                 } else if (after != null ) {
-                    return criteriaBuilder.greaterThanOrEqualTo(root.get("prodDate"), new Date(after));
+                    return criteriaBuilder.and(
+                            criteriaBuilder.greaterThanOrEqualTo(root.get("prodDate"), new Date(after)),
+                            criteriaBuilder.greaterThanOrEqualTo(root.get("prodYear"), Ship.prodYearOf(after)));
                 } else if (before != null) {
-                    return criteriaBuilder.lessThanOrEqualTo(root.get("prodDate"), new Date(before));
+                    return criteriaBuilder.and(
+                            criteriaBuilder.lessThanOrEqualTo(root.get("prodDate"), new Date(before)),
+                            criteriaBuilder.lessThanOrEqualTo(root.get("prodYear"), Ship.prodYearOf(before)));
 
                 } else {
                     return criteriaBuilder.conjunction();
@@ -201,4 +243,41 @@ public interface ShipService {
         };
     }
 
+    static Specification<Ship> getShipsByIdInSpec(long[] ids) {
+        return new Specification<Ship>() {
+            @Override
+            public Predicate toPredicate(Root<Ship> root, CriteriaQuery<?> criteriaQuery, CriteriaBuilder criteriaBuilder) {
+                if (ids.length == 0) {
+                    return criteriaBuilder.disjunction();
+                }
+                CriteriaBuilder.In<Long> in = criteriaBuilder.in(root.get("id"));
+                for (long id : ids) {
+                    in.value(id);
+                }
+                return in;
+            }
+        };
+    }
+
+    static <T extends Comparable<? super T>> Specification<Ship> getShipsAfterSpec(String field, T value, Long id) {
+        return new Specification<Ship>() {
+            @Override
+            public Predicate toPredicate(Root<Ship> root, CriteriaQuery<?> criteriaQuery, CriteriaBuilder criteriaBuilder) {
+                Path<Long> idPath = root.get("id");
+                if ("id".equals(field)) {
+                    return criteriaBuilder.greaterThan(idPath, id);
+                }
+                Path<T> fieldPath = root.get(field);
+                if (value == null) {
+                    return criteriaBuilder.or(
+                            criteriaBuilder.and(criteriaBuilder.isNull(fieldPath), criteriaBuilder.greaterThan(idPath, id)),
+                            criteriaBuilder.isNotNull(fieldPath));
+                }
+                return criteriaBuilder.or(
+                        criteriaBuilder.greaterThan(fieldPath, value),
+                        criteriaBuilder.and(criteriaBuilder.equal(fieldPath, value), criteriaBuilder.greaterThan(idPath, id)));
+            }
+        };
+    }
+
 }
@@ -0,0 +1,57 @@
+package com.space.service.impl;
+
+import com.space.model.ShipFacets;
+import com.space.model.ShipType;
+
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Folds groups of ships that already pass the non-facet filters into ShipFacets. A group is counted
+ * in a facet when it passes the other two facet filters, and in the total when it passes all three.
+ */
+class FacetCounter {
+
+    private final ShipType shipTypeFilter;
+    private final Boolean isUsedFilter;
+
+    private long count;
+    private final Map<ShipType, Long> shipTypes = new EnumMap<>(ShipType.class);
+    private final Map<Boolean, Long> isUsed = new LinkedHashMap<>();
+    private final Map<Integer, Long> ratings = new TreeMap<>();
+
+    FacetCounter(ShipType shipTypeFilter, Boolean isUsedFilter) {
+        this.shipTypeFilter = shipTypeFilter;
+        this.isUsedFilter = isUsedFilter;
+        for (ShipType shipType : ShipType.values()) {
+            shipTypes.put(shipType, 0L);
+        }
+        isUsed.put(true, 0L);
+        isUsed.put(false, 0L);
+    }
+
+    // ships: all ships of the group; ratingMatches: those of them within the rating filter.
+    void add(ShipType shipType, Boolean used, Integer ratingBucket, long ships, long ratingMatches) {
+        // As in SQL, a NULL column never passes a filter on it.
+        boolean shipTypeMatches = shipTypeFilter == null || shipTypeFilter == shipType;
+        boolean isUsedMatches = isUsedFilter == null || isUsedFilter.equals(used);
+        if (isUsedMatches && shipType != null) {
+            shipTypes.merge(shipType, ratingMatches, Long::sum);
+        }
+        if (shipTypeMatches && used != null) {
+            isUsed.merge(used, ratingMatches, Long::sum);
+        }
+        if (shipTypeMatches && isUsedMatches) {
+            count += ratingMatches;
+            if (ratingBucket != null && ships > 0) {
+                ratings.merge(ratingBucket, ships, Long::sum);
+            }
+        }
+    }
+
+    ShipFacets toFacets() {
+        return new ShipFacets(count, shipTypes, isUsed, ratings);
+    }
+}
@@ -0,0 +1,685 @@
+package com.space.service.impl;
+
+import com.space.model.Ship;
+import com.space.model.ShipFacets;
+import com.space.model.ShipType;
+import com.space.model.ShipView;
+import com.space.repository.ShipRepository;
+import com.space.service.ReadConsistency;
+import com.space.service.ShipChangeListener;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.*;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * In-memory copy of the ship table kept as primitive columns, so the twelve
+ * /rest/ships filters can be evaluated without a database round trip.
+ * The table is loaded on first use and then kept in sync through ShipChangeListener. The load scans the
+ * table into fresh columns without holding the lock, so deltas and reads aren't held up by it, and swaps
+ * them in only if no delta arrived meanwhile.
+ * <p>
+ * Name and planet filters follow the collation of their column, as the SQL LIKE does: where it ignores case
+ * (the _ci collations on MySQL) values and terms are folded as TrigramIndex folds them. Orders put NULL first
+ * when ascending, as both databases do.
+ */
+@Component
+public class FleetIndex implements ShipChangeListener {
+
+    private static final int INITIAL_CAPACITY = 1024;
+    private static final byte NULL_BYTE = -1;
+    private static final int NULL_INT = Integer.MIN_VALUE;
+    private static final long NULL_LONG = Long.MIN_VALUE;
+
+    private static final int MAX_LOAD_ATTEMPTS = 3;
+
+    private static final ShipType[] SHIP_TYPES = ShipType.values();
+
+    @Autowired
+    private ShipRepository shipRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private ReadConsistency readConsistency;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    // Only one thread scans the table at a time; the others wait here, not on the lock the deltas take.
+    private final Object loadLock = new Object();
+
+    // null until loaded and after every invalidate(). Guarded by lock.
+    private Columns columns;
+    // Bumped with each delta, so a load can tell whether a write raced with its table scan. Guarded by lock.
+    private long changes;
+
+    public List<ShipView> findWithStreams(Query query, Pageable pageable) {
+        lock.readLock().lock();
+        try {
+            Columns columns = loaded();
+            RowOrder order = rowOrder(columns, pageable.getSort());
+            return IntStream.range(0, columns.size)
+                    .filter(row -> query.matches(columns, row))
+                    .boxed()
+                    .sorted(order::compare)
+                    .skip(pageable.getOffset())
+                    .limit(pageable.getPageSize())
+                    .map(columns::toView)
+                    .collect(Collectors.toList());
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int countWithStreams(Query query) {
+        lock.readLock().lock();
+        try {
+            Columns columns = loaded();
+            return (int) IntStream.range(0, columns.size).filter(row -> query.matches(columns, row)).count();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public List<ShipView> findWithCycles(Query query, Pageable pageable) {
+        lock.readLock().lock();
+        try {
+            Columns columns = loaded();
+            long wanted = pageable.getOffset() + pageable.getPageSize();
+            if (wanted > Integer.MAX_VALUE - 8) {
+                wanted = Integer.MAX_VALUE - 8;
+            }
+            RowOrder order = rowOrder(columns, pageable.getSort());
+
+            // Bounded max-heap of the first (offset + pageSize) matching rows in sort order.
+            int[] heap = new int[(int) Math.min(wanted, columns.size)];
+            int heapSize = 0;
+            for (int row = 0; row < columns.size; row++) {
+                if (!query.matches(columns, row)) {
+                    continue;
+                }
+                if (heapSize < heap.length) {
+                    heap[heapSize] = row;
+                    siftUp(heap, heapSize++, order);
+                } else if (heapSize > 0 && order.compare(row, heap[0]) < 0) {
+                    heap[0] = row;
+                    siftDown(heap, heapSize, order);
+                }
+            }
+
+            int[] sorted = new int[heapSize];
+            for (int i = heapSize - 1; i >= 0; i--) {
+                sorted[i] = heap[0];
+                heap[0] = heap[--heapSize];
+                siftDown(heap, heapSize, order);
+            }
+
+            List<ShipView> result = new ArrayList<>();
+            for (int i = (int) Math.min(pageable.getOffset(), sorted.length); i < sorted.length; i++) {
+                result.add(columns.toView(sorted[i]));
+            }
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int countWithCycles(Query query) {
+        lock.readLock().lock();
+        try {
+            Columns columns = loaded();
+            int count = 0;
+            for (int row = 0; row < columns.size; row++) {
+                if (query.matches(columns, row)) {
+                    count++;
+                }
+            }
+            return count;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // The query carries the non-facet filters; shipType, isUsed and the rating range are the facets.
+    public ShipFacets facets(Query query, ShipType shipType, Boolean isUsed, Double minRating, Double maxRating) {
+        double min = minRating == null ? Double.NEGATIVE_INFINITY : minRating;
+        double max = maxRating == null ? Double.POSITIVE_INFINITY : maxRating;
+        boolean ratingFiltered = minRating != null || maxRating != null;
+        FacetCounter counter = new FacetCounter(shipType, isUsed);
+        lock.readLock().lock();
+        try {
+            Columns columns = loaded();
+            for (int row = 0; row < columns.size; row++) {
+                if (!query.matches(columns, row)) {
+                    continue;
+                }
+                double rating = columns.ratings[row];
+                boolean ratingMatches = !ratingFiltered || rating >= min && rating <= max;
+                counter.add(columns.shipTypes[row] == NULL_BYTE ? null : SHIP_TYPES[columns.shipTypes[row]],
+                        columns.isUsed[row] == NULL_BYTE ? null : columns.isUsed[row] == 1,
+                        Double.isNaN(rating) ? null : (int) Math.floor(rating),
+                        1, ratingMatches ? 1 : 0);
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        return counter.toFacets();
+    }
+
+    @Override
+    public void shipSaved(Ship previous, Ship current) {
+        put(current);
+    }
+
+    @Override
+    public void shipDeleted(Ship previous) {
+        remove(previous.getId());
+    }
+
+    @Override
+    public void shipsChanged() {
+        invalidate();
+    }
+
+    public void put(Ship ship) {
+        lock.writeLock().lock();
+        try {
+            changes++;
+            if (columns != null) {
+                columns.put(ShipView.of(ship));
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(Long id) {
+        lock.writeLock().lock();
+        try {
+            changes++;
+            if (columns != null) {
+                columns.remove(id);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void invalidate() {
+        lock.writeLock().lock();
+        try {
+            changes++;
+            columns = null;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public Query query(String name,
+                       String planet,
+                       ShipType shipType,
+                       Long after,
+                       Long before,
+                       Boolean isUsed,
+                       Double minSpeed,
+                       Double maxSpeed,
+                       Integer minCrewSize,
+                       Integer maxCrewSize,
+                       Double minRating,
+                       Double maxRating) {
+        return new Query(name, planet, shipType, after, before, isUsed,
+                minSpeed, maxSpeed, minCrewSize, maxCrewSize, minRating, maxRating);
+    }
+
+    // Called and returns with the read lock held.
+    private Columns loaded() {
+        while (columns == null) {
+            lock.readLock().unlock();
+            try {
+                load();
+            } finally {
+                lock.readLock().lock();
+            }
+        }
+        return columns;
+    }
+
+    private void load() {
+        synchronized (loadLock) {
+            for (int attempt = 1; ; attempt++) {
+                long before;
+                lock.readLock().lock();
+                try {
+                    if (columns != null) {
+                        return;
+                    }
+                    before = changes;
+                } finally {
+                    lock.readLock().unlock();
+                }
+                if (attempt == MAX_LOAD_ATTEMPTS) {
+                    // Writes keep racing with the scan: take the lock for this one, as deltas can't interleave.
+                    lock.writeLock().lock();
+                    try {
+                        columns = scan();
+                    } finally {
+                        lock.writeLock().unlock();
+                    }
+                    return;
+                }
+                Columns loaded = scan();
+                lock.writeLock().lock();
+                try {
+                    // A delta during the scan may or may not be in the rows read, so the scan is only kept without one.
+                    if (changes == before) {
+                        columns = loaded;
+                        return;
+                    }
+                } finally {
+                    lock.writeLock().unlock();
+                }
+            }
+        }
+    }
+
+    // Projections through a forward-only cursor, in a transaction of their own: no entity ends up in the caller's
+    // persistence context. Read from the primary, as a lagging replica's rows would stay in the index until the
+    // next shipsChanged().
+    private Columns scan() {
+        return readConsistency.onPrimary(() -> loadTransaction().execute(status -> {
+            Columns loaded = new Columns(shipRepository.isCaseInsensitive("name"),
+                    shipRepository.isCaseInsensitive("planet"));
+            shipRepository.scan(null, Sort.unsorted(), loaded::put);
+            return loaded;
+        }));
+    }
+
+    private TransactionTemplate loadTransaction() {
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        transactionTemplate.setReadOnly(true);
+        return transactionTemplate;
+    }
+
+    private static RowOrder rowOrder(Columns columns, Sort sort) {
+        Sort.Order order = sort.isSorted() ? sort.iterator().next() : Sort.Order.asc("id");
+        RowOrder comparator;
+        switch (order.getProperty()) {
+            case "id":
+                comparator = (a, b) -> Long.compare(columns.ids[a], columns.ids[b]);
+                break;
+            case "speed":
+                comparator = (a, b) -> {
+                    int result = compareNullsFirst(columns.speeds[a], columns.speeds[b]);
+                    return result != 0 ? result : Long.compare(columns.ids[a], columns.ids[b]);
+                };
+                break;
+            case "prodDate":
+                comparator = (a, b) -> {
+                    int result = Long.compare(columns.prodDates[a], columns.prodDates[b]);
+                    return result != 0 ? result : Long.compare(columns.ids[a], columns.ids[b]);
+                };
+                break;
+            case "rating":
+                comparator = (a, b) -> {
+                    int result = compareNullsFirst(columns.ratings[a], columns.ratings[b]);
+                    return result != 0 ? result : Long.compare(columns.ids[a], columns.ids[b]);
+                };
+                break;
+            default:
+                throw new IllegalArgumentException("Unsupported sort property " + order.getProperty());
+        }
+        return order.isAscending() ? comparator : (a, b) -> comparator.compare(b, a);
+    }
+
+    // Double.compare puts NaN (NULL) after every value.
+    private static int compareNullsFirst(double a, double b) {
+        boolean aNull = Double.isNaN(a);
+        boolean bNull = Double.isNaN(b);
+        if (aNull || bNull) {
+            return aNull == bNull ? 0 : aNull ? -1 : 1;
+        }
+        return Double.compare(a, b);
+    }
+
+    private static void siftUp(int[] heap, int index, RowOrder order) {
+        int value = heap[index];
+        while (index > 0) {
+            int parent = (index - 1) >>> 1;
+            if (order.compare(heap[parent], value) >= 0) {
+                break;
+            }
+            heap[index] = heap[parent];
+            index = parent;
+        }
+        heap[index] = value;
+    }
+
+    private static void siftDown(int[] heap, int heapSize, RowOrder order) {
+        if (heapSize == 0) {
+            return;
+        }
+        int index = 0;
+        int value = heap[0];
+        while (true) {
+            int child = 2 * index + 1;
+            if (child >= heapSize) {
+                break;
+            }
+            if (child + 1 < heapSize && order.compare(heap[child + 1], heap[child]) > 0) {
+                child++;
+            }
+            if (order.compare(value, heap[child]) >= 0) {
+                break;
+            }
+            heap[index] = heap[child];
+            index = child;
+        }
+        heap[index] = value;
+    }
+
+    // SQL LIKE '%term%' as rendered by the name/planet specifications, including '%' and '_' wildcards.
+    private static Pattern likePattern(String term) {
+        StringBuilder regex = new StringBuilder(".*");
+        for (int i = 0; i < term.length(); i++) {
+            char c = term.charAt(i);
+            if (c == '\\' && i + 1 < term.length()) {
+                regex.append(Pattern.quote(String.valueOf(term.charAt(++i))));
+            } else if (c == '%') {
+                regex.append(".*");
+            } else if (c == '_') {
+                regex.append('.');
+            } else {
+                regex.append(Pattern.quote(String.valueOf(c)));
+            }
+        }
+        return Pattern.compile(regex.append(".*").toString(), Pattern.DOTALL);
+    }
+
+    private static boolean hasWildcards(String term) {
+        return term.indexOf('%') >= 0 || term.indexOf('_') >= 0 || term.indexOf('\\') >= 0;
+    }
+
+    // The columns of a loaded table. Rows are kept dense: a removed row is replaced by the last one.
+    private static class Columns {
+        private final boolean foldNames;
+        private final boolean foldPlanets;
+
+        private int size;
+        private long[] ids = new long[INITIAL_CAPACITY];
+        private String[] names = new String[INITIAL_CAPACITY];
+        // The names as matched when the column ignores case, null otherwise.
+        private String[] foldedNames;
+        private int[] planets = new int[INITIAL_CAPACITY];
+        private byte[] shipTypes = new byte[INITIAL_CAPACITY];
+        private long[] prodDates = new long[INITIAL_CAPACITY];
+        private int[] prodYears = new int[INITIAL_CAPACITY];
+        private byte[] isUsed = new byte[INITIAL_CAPACITY];
+        private double[] speeds = new double[INITIAL_CAPACITY];
+        private int[] crewSizes = new int[INITIAL_CAPACITY];
+        private double[] ratings = new double[INITIAL_CAPACITY];
+
+        private final Map<Long, Integer> rowsById = new HashMap<>();
+        private final List<String> planetDictionary = new ArrayList<>();
+        private final Map<String, Integer> planetCodes = new HashMap<>();
+
+        Columns(boolean foldNames, boolean foldPlanets) {
+            this.foldNames = foldNames;
+            this.foldPlanets = foldPlanets;
+            this.foldedNames = foldNames ? new String[INITIAL_CAPACITY] : null;
+        }
+
+        void put(ShipView ship) {
+            Integer row = rowsById.get(ship.getId());
+            if (row == null) {
+                row = size++;
+                ensureCapacity(size);
+                rowsById.put(ship.getId(), row);
+            }
+            write(row, ship);
+        }
+
+        void remove(Long id) {
+            Integer row = rowsById.remove(id);
+            if (row == null) {
+                return;
+            }
+            int last = --size;
+            if (row != last) {
+                ids[row] = ids[last];
+                names[row] = names[last];
+                if (foldedNames != null) {
+                    foldedNames[row] = foldedNames[last];
+                }
+                planets[row] = planets[last];
+                shipTypes[row] = shipTypes[last];
+                prodDates[row] = prodDates[last];
+                prodYears[row] = prodYears[last];
+                isUsed[row] = isUsed[last];
+                speeds[row] = speeds[last];
+                crewSizes[row] = crewSizes[last];
+                ratings[row] = ratings[last];
+                rowsById.put(ids[row], row);
+            }
+            names[last] = null;
+            if (foldedNames != null) {
+                foldedNames[last] = null;
+            }
+        }
+
+        private void write(int row, ShipView ship) {
+            ids[row] = ship.getId();
+            names[row] = ship.getName();
+            if (foldedNames != null) {
+                foldedNames[row] = ship.getName() == null ? null : TrigramIndex.fold(ship.getName());
+            }
+            planets[row] = planetCode(ship.getPlanet());
+            shipTypes[row] = ship.getShipType() == null ? NULL_BYTE : (byte) ship.getShipType().ordinal();
+            if (ship.getProdDate() == null) {
+                prodDates[row] = NULL_LONG;
+                prodYears[row] = NULL_INT;
+            } else {
+                // The column is a SQL DATE, so keep only the day just like the database does.
+                Calendar calendar = new GregorianCalendar();
+                calendar.setTime(ship.getProdDate());
+                calendar.set(Calendar.HOUR_OF_DAY, 0);
+                calendar.set(Calendar.MINUTE, 0);
+                calendar.set(Calendar.SECOND, 0);
+                calendar.set(Calendar.MILLISECOND, 0);
+                prodDates[row] = calendar.getTimeInMillis();
+                prodYears[row] = calendar.get(Calendar.YEAR);
+            }
+            isUsed[row] = ship.getUsed() == null ? NULL_BYTE : (byte) (ship.getUsed() ? 1 : 0);
+            speeds[row] = ship.getSpeed() == null ? Double.NaN : ship.getSpeed();
+            crewSizes[row] = ship.getCrewSize() == null ? NULL_INT : ship.getCrewSize();
+            ratings[row] = ship.getRating() == null ? Double.NaN : ship.getRating();
+        }
+
+        ShipView toView(int row) {
+            return new ShipView(ids[row],
+                    names[row],
+                    planets[row] == NULL_INT ? null : planetDictionary.get(planets[row]),
+                    shipTypes[row] == NULL_BYTE ? null : SHIP_TYPES[shipTypes[row]],
+                    prodDates[row] == NULL_LONG ? null : new java.sql.Date(prodDates[row]),
+                    isUsed[row] == NULL_BYTE ? null : isUsed[row] == 1,
+                    Double.isNaN(speeds[row]) ? null : speeds[row],
+                    crewSizes[row] == NULL_INT ? null : crewSizes[row],
+                    Double.isNaN(ratings[row]) ? null : ratings[row]);
+        }
+
+        private int planetCode(String planet) {
+            if (planet == null) {
+                return NULL_INT;
+            }
+            Integer code = planetCodes.get(planet);
+            if (code == null) {
+                code = planetDictionary.size();
+                planetDictionary.add(planet);
+                planetCodes.put(planet, code);
+            }
+            return code;
+        }
+
+        private void ensureCapacity(int capacity) {
+            if (capacity <= ids.length) {
+                return;
+            }
+            int newCapacity = Math.max(capacity, ids.length * 2);
+            ids = Arrays.copyOf(ids, newCapacity);
+            names = Arrays.copyOf(names, newCapacity);
+            if (foldedNames != null) {
+                foldedNames = Arrays.copyOf(foldedNames, newCapacity);
+            }
+            planets = Arrays.copyOf(planets, newCapacity);
+            shipTypes = Arrays.copyOf(shipTypes, newCapacity);
+            prodDates = Arrays.copyOf(prodDates, newCapacity);
+            prodYears = Arrays.copyOf(prodYears, newCapacity);
+            isUsed = Arrays.copyOf(isUsed, newCapacity);
+            speeds = Arrays.copyOf(speeds, newCapacity);
+            crewSizes = Arrays.copyOf(crewSizes, newCapacity);
+            ratings = Arrays.copyOf(ratings, newCapacity);
+        }
+    }
+
+    private interface RowOrder {
+        int compare(int a, int b);
+    }
+
+    public class Query {
+        private final String name;
+        private final Pattern namePattern;
+        private final String foldedName;
+        private final Pattern foldedNamePattern;
+        private final String planet;
+        private final Pattern planetPattern;
+        private final String foldedPlanet;
+        private final Pattern foldedPlanetPattern;
+        private final int shipType;
+        private final long after;
+        private final long before;
+        private final int isUsed;
+        private final double minSpeed;
+        private final double maxSpeed;
+        private final int minCrewSize;
+        private final int maxCrewSize;
+        private final double minRating;
+        private final double maxRating;
+
+        private boolean[] planetMatches;
+        // The dictionary planetMatches was computed for; a reload brings a new one with new codes.
+        private List<String> planetMatchesDictionary;
+
+        private Query(String name,
+                      String planet,
+                      ShipType shipType,
+                      Long after,
+                      Long before,
+                      Boolean isUsed,
+                      Double minSpeed,
+                      Double maxSpeed,
+                      Integer minCrewSize,
+                      Integer maxCrewSize,
+                      Double minRating,
+                      Double maxRating) {
+            this.name = name;
+            this.namePattern = name != null && hasWildcards(name) ? likePattern(name) : null;
+            this.foldedName = name == null ? null : TrigramIndex.fold(name);
+            this.foldedNamePattern = namePattern == null ? null : likePattern(foldedName);
+            this.planet = planet;
+            this.planetPattern = planet != null && hasWildcards(planet) ? likePattern(planet) : null;
+            this.foldedPlanet = planet == null ? null : TrigramIndex.fold(planet);
+            this.foldedPlanetPattern = planetPattern == null ? null : likePattern(foldedPlanet);
+            this.shipType = shipType == null ? NULL_BYTE : shipType.ordinal();
+            this.after = after == null ? Long.MIN_VALUE : after;
+            this.before = before == null ? Long.MAX_VALUE : before;
+            this.isUsed = isUsed == null ? NULL_BYTE : isUsed ? 1 : 0;
+            this.minSpeed = minSpeed == null ? Double.NEGATIVE_INFINITY : minSpeed;
+            this.maxSpeed = maxSpeed == null ? Double.POSITIVE_INFINITY : maxSpeed;
+            this.minCrewSize = minCrewSize == null ? Integer.MIN_VALUE : minCrewSize;
+            this.maxCrewSize = maxCrewSize == null ? Integer.MAX_VALUE : maxCrewSize;
+            this.minRating = minRating == null ? Double.NEGATIVE_INFINITY : minRating;
+            this.maxRating = maxRating == null ? Double.POSITIVE_INFINITY : maxRating;
+        }
+
+        // A predicate on a NULL column is never true in SQL, so NULL cells only pass filters that are absent.
+        boolean matches(Columns columns, int row) {
+            if (shipType != NULL_BYTE && columns.shipTypes[row] != shipType) {
+                return false;
+            }
+            if (isUsed != NULL_BYTE && columns.isUsed[row] != isUsed) {
+                return false;
+            }
+            double speed = columns.speeds[row];
+            if ((minSpeed != Double.NEGATIVE_INFINITY || maxSpeed != Double.POSITIVE_INFINITY)
+                    && !(speed >= minSpeed && speed <= maxSpeed)) {
+                return false;
+            }
+            double rating = columns.ratings[row];
+            if ((minRating != Double.NEGATIVE_INFINITY || maxRating != Double.POSITIVE_INFINITY)
+                    && !(rating >= minRating && rating <= maxRating)) {
+                return false;
+            }
+            if (minCrewSize != Integer.MIN_VALUE || maxCrewSize != Integer.MAX_VALUE) {
+                int crewSize = columns.crewSizes[row];
+                if (crewSize == NULL_INT || crewSize < minCrewSize || crewSize > maxCrewSize) {
+                    return false;
+                }
+            }
+            if (after != Long.MIN_VALUE || before != Long.MAX_VALUE) {
+                long prodDate = columns.prodDates[row];
+                if (prodDate == NULL_LONG || prodDate < after || prodDate > before) {
+                    return false;
+                }
+            }
+            if (planet != null && !planetMatches(columns, columns.planets[row])) {
+                return false;
+            }
+            return name == null || nameMatches(columns, row);
+        }
+
+        private boolean nameMatches(Columns columns, int row) {
+            if (columns.names[row] == null) {
+                return false;
+            }
+            if (columns.foldNames) {
+                return like(columns.foldedNames[row], foldedName, foldedNamePattern);
+            }
+            return like(columns.names[row], name, namePattern);
+        }
+
+        // Planets are dictionary encoded, so the LIKE test runs once per distinct planet rather than once per ship.
+        private boolean planetMatches(Columns columns, int code) {
+            if (code == NULL_INT) {
+                return false;
+            }
+            List<String> planetDictionary = columns.planetDictionary;
+            if (planetMatches == null || planetMatchesDictionary != planetDictionary
+                    || planetMatches.length < planetDictionary.size()) {
+                boolean[] matches = new boolean[planetDictionary.size()];
+                for (int i = 0; i < matches.length; i++) {
+                    String value = planetDictionary.get(i);
+                    matches[i] = columns.foldPlanets
+                            ? like(TrigramIndex.fold(value), foldedPlanet, foldedPlanetPattern)
+                            : like(value, planet, planetPattern);
+                }
+                planetMatches = matches;
+                planetMatchesDictionary = planetDictionary;
+            }
+            return planetMatches[code];
+        }
+
+        private boolean like(String value, String term, Pattern pattern) {
+            return pattern == null ? value.contains(term) : pattern.matcher(value).matches();
+        }
+    }
+}
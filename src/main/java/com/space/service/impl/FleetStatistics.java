@@ -0,0 +1,307 @@
+package com.space.service.impl;
+
+import com.space.model.FleetStats;
+import com.space.model.Ship;
+import com.space.model.ShipType;
+import com.space.repository.ScanFetchSize;
+import com.space.service.ReadConsistency;
+import com.space.service.ShipChangeListener;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.sql.PreparedStatement;
+import java.util.*;
+
+/**
+ * Fleet aggregates for /rest/ships/stats, kept up to date from ShipChangeListener deltas so a stats
+ * call costs the same for ten ships as for ten million. Min and max come from counted multisets of
+ * the values, crew size percentiles from a histogram over the valid crew sizes. The table is read
+ * once at startup and again after every shipsChanged().
+ */
+@Component
+public class FleetStatistics implements ShipChangeListener, SmartInitializingSingleton {
+
+    private static final Logger log = LoggerFactory.getLogger(FleetStatistics.class);
+
+    private static final String SELECT_ALL = "SELECT shipType, planet, isUsed, speed, crewSize, rating FROM ship";
+    private static final int MAX_CREW_SIZE = 9999;
+    private static final int MAX_LOAD_ATTEMPTS = 3;
+    private static final long WRITE_WAIT_MILLIS = 100;
+
+    private static final ShipType[] SHIP_TYPES = ShipType.values();
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Autowired
+    private ReadConsistency readConsistency;
+
+    @Value("${ships.export.fetch-size:1000}")
+    private int fetchSize;
+
+    // Bumped with each delta and each write started, so a load can tell whether a write raced with its table read.
+    // Guarded by this.
+    private long changes;
+    // Writes started and not finished: committed or not, their deltas may still be to come. Guarded by this.
+    private int writesInFlight;
+    // null until loaded and after every shipsChanged(). Guarded by this.
+    private Aggregates aggregates;
+    // Only one thread reads the table at a time; the others wait here, not on the monitor the deltas take.
+    private final Object loadLock = new Object();
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        try {
+            load();
+        } catch (DataAccessException e) {
+            // e.g. the schema is not there yet; the first stats call loads it instead
+            log.warn("Fleet statistics not loaded at startup: {}", e.getMessage());
+        }
+    }
+
+    public FleetStats getStats() {
+        synchronized (this) {
+            if (aggregates != null) {
+                return aggregates.toStats();
+            }
+        }
+        return load().toStats();
+    }
+
+    @Override
+    public synchronized void shipSaved(Ship previous, Ship current) {
+        changes++;
+        if (aggregates == null) {
+            return;
+        }
+        if (previous != null) {
+            aggregates.apply(previous, -1);
+        }
+        aggregates.apply(current, 1);
+    }
+
+    @Override
+    public synchronized void shipDeleted(Ship previous) {
+        changes++;
+        if (aggregates != null) {
+            aggregates.apply(previous, -1);
+        }
+    }
+
+    @Override
+    public synchronized void shipsChanged() {
+        changes++;
+        aggregates = null;
+    }
+
+    @Override
+    public synchronized void writeStarting() {
+        changes++;
+        writesInFlight++;
+    }
+
+    @Override
+    public synchronized void writeFinished() {
+        writesInFlight--;
+        if (writesInFlight == 0) {
+            notifyAll();
+        }
+    }
+
+    // The table is read into a fresh Aggregates without holding the monitor, so writers' deltas never wait for it.
+    // A write that overlaps the read may or may not be in the result set, and one that committed before it may
+    // still have its delta to come, so a load is only installed when no write was in flight as it started and
+    // none started until it finished. Otherwise it is retried, and if every attempt races it only answers the
+    // current call.
+    private Aggregates load() {
+        synchronized (loadLock) {
+            Aggregates loaded = null;
+            for (int attempt = 1; attempt <= MAX_LOAD_ATTEMPTS; attempt++) {
+                long before;
+                boolean quiet;
+                synchronized (this) {
+                    if (aggregates != null) {
+                        return aggregates;
+                    }
+                    quiet = awaitNoWritesInFlight();
+                    before = changes;
+                }
+                // From the primary: the deltas applied on top follow its commits.
+                loaded = readConsistency.onPrimary(this::readTable);
+                synchronized (this) {
+                    if (quiet && changes == before) {
+                        aggregates = loaded;
+                        return loaded;
+                    }
+                }
+            }
+            log.warn("Fleet statistics raced with writes {} times, not caching them", MAX_LOAD_ATTEMPTS);
+            return loaded;
+        }
+    }
+
+    // Called with the monitor held; false if writes are still in flight after WRITE_WAIT_MILLIS.
+    private boolean awaitNoWritesInFlight() {
+        long deadline = System.currentTimeMillis() + WRITE_WAIT_MILLIS;
+        while (writesInFlight > 0) {
+            long remaining = deadline - System.currentTimeMillis();
+            if (remaining <= 0) {
+                return false;
+            }
+            try {
+                wait(remaining);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private Aggregates readTable() {
+        Aggregates loaded = new Aggregates();
+        new JdbcTemplate(dataSource).query(connection -> {
+            PreparedStatement statement = connection.prepareStatement(SELECT_ALL);
+            statement.setFetchSize(ScanFetchSize.of(connection, fetchSize));
+            return statement;
+        }, rs -> {
+            String shipType = rs.getString("shipType");
+            String planet = rs.getString("planet");
+            boolean isUsed = rs.getBoolean("isUsed");
+            Boolean used = rs.wasNull() ? null : isUsed;
+            double speed = rs.getDouble("speed");
+            Double speedValue = rs.wasNull() ? null : speed;
+            int crewSize = rs.getInt("crewSize");
+            Integer crewSizeValue = rs.wasNull() ? null : crewSize;
+            double rating = rs.getDouble("rating");
+            Double ratingValue = rs.wasNull() ? null : rating;
+            loaded.apply(shipType == null ? null : ShipType.valueOf(shipType), planet, used,
+                    speedValue, crewSizeValue, ratingValue, 1);
+        });
+        return loaded;
+    }
+
+    private static class Aggregates {
+        private long count;
+        private final long[] shipTypeCounts = new long[SHIP_TYPES.length];
+        private final Map<String, Long> planetCounts = new HashMap<>();
+        private long used;
+        private long unused;
+        // Speeds and ratings are stored with two decimals, so they are counted and summed in hundredths.
+        private final TreeMap<Long, Long> speeds = new TreeMap<>();
+        private long speedCount;
+        private long speedSum;
+        private final TreeMap<Long, Long> ratings = new TreeMap<>();
+        private long ratingCount;
+        private long ratingSum;
+        private final long[] crewSizes = new long[MAX_CREW_SIZE + 1];
+        private long crewSizeCount;
+        private long crewSizeSum;
+
+        FleetStats toStats() {
+            Map<ShipType, Long> byType = new EnumMap<>(ShipType.class);
+            for (ShipType shipType : SHIP_TYPES) {
+                byType.put(shipType, shipTypeCounts[shipType.ordinal()]);
+            }
+            return new FleetStats(count, byType, new TreeMap<>(planetCounts), used, unused,
+                    summary(speeds, speedCount, speedSum), summary(ratings, ratingCount, ratingSum), crewSizeSummary());
+        }
+
+        void apply(Ship ship, int sign) {
+            apply(ship.getShipType(), ship.getPlanet(), ship.getUsed(), ship.getSpeed(), ship.getCrewSize(), ship.getRating(), sign);
+        }
+
+        void apply(ShipType shipType, String planet, Boolean isUsed, Double speed, Integer crewSize, Double rating, int sign) {
+            count += sign;
+            if (shipType != null) {
+                shipTypeCounts[shipType.ordinal()] += sign;
+            }
+            if (planet != null) {
+                planetCounts.merge(planet, (long) sign, (a, b) -> a + b == 0 ? null : a + b);
+            }
+            if (isUsed != null) {
+                if (isUsed) {
+                    used += sign;
+                } else {
+                    unused += sign;
+                }
+            }
+            if (speed != null) {
+                long hundredths = Math.round(speed * 100);
+                speeds.merge(hundredths, (long) sign, (a, b) -> a + b == 0 ? null : a + b);
+                speedCount += sign;
+                speedSum += sign * hundredths;
+            }
+            if (rating != null) {
+                long hundredths = Math.round(rating * 100);
+                ratings.merge(hundredths, (long) sign, (a, b) -> a + b == 0 ? null : a + b);
+                ratingCount += sign;
+                ratingSum += sign * hundredths;
+            }
+            if (crewSize != null) {
+                // ShipService only accepts 1..9999; anything else written by hand lands in the edge buckets
+                crewSizes[Math.max(0, Math.min(MAX_CREW_SIZE, crewSize))] += sign;
+                crewSizeCount += sign;
+                crewSizeSum += sign * crewSize;
+            }
+        }
+
+        private static FleetStats.Summary summary(TreeMap<Long, Long> values, long n, long sum) {
+            if (n == 0) {
+                return new FleetStats.Summary(null, null, null);
+            }
+            return new FleetStats.Summary(values.firstKey() / 100.0, values.lastKey() / 100.0,
+                    round((double) sum / n / 100));
+        }
+
+        private FleetStats.CrewSizeSummary crewSizeSummary() {
+            if (crewSizeCount == 0) {
+                return new FleetStats.CrewSizeSummary(null, null, null, null, null, null);
+            }
+            int min = -1;
+            int max = -1;
+            int p50 = -1;
+            int p90 = -1;
+            int p99 = -1;
+            long rank50 = rank(0.50);
+            long rank90 = rank(0.90);
+            long rank99 = rank(0.99);
+            long seen = 0;
+            for (int crewSize = 0; crewSize <= MAX_CREW_SIZE; crewSize++) {
+                if (crewSizes[crewSize] == 0) {
+                    continue;
+                }
+                if (min < 0) {
+                    min = crewSize;
+                }
+                max = crewSize;
+                seen += crewSizes[crewSize];
+                if (p50 < 0 && seen >= rank50) {
+                    p50 = crewSize;
+                }
+                if (p90 < 0 && seen >= rank90) {
+                    p90 = crewSize;
+                }
+                if (p99 < 0 && seen >= rank99) {
+                    p99 = crewSize;
+                }
+            }
+            return new FleetStats.CrewSizeSummary(min, max, round((double) crewSizeSum / crewSizeCount), p50, p90, p99);
+        }
+
+        private long rank(double percentile) {
+            return Math.max(1, (long) Math.ceil(percentile * crewSizeCount));
+        }
+
+        private static double round(double value) {
+            return Math.round(value * 100) / 100.0;
+        }
+    }
+}
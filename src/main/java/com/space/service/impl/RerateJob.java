@@ -0,0 +1,246 @@
+package com.space.service.impl;
+
+import com.space.model.RerateStatus;
+import com.space.model.Ship;
+import com.space.service.RatingCalculator;
+import com.space.service.ShipChangeListener;
+import com.space.service.ShipService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.Cache;
+import javax.persistence.EntityManagerFactory;
+import javax.persistence.PersistenceUnit;
+import javax.sql.DataSource;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.TimeZone;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.IntStream;
+
+/**
+ * Recomputes every stored rating for a new reference year. The table is read in keyset chunks,
+ * ratings are computed on a fork-join pool and each chunk is written back in its own short
+ * transaction, so row locks are held for one chunk at a time. An update only applies while the
+ * ship still has the speed, isUsed and prodDate it was rated from; ships written in the meantime
+ * were already rated by ShipService against the new year. The change listeners are told after each
+ * chunk that changed ratings, so ETags, the in-memory indexes and the statistics follow the job
+ * instead of showing the old ratings until it ends.
+ */
+@Component
+public class RerateJob implements DisposableBean {
+
+    private static final Logger log = LoggerFactory.getLogger(RerateJob.class);
+
+    private static final String SELECT_CHUNK = "SELECT id, prodDate, isUsed, speed, rating FROM ship " +
+            "WHERE id > ? ORDER BY id LIMIT ?";
+    private static final String UPDATE_RATING = "UPDATE ship SET rating = ? " +
+            "WHERE id = ? AND prodDate = ? AND isUsed = ? AND speed = ?";
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private ShipService shipService;
+
+    @Autowired
+    private List<ShipChangeListener> changeListeners;
+
+    @PersistenceUnit
+    private EntityManagerFactory entityManagerFactory;
+
+    @Value("${ships.rerate.chunk-size:5000}")
+    private int chunkSize;
+
+    // 0 uses one thread per available processor
+    @Value("${ships.rerate.parallelism:0}")
+    private int parallelism;
+
+    private final RatingCalculator ratingCalculator = new RatingCalculator(TimeZone.getDefault());
+    private final ExecutorService runner = Executors.newSingleThreadExecutor(task -> {
+        Thread thread = new Thread(task, "rerate");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final AtomicBoolean running = new AtomicBoolean();
+    private final AtomicLong scanned = new AtomicLong();
+    private final AtomicLong updated = new AtomicLong();
+    private volatile RerateStatus.State state = RerateStatus.State.IDLE;
+    private volatile Integer referenceYear;
+    private volatile Long startedAt;
+    private volatile Long finishedAt;
+    private volatile String error;
+
+    public RerateStatus start(int referenceYear) {
+        if (!running.compareAndSet(false, true)) {
+            throw new IllegalStateException("A re-rating job is already running.");
+        }
+        try {
+            // Stored first: ships written from now on, and after a restart, are rated against the new year.
+            shipService.setRatingReferenceYear(referenceYear);
+        } catch (RuntimeException e) {
+            running.set(false);
+            throw e;
+        }
+        scanned.set(0);
+        updated.set(0);
+        this.referenceYear = referenceYear;
+        startedAt = System.currentTimeMillis();
+        finishedAt = null;
+        error = null;
+        state = RerateStatus.State.RUNNING;
+        runner.execute(() -> run(referenceYear));
+        return getStatus();
+    }
+
+    public RerateStatus getStatus() {
+        return new RerateStatus(state, referenceYear, scanned.get(), updated.get(), startedAt, finishedAt, error);
+    }
+
+    @Override
+    public void destroy() {
+        runner.shutdownNow();
+    }
+
+    private void run(int referenceYear) {
+        ForkJoinPool pool = new ForkJoinPool(parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors());
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        RerateStatus.State outcome = RerateStatus.State.DONE;
+        try {
+            long lastId = 0;
+            while (true) {
+                Chunk chunk = readChunk(jdbcTemplate, lastId);
+                if (chunk.size == 0) {
+                    break;
+                }
+                pool.submit(() -> IntStream.range(0, chunk.size).parallel()
+                        .forEach(i -> chunk.rate(i, ratingCalculator, referenceYear))).get();
+                Integer changed = transactionTemplate.execute(transaction -> chunk.write(jdbcTemplate));
+                chunk.evict(entityManagerFactory.getCache());
+                if (changed != null && changed > 0) {
+                    for (ShipChangeListener listener : changeListeners) {
+                        listener.shipsChanged();
+                    }
+                }
+                scanned.addAndGet(chunk.size);
+                updated.addAndGet(changed == null ? 0 : changed);
+                lastId = chunk.ids[chunk.size - 1];
+                if (chunk.size < chunkSize) {
+                    break;
+                }
+            }
+        } catch (Exception e) {
+            log.error("Re-rating for reference year {} failed after {} ships", referenceYear, scanned.get(), e);
+            outcome = RerateStatus.State.FAILED;
+            error = e.toString();
+        } finally {
+            pool.shutdown();
+            finishedAt = System.currentTimeMillis();
+            state = outcome;
+            running.set(false);
+        }
+        log.info("Re-rated {} ships for reference year {}, {} ratings changed", scanned.get(), referenceYear, updated.get());
+    }
+
+    private Chunk readChunk(JdbcTemplate jdbcTemplate, long lastId) {
+        Chunk chunk = new Chunk(chunkSize);
+        jdbcTemplate.query(SELECT_CHUNK, resultSet -> {
+            int i = chunk.size++;
+            chunk.ids[i] = resultSet.getLong(1);
+            chunk.prodDates[i] = resultSet.getDate(2);
+            chunk.used[i] = resultSet.getBoolean(3);
+            chunk.rateable[i] = !resultSet.wasNull() && chunk.prodDates[i] != null;
+            chunk.speeds[i] = resultSet.getDouble(4);
+            chunk.rateable[i] &= !resultSet.wasNull();
+            chunk.ratings[i] = resultSet.getDouble(5);
+            chunk.changed[i] = resultSet.wasNull();
+        }, lastId, chunkSize);
+        return chunk;
+    }
+
+    private static class Chunk {
+        private final long[] ids;
+        private final Date[] prodDates;
+        private final boolean[] used;
+        private final double[] speeds;
+        private final double[] ratings;
+        private final boolean[] rateable;
+        private final boolean[] changed;
+        private int size;
+
+        Chunk(int capacity) {
+            ids = new long[capacity];
+            prodDates = new Date[capacity];
+            used = new boolean[capacity];
+            speeds = new double[capacity];
+            ratings = new double[capacity];
+            rateable = new boolean[capacity];
+            changed = new boolean[capacity];
+        }
+
+        void rate(int i, RatingCalculator ratingCalculator, int referenceYear) {
+            if (!rateable[i]) {
+                changed[i] = false;
+                return;
+            }
+            double rating = ratingCalculator.rating(prodDates[i].getTime(), used[i], speeds[i], referenceYear);
+            changed[i] |= rating != ratings[i];
+            ratings[i] = rating;
+        }
+
+        int write(JdbcTemplate jdbcTemplate) {
+            int[] rows = IntStream.range(0, size).filter(i -> changed[i]).toArray();
+            if (rows.length == 0) {
+                return 0;
+            }
+            int[] counts = jdbcTemplate.batchUpdate(UPDATE_RATING, new BatchPreparedStatementSetter() {
+                @Override
+                public void setValues(PreparedStatement statement, int index) throws SQLException {
+                    int i = rows[index];
+                    statement.setDouble(1, ratings[i]);
+                    statement.setLong(2, ids[i]);
+                    statement.setDate(3, prodDates[i]);
+                    statement.setBoolean(4, used[i]);
+                    statement.setDouble(5, speeds[i]);
+                }
+
+                @Override
+                public int getBatchSize() {
+                    return rows.length;
+                }
+            });
+            int updated = 0;
+            for (int count : counts) {
+                // rewriteBatchedStatements may report SUCCESS_NO_INFO (-2)
+                updated += count == PreparedStatement.SUCCESS_NO_INFO ? 1 : count;
+            }
+            return updated;
+        }
+
+        void evict(Cache cache) {
+            for (int i = 0; i < size; i++) {
+                if (changed[i]) {
+                    cache.evict(Ship.class, ids[i]);
+                }
+            }
+        }
+    }
+}
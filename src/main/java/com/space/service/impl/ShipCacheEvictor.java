@@ -0,0 +1,32 @@
+package com.space.service.impl;
+
+import com.space.model.Ship;
+import com.space.service.ShipChangeListener;
+import org.springframework.stereotype.Component;
+
+import javax.persistence.EntityManagerFactory;
+import javax.persistence.PersistenceUnit;
+
+/**
+ * Hibernate keeps the Ship cache region current for writes made through the EntityManager,
+ * everything else that touches the table has to drop the region.
+ */
+@Component
+public class ShipCacheEvictor implements ShipChangeListener {
+
+    @PersistenceUnit
+    private EntityManagerFactory entityManagerFactory;
+
+    @Override
+    public void shipSaved(Ship previous, Ship current) {
+    }
+
+    @Override
+    public void shipDeleted(Ship previous) {
+    }
+
+    @Override
+    public void shipsChanged() {
+        entityManagerFactory.getCache().evict(Ship.class);
+    }
+}
@@ -1,43 +1,253 @@
 package com.space.service.impl;
 
+import com.space.model.BatchItemResult;
+import com.space.model.FleetStats;
 import com.space.model.Ship;
+import com.space.model.ShipFacets;
 import com.space.model.ShipType;
+import com.space.model.ShipView;
 import com.space.repository.ShipRepository;
+import com.space.service.RatingCalculator;
+import com.space.service.ReadConsistency;
+import com.space.service.ShipChangeListener;
+import com.space.service.ShipFilter;
 import com.space.service.ShipService;
+import org.springframework.beans.factory.InitializingBean;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
 import org.springframework.data.jpa.domain.Specification;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
+import javax.sql.DataSource;
 import java.util.*;
+import java.util.function.Consumer;
 
 @Service
-public class ShipServiceImpl implements ShipService {
+public class ShipServiceImpl implements ShipService, InitializingBean {
+
+    private static final String REFERENCE_YEAR_SETTING = "rating.reference-year";
+    private static final String SELECT_SETTING = "SELECT settingValue FROM setting WHERE name = ?";
+    private static final String UPDATE_SETTING = "UPDATE setting SET settingValue = ? WHERE name = ?";
+    private static final String INSERT_SETTING = "INSERT INTO setting(name, settingValue) VALUES (?, ?)";
+
     @Autowired
     private ShipRepository shipRepository;
 
+    @Autowired
+    private FleetIndex fleetIndex;
+
+    @Autowired
+    private TrigramIndex trigramIndex;
+
+    @Autowired
+    private FleetStatistics fleetStatistics;
+
+    @Autowired
+    private List<ShipChangeListener> changeListeners;
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Autowired
+    private ReadConsistency readConsistency;
+
+    private final RatingCalculator ratingCalculator = new RatingCalculator(TimeZone.getDefault());
+
+    // ships.rating.reference-year until POST /rest/admin/rerate stores a year, which then wins on every start.
+    @Value("${ships.rating.reference-year:3019}")
+    private volatile int referenceYear = RatingCalculator.DEFAULT_REFERENCE_YEAR;
+
+    @Override
+    public void afterPropertiesSet() {
+        List<String> stored = readConsistency.onPrimary(() -> new JdbcTemplate(dataSource)
+                .queryForList(SELECT_SETTING, String.class, REFERENCE_YEAR_SETTING));
+        if (!stored.isEmpty()) {
+            referenceYear = Integer.parseInt(stored.get(0));
+        }
+    }
+
     public void calculateRating(Ship ship) {
-        int CURRENT_YEAR=3019;
-        GregorianCalendar prodDate = new GregorianCalendar();
-        prodDate.setTime(ship.getProdDate());
-        int prodYear = prodDate.get(Calendar.YEAR);
-        double k = ship.getUsed()? 0.5 : 1;
-        double shipSpeed = ship.getSpeed();
-        Double rating = 80*shipSpeed*k/(CURRENT_YEAR-prodYear+1);
-        rating = Math.round(rating*100)/100.0;
-        ship.setRating(rating);
+        ship.setRating(ratingCalculator.rating(ship.getProdDate().getTime(), ship.getUsed(), ship.getSpeed(), referenceYear));
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public ShipFacets getFacets(ShipFilter filter) {
+        FacetCounter counter = new FacetCounter(filter.getShipType(), filter.getIsUsed());
+        List<Object[]> groups = shipRepository.countFacetGroups(getSpecification(withoutFacets(filter)),
+                ShipService.getShipsByRatingSpec(filter.getMinRating(), filter.getMaxRating()));
+        for (Object[] group : groups) {
+            counter.add((ShipType) group[0], (Boolean) group[1],
+                    group[2] == null ? null : ((Number) group[2]).intValue(),
+                    ((Number) group[3]).longValue(), group[4] == null ? 0 : ((Number) group[4]).longValue());
+        }
+        return counter.toFacets();
+    }
+
+    @Override
+    public ShipFacets getFacetsWithCycles(ShipFilter filter) {
+        return fleetIndex.facets(fleetIndex.query(filter.getName(), filter.getPlanet(), null,
+                filter.getAfter(), filter.getBefore(), null, filter.getMinSpeed(), filter.getMaxSpeed(),
+                filter.getMinCrewSize(), filter.getMaxCrewSize(), null, null),
+                filter.getShipType(), filter.getIsUsed(), filter.getMinRating(), filter.getMaxRating());
+    }
+
+    private static ShipFilter withoutFacets(ShipFilter filter) {
+        return new ShipFilter(filter.getName(), filter.getPlanet(), null, filter.getAfter(), filter.getBefore(), null,
+                filter.getMinSpeed(), filter.getMaxSpeed(), filter.getMinCrewSize(), filter.getMaxCrewSize(), null, null);
+    }
+
+    @Override
+    public FleetStats getStats() {
+        return fleetStatistics.getStats();
     }
 
     @Override
+    public int getRatingReferenceYear() {
+        return referenceYear;
+    }
+
+    @Override
+    @Transactional
+    public void setRatingReferenceYear(int referenceYear) {
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+        String value = Integer.toString(referenceYear);
+        if (jdbcTemplate.update(UPDATE_SETTING, value, REFERENCE_YEAR_SETTING) == 0) {
+            jdbcTemplate.update(INSERT_SETTING, REFERENCE_YEAR_SETTING, value);
+        }
+        // Not before: a year whose row rolled back would be used until the next restart.
+        afterCommit(() -> this.referenceYear = referenceYear);
+    }
+
+    @Override
+    public Specification<Ship> getSpecification(ShipFilter filter) {
+        // The LIKE predicates stay in place, the id list only lets the database skip the scan.
+        Specification<Ship> specification = filter.toSpecification();
+        long[] nameCandidates = trigramIndex.findNameCandidates(filter.getName());
+        if (nameCandidates != null) {
+            specification = specification.and(ShipService.getShipsByIdInSpec(nameCandidates));
+        }
+        long[] planetCandidates = trigramIndex.findPlanetCandidates(filter.getPlanet());
+        if (planetCandidates != null) {
+            specification = specification.and(ShipService.getShipsByIdInSpec(planetCandidates));
+        }
+        return specification;
+    }
+
+    @Override
+    @Transactional(readOnly = true)
     public List<Ship> getAll(Specification<Ship> shipSpecification, Pageable pageable) {
 
         return shipRepository.findAll(shipSpecification, pageable).getContent();
     }
 
     @Override
+    @Transactional(readOnly = true)
+    public List<ShipView> getAllWithCompiledQuery(ShipFilter filter, Pageable pageable) {
+        return shipRepository.findByFilter(filter, trigramIndex.findNameCandidates(filter.getName()),
+                trigramIndex.findPlanetCandidates(filter.getPlanet()), pageable);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<ShipView> getSlice(Specification<Ship> shipSpecification, Sort sort, int limit) {
+        return shipRepository.findSlice(shipSpecification, sort, limit);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public void exportShips(Specification<Ship> shipSpecification, Sort sort, Consumer<ShipView> consumer) {
+        shipRepository.scan(shipSpecification, sort, consumer);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
     public Integer countShips(Specification<Ship> shipSpecification) {
 
-        return shipRepository.findAll(shipSpecification).size();
+        return (int) shipRepository.count(shipSpecification);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Integer countShipsWithCompiledQuery(ShipFilter filter) {
+        return (int) shipRepository.countByFilter(filter, trigramIndex.findNameCandidates(filter.getName()),
+                trigramIndex.findPlanetCandidates(filter.getPlanet()));
+    }
+
+    @Override
+    public List<ShipView> getAllWithStreams(String name,
+                                                String planet,
+                                            ShipType shipType,
+                                            Long after,
+                                            Long before,
+                                            Boolean isUsed,
+                                            Double minSpeed,
+                                            Double maxSpeed,
+                                            Integer minCrewSize,
+                                            Integer maxCrewSize,
+                                            Double minRating,
+                                            Double maxRating,
+                                            Pageable page) {
+        return fleetIndex.findWithStreams(fleetIndex.query(name, planet, shipType, after, before, isUsed,
+                minSpeed, maxSpeed, minCrewSize, maxCrewSize, minRating, maxRating), page);
+    }
+
+    @Override
+    public List<ShipView> getAllWithCycles(String name,
+                                               String planet,
+                                           ShipType shipType,
+                                           Long after,
+                                           Long before,
+                                           Boolean isUsed,
+                                           Double minSpeed,
+                                           Double maxSpeed,
+                                           Integer minCrewSize,
+                                           Integer maxCrewSize,
+                                           Double minRating,
+                                           Double maxRating,
+                                           Pageable page) {
+        return fleetIndex.findWithCycles(fleetIndex.query(name, planet, shipType, after, before, isUsed,
+                minSpeed, maxSpeed, minCrewSize, maxCrewSize, minRating, maxRating), page);
+    }
+
+    @Override
+    public Integer countShipsWithStreams(String name,
+                                         String planet,
+                                         ShipType shipType,
+                                         Long after,
+                                         Long before,
+                                         Boolean isUsed,
+                                         Double minSpeed,
+                                         Double maxSpeed,
+                                         Integer minCrewSize,
+                                         Integer maxCrewSize,
+                                         Double minRating,
+                                         Double maxRating) {
+        return fleetIndex.countWithStreams(fleetIndex.query(name, planet, shipType, after, before, isUsed,
+                minSpeed, maxSpeed, minCrewSize, maxCrewSize, minRating, maxRating));
+    }
+
+    @Override
+    public Integer countShipsWithCycles(String name,
+                                        String planet,
+                                        ShipType shipType,
+                                        Long after,
+                                        Long before,
+                                        Boolean isUsed,
+                                        Double minSpeed,
+                                        Double maxSpeed,
+                                        Integer minCrewSize,
+                                        Integer maxCrewSize,
+                                        Double minRating,
+                                        Double maxRating) {
+        return fleetIndex.countWithCycles(fleetIndex.query(name, planet, shipType, after, before, isUsed,
+                minSpeed, maxSpeed, minCrewSize, maxCrewSize, minRating, maxRating));
     }
 
     @Override
@@ -47,59 +257,211 @@ public class ShipServiceImpl implements ShipService {
             ship.setUsed(false);
         }
         calculateRating(ship);
-        Ship savedShip = shipRepository.saveAndFlush(ship);
-        return savedShip;
+        fireWriteStarting();
+        try {
+            Ship savedShip = shipRepository.saveAndFlush(ship);
+            fireShipSaved(null, savedShip);
+            return savedShip;
+        } finally {
+            fireWriteFinished();
+        }
     }
 
     @Override
-    public Ship updateShip(Long id, Ship ship) {
-
-        Optional<Ship> foundShip = shipRepository.findById(id);
-
-            Ship toBeUpdated = foundShip.get();
-            String name = ship.getName();
-            if (name != null) {
-                toBeUpdated.setName(name);
-            }
-            String planet = ship.getPlanet();
-            if (planet != null) {
-                toBeUpdated.setPlanet(planet);
-            }
-            ShipType shipType = ship.getShipType();
-            if (shipType != null) {
-                toBeUpdated.setShipType(shipType);
+    public List<BatchItemResult> createShips(List<Ship> ships) {
+        List<BatchItemResult> results = new ArrayList<>(ships.size());
+        List<BatchItemResult> accepted = new ArrayList<>(ships.size());
+        List<Ship> toBeSaved = new ArrayList<>(ships.size());
+        for (int i = 0; i < ships.size(); i++) {
+            Ship ship = ships.get(i);
+            String errorMessage = ship == null ? "Ship is empty. " : validateCreateShip(ship);
+            if (!errorMessage.isEmpty()) {
+                results.add(new BatchItemResult(i, 400, null, errorMessage));
+                continue;
             }
-            Date prodDate = ship.getProdDate();
-            if (prodDate != null) {
-                toBeUpdated.setProdDate(prodDate);
+            ship.setId(null);
+            if (ship.getUsed() == null) {
+                ship.setUsed(false);
             }
-            Boolean isUsed = ship.getUsed();
-            if (isUsed != null) {
-                toBeUpdated.setUsed(isUsed);
-            }
-            Double speed = ship.getSpeed();
-            if (speed != null) {
-                toBeUpdated.setSpeed(speed);
+            calculateRating(ship);
+            BatchItemResult result = new BatchItemResult(i, 200, null, null);
+            results.add(result);
+            accepted.add(result);
+            toBeSaved.add(ship);
+        }
+
+        fireWriteStarting();
+        try {
+            shipRepository.insertAll(toBeSaved);
+            for (int i = 0; i < toBeSaved.size(); i++) {
+                Ship savedShip = toBeSaved.get(i);
+                accepted.get(i).setId(savedShip.getId());
+                fireShipSaved(null, savedShip);
             }
-            Integer crewSize = ship.getCrewSize();
-            if (crewSize != null) {
-                toBeUpdated.setCrewSize(crewSize);
+        } finally {
+            fireWriteFinished();
+        }
+        return results;
+    }
+
+    @Override
+    @Transactional
+    public Ship updateShip(Long id, Ship ship) {
+        writeInTransaction();
+        Optional<Ship> foundShip = shipRepository.findById(id);
+            if (!foundShip.isPresent()) {
+                return null;
             }
+
+            Ship toBeUpdated = foundShip.get();
+            Ship previous = copyOf(toBeUpdated);
+            applyPatch(toBeUpdated, ship);
             calculateRating(toBeUpdated);
             shipRepository.saveAndFlush(toBeUpdated);
+            afterCommit(() -> fireShipSaved(previous, toBeUpdated));
 
             return toBeUpdated;
 
     }
 
     @Override
+    @Transactional(readOnly = true)
     public Ship getShip(Long id) {
-        return shipRepository.findById(id).get();
+        return shipRepository.findById(id).orElse(null);
+    }
+
+    @Override
+    @Transactional
+    public boolean deleteShip(Long id) {
+        writeInTransaction();
+        Optional<Ship> foundShip = shipRepository.findById(id);
+        if (!foundShip.isPresent()) {
+            return false;
+        }
+        Ship ship = foundShip.get();
+        shipRepository.delete(ship);
+        afterCommit(() -> {
+            for (ShipChangeListener listener : changeListeners) {
+                listener.shipDeleted(ship);
+            }
+        });
+        return true;
+    }
+
+    @Override
+    @Transactional
+    public int updateShips(ShipFilter filter, Ship patch) {
+        Integer prodYear = patch.getProdDate() == null ? null : ratingCalculator.yearOf(patch.getProdDate().getTime());
+        writeInTransaction();
+        int updated = shipRepository.updateByFilter(filter, patch, prodYear, referenceYear);
+        afterCommit(this::fireShipsChanged);
+        return updated;
     }
 
     @Override
-    public void deleteShip(Long id) {
-        shipRepository.deleteById(id);
+    @Transactional
+    public int deleteShips(ShipFilter filter) {
+        writeInTransaction();
+        int deleted = shipRepository.deleteByFilter(filter);
+        afterCommit(this::fireShipsChanged);
+        return deleted;
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+
+    // The write lasts until the transaction completes, after the afterCommit notifications.
+    private void writeInTransaction() {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return;
+        }
+        fireWriteStarting();
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+            @Override
+            public void afterCompletion(int status) {
+                fireWriteFinished();
+            }
+        });
+    }
+
+    private void fireWriteStarting() {
+        for (ShipChangeListener listener : changeListeners) {
+            listener.writeStarting();
+        }
+    }
+
+    private void fireWriteFinished() {
+        for (ShipChangeListener listener : changeListeners) {
+            listener.writeFinished();
+        }
+    }
+
+    private void fireShipSaved(Ship previous, Ship current) {
+        for (ShipChangeListener listener : changeListeners) {
+            listener.shipSaved(previous, current);
+        }
+    }
+
+    private void fireShipsChanged() {
+        for (ShipChangeListener listener : changeListeners) {
+            listener.shipsChanged();
+        }
+    }
+
+    // Sets the non-null fields of the patch on the target.
+    static void applyPatch(Ship target, Ship patch) {
+        String name = patch.getName();
+        if (name != null) {
+            target.setName(name);
+        }
+        String planet = patch.getPlanet();
+        if (planet != null) {
+            target.setPlanet(planet);
+        }
+        ShipType shipType = patch.getShipType();
+        if (shipType != null) {
+            target.setShipType(shipType);
+        }
+        Date prodDate = patch.getProdDate();
+        if (prodDate != null) {
+            target.setProdDate(prodDate);
+        }
+        Boolean isUsed = patch.getUsed();
+        if (isUsed != null) {
+            target.setUsed(isUsed);
+        }
+        Double speed = patch.getSpeed();
+        if (speed != null) {
+            target.setSpeed(speed);
+        }
+        Integer crewSize = patch.getCrewSize();
+        if (crewSize != null) {
+            target.setCrewSize(crewSize);
+        }
+    }
+
+    static Ship copyOf(Ship ship) {
+        Ship copy = new Ship();
+        copy.setId(ship.getId());
+        copy.setName(ship.getName());
+        copy.setPlanet(ship.getPlanet());
+        copy.setShipType(ship.getShipType());
+        copy.setProdDate(ship.getProdDate());
+        copy.setUsed(ship.getUsed());
+        copy.setSpeed(ship.getSpeed());
+        copy.setCrewSize(ship.getCrewSize());
+        copy.setRating(ship.getRating());
+        return copy;
     }
 
     @Override
@@ -108,6 +470,7 @@ public class ShipServiceImpl implements ShipService {
     }
 
     @Override
+    @Transactional(readOnly = true)
     public boolean isIdExists(Long id) {
         return shipRepository.existsById(id);
     }
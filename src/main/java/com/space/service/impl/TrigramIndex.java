@@ -0,0 +1,303 @@
+package com.space.service.impl;
+
+import com.space.model.Ship;
+import com.space.repository.ShipRepository;
+import com.space.service.ReadConsistency;
+import com.space.service.ShipChangeListener;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.text.Normalizer;
+import java.util.*;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Trigram posting lists over ship names and planets. A substring term of three or more characters
+ * is turned into the sorted ids of the ships containing all of its trigrams, a superset of the
+ * LIKE '%term%' matches that is used to narrow the query down to a primary key lookup.
+ * Trigrams are taken from lowercased, accent-stripped text so the candidates also cover
+ * case- and accent-insensitive collations. Loads work like FleetIndex's: the table is scanned into
+ * fresh posting lists outside the lock, which are swapped in only if no delta arrived meanwhile.
+ */
+@Component
+public class TrigramIndex implements ShipChangeListener {
+
+    private static final long[] NO_IDS = new long[0];
+    private static final int MAX_LOAD_ATTEMPTS = 3;
+
+    @Autowired
+    private ShipRepository shipRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private ReadConsistency readConsistency;
+
+    @Value("${ships.trigram.max-candidates:1000}")
+    private int maxCandidates;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Object loadLock = new Object();
+    // Guarded by lock, like changes, which is bumped with each delta.
+    private final Postings names = new Postings();
+    private final Postings planets = new Postings();
+    private boolean loaded;
+    private long changes;
+
+    // Returns null when the term can't be answered from the index and the LIKE predicate has to do all the work.
+    public long[] findNameCandidates(String term) {
+        return find(names, term);
+    }
+
+    public long[] findPlanetCandidates(String term) {
+        return find(planets, term);
+    }
+
+    @Override
+    public void shipSaved(Ship previous, Ship current) {
+        lock.writeLock().lock();
+        try {
+            changes++;
+            if (!loaded) {
+                return;
+            }
+            if (previous != null) {
+                names.remove(previous.getId(), previous.getName());
+                planets.remove(previous.getId(), previous.getPlanet());
+            }
+            names.add(current.getId(), current.getName());
+            planets.add(current.getId(), current.getPlanet());
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void shipDeleted(Ship previous) {
+        lock.writeLock().lock();
+        try {
+            changes++;
+            if (!loaded) {
+                return;
+            }
+            names.remove(previous.getId(), previous.getName());
+            planets.remove(previous.getId(), previous.getPlanet());
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void shipsChanged() {
+        lock.writeLock().lock();
+        try {
+            changes++;
+            clear();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private long[] find(Postings postings, String term) {
+        if (term == null || !isIndexable(term)) {
+            return null;
+        }
+        long[] candidates;
+        lock.readLock().lock();
+        try {
+            if (!loaded) {
+                lock.readLock().unlock();
+                try {
+                    load();
+                } finally {
+                    lock.readLock().lock();
+                }
+                // Still not loaded when writes kept racing with the scan, or a shipsChanged() followed it.
+                if (!loaded) {
+                    return null;
+                }
+            }
+            candidates = postings.intersect(fold(term));
+        } finally {
+            lock.readLock().unlock();
+        }
+        return candidates.length > maxCandidates ? null : candidates;
+    }
+
+    // Wildcards inside the term would match across trigram boundaries.
+    static boolean isIndexable(String term) {
+        return term.indexOf('%') < 0 && term.indexOf('_') < 0 && term.indexOf('\\') < 0
+                && fold(term).length() >= 3;
+    }
+
+    static String fold(String value) {
+        String decomposed = Normalizer.normalize(value, Normalizer.Form.NFD);
+        StringBuilder folded = new StringBuilder(decomposed.length());
+        for (int i = 0; i < decomposed.length(); i++) {
+            char c = decomposed.charAt(i);
+            if (Character.getType(c) != Character.NON_SPACING_MARK) {
+                folded.append(Character.toLowerCase(c));
+            }
+        }
+        return folded.toString();
+    }
+
+    private static long trigram(String folded, int start) {
+        return ((long) folded.charAt(start) << 32) | ((long) folded.charAt(start + 1) << 16) | folded.charAt(start + 2);
+    }
+
+    private static Set<Long> trigrams(String folded) {
+        Set<Long> trigrams = new HashSet<>();
+        for (int i = 0; i + 3 <= folded.length(); i++) {
+            trigrams.add(trigram(folded, i));
+        }
+        return trigrams;
+    }
+
+    private void load() {
+        synchronized (loadLock) {
+            for (int attempt = 0; attempt < MAX_LOAD_ATTEMPTS; attempt++) {
+                long before;
+                lock.readLock().lock();
+                try {
+                    if (loaded) {
+                        return;
+                    }
+                    before = changes;
+                } finally {
+                    lock.readLock().unlock();
+                }
+                Postings loadedNames = new Postings();
+                Postings loadedPlanets = new Postings();
+                // See FleetIndex.scan.
+                readConsistency.onPrimary(() -> loadTransaction().execute(status -> {
+                    shipRepository.scan(null, Sort.unsorted(), ship -> {
+                        loadedNames.add(ship.getId(), ship.getName());
+                        loadedPlanets.add(ship.getId(), ship.getPlanet());
+                    });
+                    return null;
+                }));
+                lock.writeLock().lock();
+                try {
+                    if (changes == before) {
+                        names.replaceWith(loadedNames);
+                        planets.replaceWith(loadedPlanets);
+                        loaded = true;
+                        return;
+                    }
+                } finally {
+                    lock.writeLock().unlock();
+                }
+            }
+        }
+    }
+
+    private TransactionTemplate loadTransaction() {
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        transactionTemplate.setReadOnly(true);
+        return transactionTemplate;
+    }
+
+    private void clear() {
+        loaded = false;
+        names.clear();
+        planets.clear();
+    }
+
+    private static class Postings {
+        private Map<Long, PostingList> byTrigram = new HashMap<>();
+
+        void replaceWith(Postings loaded) {
+            byTrigram = loaded.byTrigram;
+        }
+
+        void add(Long id, String value) {
+            if (value == null) {
+                return;
+            }
+            for (Long trigram : trigrams(fold(value))) {
+                byTrigram.computeIfAbsent(trigram, key -> new PostingList()).add(id);
+            }
+        }
+
+        void remove(Long id, String value) {
+            if (value == null) {
+                return;
+            }
+            for (Long trigram : trigrams(fold(value))) {
+                PostingList list = byTrigram.get(trigram);
+                if (list != null && list.remove(id) && list.size == 0) {
+                    byTrigram.remove(trigram);
+                }
+            }
+        }
+
+        long[] intersect(String folded) {
+            List<PostingList> lists = new ArrayList<>();
+            for (Long trigram : trigrams(folded)) {
+                PostingList list = byTrigram.get(trigram);
+                if (list == null) {
+                    return NO_IDS;
+                }
+                lists.add(list);
+            }
+            // Start from the rarest trigram so every following step only probes a short list.
+            lists.sort(Comparator.comparingInt(list -> list.size));
+            long[] result = Arrays.copyOf(lists.get(0).ids, lists.get(0).size);
+            int resultSize = result.length;
+            for (int i = 1; i < lists.size() && resultSize > 0; i++) {
+                PostingList list = lists.get(i);
+                int kept = 0;
+                for (int j = 0; j < resultSize; j++) {
+                    if (Arrays.binarySearch(list.ids, 0, list.size, result[j]) >= 0) {
+                        result[kept++] = result[j];
+                    }
+                }
+                resultSize = kept;
+            }
+            return resultSize == result.length ? result : Arrays.copyOf(result, resultSize);
+        }
+
+        void clear() {
+            byTrigram.clear();
+        }
+    }
+
+    // Sorted, duplicate-free ids.
+    private static class PostingList {
+        private long[] ids = new long[4];
+        private int size;
+
+        void add(long id) {
+            int position = Arrays.binarySearch(ids, 0, size, id);
+            if (position >= 0) {
+                return;
+            }
+            position = -position - 1;
+            if (size == ids.length) {
+                ids = Arrays.copyOf(ids, size * 2);
+            }
+            System.arraycopy(ids, position, ids, position + 1, size - position);
+            ids[position] = id;
+            size++;
+        }
+
+        boolean remove(long id) {
+            int position = Arrays.binarySearch(ids, 0, size, id);
+            if (position < 0) {
+                return false;
+            }
+            System.arraycopy(ids, position + 1, ids, position, size - position - 1);
+            size--;
+            return true;
+        }
+    }
+}
@@ -0,0 +1,206 @@
+package com.space.service.impl;
+
+import com.space.metrics.MetricsSource;
+import com.space.metrics.PrometheusWriter;
+import com.space.model.Ship;
+import com.space.service.FleetVersion;
+import com.space.service.RatingCalculator;
+import com.space.service.ReadConsistency;
+import com.space.service.ShipService;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TimeZone;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Write-behind for POST /rest/ships/{id}: the first update to a ship opens a window of ships.write-behind.window-ms,
+ * the updates received within it are merged (later non-null fields win) and written by one ShipService.updateShip
+ * call, and every caller's future completes with the merged ship once that transaction has committed. Ships are
+ * spread over ships.write-behind.flush-threads single-threaded flushers by id, so different ships commit in
+ * parallel while the merged writes of one ship commit in the order they were received.
+ * <p>
+ * Until its write commits, a merged update is laid over point reads (see overlay), so GET /rest/ships/{id} shows
+ * it as soon as it is accepted. The flush runs without the callers' requests, so once it commits their clients
+ * are recorded as writers themselves (ReadConsistency), and their next reads don't go to a lagging replica.
+ */
+@Component
+public class UpdateCoalescer implements MetricsSource, InitializingBean, DisposableBean {
+
+    @Autowired
+    private ShipService service;
+
+    @Autowired
+    private FleetVersion fleetVersion;
+
+    @Autowired
+    private ReadConsistency readConsistency;
+
+    @Value("${ships.write-behind.enabled:false}")
+    private boolean enabled;
+
+    @Value("${ships.write-behind.window-ms:50}")
+    private long windowMs;
+
+    @Value("${ships.write-behind.flush-threads:8}")
+    private int flushThreads;
+
+    // Updates waiting for the next flush, and the ones the flush is writing right now.
+    private final Map<Long, Pending> pending = new ConcurrentHashMap<>();
+    private final Map<Long, Pending> flushing = new ConcurrentHashMap<>();
+    private final RatingCalculator ratingCalculator = new RatingCalculator(TimeZone.getDefault());
+    private final LongAdder submitted = new LongAdder();
+    private final LongAdder flushed = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+    private ScheduledExecutorService[] flushers;
+
+    @Override
+    public void afterPropertiesSet() {
+        if (!enabled) {
+            return;
+        }
+        flushers = new ScheduledExecutorService[flushThreads];
+        for (int i = 0; i < flushers.length; i++) {
+            String name = "ship-write-behind-" + (i + 1);
+            flushers[i] = Executors.newSingleThreadScheduledExecutor(task -> {
+                Thread thread = new Thread(task, name);
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+    }
+
+    @Override
+    public void destroy() throws InterruptedException {
+        if (flushers != null) {
+            // Windows already open are still flushed, so no caller is left waiting.
+            for (ScheduledExecutorService flusher : flushers) {
+                flusher.shutdown();
+            }
+            for (ScheduledExecutorService flusher : flushers) {
+                flusher.awaitTermination(windowMs + 5000, TimeUnit.MILLISECONDS);
+            }
+            pending.keySet().forEach(this::flush);
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    // Completes with the updated ship, or null for an unknown id, once the merged write has committed.
+    public CompletableFuture<Ship> submit(Long id, Ship patch) {
+        CompletableFuture<Ship> future = new CompletableFuture<>();
+        Waiter waiter = new Waiter(future, ReadConsistency.currentClient());
+        pending.compute(id, (key, current) -> {
+            List<Waiter> waiters = current == null ? new ArrayList<>() : current.waiters;
+            Ship merged = current == null ? new Ship() : ShipServiceImpl.copyOf(current.patch);
+            ShipServiceImpl.applyPatch(merged, patch);
+            waiters.add(waiter);
+            if (current == null) {
+                flushers[Math.floorMod(key.hashCode(), flushers.length)]
+                        .schedule(() -> flush(key), windowMs, TimeUnit.MILLISECONDS);
+            }
+            // A new Pending per merge, so readers never see a half-applied patch.
+            return new Pending(merged, waiters);
+        });
+        // Point reads show the merged patch from now on, so their ETags have to change now too.
+        fleetVersion.advance();
+        submitted.increment();
+        return future;
+    }
+
+    // The fields not yet committed for the ship, or null. Taken before the ship is read, so an update that commits
+    // in between is either in the row or in the patch.
+    public Ship pendingPatch(Long id) {
+        Pending waiting = pending.get(id);
+        Pending writing = flushing.get(id);
+        if (waiting == null && writing == null) {
+            return null;
+        }
+        Ship patch = new Ship();
+        if (writing != null) {
+            ShipServiceImpl.applyPatch(patch, writing.patch);
+        }
+        if (waiting != null) {
+            ShipServiceImpl.applyPatch(patch, waiting.patch);
+        }
+        return patch;
+    }
+
+    // A copy of the ship with the patch applied and its rating recomputed.
+    public Ship overlay(Ship ship, Ship patch) {
+        Ship copy = ShipServiceImpl.copyOf(ship);
+        ShipServiceImpl.applyPatch(copy, patch);
+        copy.setRating(ratingCalculator.rating(copy.getProdDate().getTime(), copy.getUsed(), copy.getSpeed(),
+                service.getRatingReferenceYear()));
+        return copy;
+    }
+
+    private void flush(Long id) {
+        // Moved under the key's lock, so a concurrent read finds the patch in one map or the other.
+        pending.computeIfPresent(id, (key, waiting) -> {
+            flushing.put(key, waiting);
+            return null;
+        });
+        Pending batch = flushing.get(id);
+        if (batch == null) {
+            return;
+        }
+        try {
+            Ship updated = service.updateShip(id, batch.patch);
+            flushed.increment();
+            for (Waiter waiter : batch.waiters) {
+                if (waiter.client != null) {
+                    readConsistency.recordWrite(waiter.client);
+                }
+            }
+            batch.waiters.forEach(waiter -> waiter.future.complete(updated));
+        } catch (RuntimeException e) {
+            failed.increment();
+            batch.waiters.forEach(waiter -> waiter.future.completeExceptionally(e));
+        } finally {
+            flushing.remove(id);
+        }
+    }
+
+    @Override
+    public void writeTo(PrometheusWriter writer) {
+        writer.gauge("ships_write_behind_pending", "Ships with updates waiting for the next flush.", null, pending.size());
+        writer.counter("ships_write_behind_submitted_total", "Updates accepted for write-behind.", null, submitted.sum());
+        writer.counter("ships_write_behind_flushes_total", "Merged updates written, one per ship per window.", null, flushed.sum());
+        writer.counter("ships_write_behind_failures_total", "Merged updates whose transaction failed.", null, failed.sum());
+    }
+
+    private static class Pending {
+        private final Ship patch;
+        private final List<Waiter> waiters;
+
+        private Pending(Ship patch, List<Waiter> waiters) {
+            this.patch = patch;
+            this.waiters = waiters;
+        }
+    }
+
+    private static class Waiter {
+        private final CompletableFuture<Ship> future;
+        // The submitting request's client, null for callers outside a request.
+        private final String client;
+
+        private Waiter(CompletableFuture<Ship> future, String client) {
+            this.future = future;
+            this.client = client;
+        }
+    }
+}
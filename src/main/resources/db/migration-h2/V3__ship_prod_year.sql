@@ -0,0 +1,8 @@
+-- H2 has no partitioning: the dev database only gets the prodYear column of the MySQL V3 migration.
+-- test.sql already creates it.
+ALTER TABLE ship
+    ADD COLUMN IF NOT EXISTS prodYear SMALLINT NOT NULL DEFAULT 0;
+
+UPDATE ship
+SET prodYear = YEAR(prodDate)
+WHERE prodDate IS NOT NULL;
@@ -0,0 +1,28 @@
+-- Range partitions by production year, kept in prodYear by the Ship entity (0 for ships without a prodDate).
+-- The prodDate filters of GET /rest/ships also bound prodYear, so MySQL reads only the partitions they cover;
+-- updates that change prodDate move the row to its new partition.
+-- MySQL requires the partitioning column in every unique key, so it joins the primary key. id stays unique
+-- through AUTO_INCREMENT, but a lookup by id alone now probes each partition's primary key.
+ALTER TABLE ship
+    ADD COLUMN prodYear SMALLINT NOT NULL DEFAULT 0 AFTER prodDate;
+
+UPDATE ship
+SET prodYear = YEAR(prodDate)
+WHERE prodDate IS NOT NULL;
+
+ALTER TABLE ship
+    DROP PRIMARY KEY,
+    ADD PRIMARY KEY (id, prodYear);
+
+-- Nearly all operational queries look at recent decades, so those partitions are the narrowest.
+ALTER TABLE ship
+    PARTITION BY RANGE (prodYear) (
+        PARTITION p_2900 VALUES LESS THAN (2900),
+        PARTITION p_2950 VALUES LESS THAN (2950),
+        PARTITION p_2980 VALUES LESS THAN (2980),
+        PARTITION p_2990 VALUES LESS THAN (2990),
+        PARTITION p_3000 VALUES LESS THAN (3000),
+        PARTITION p_3010 VALUES LESS THAN (3010),
+        PARTITION p_3020 VALUES LESS THAN (3020),
+        PARTITION p_max VALUES LESS THAN MAXVALUE
+        );
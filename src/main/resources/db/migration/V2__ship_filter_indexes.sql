@@ -0,0 +1,13 @@
+-- Indexes for the filter and order combinations of GET /rest/ships.
+-- Equality filters (shipType, isUsed) lead, followed by one range or ORDER BY column.
+-- InnoDB appends the primary key to every secondary index, so each one is also ordered
+-- by (column, id) for keyset pagination and covers COUNT(id) for /rest/ships/count.
+-- FilterShapeRecorder mirrors this list when it reports which index serves a request.
+CREATE INDEX idx_ship_type_used_rating ON ship (shipType, isUsed, rating);
+CREATE INDEX idx_ship_type_used_speed ON ship (shipType, isUsed, speed);
+CREATE INDEX idx_ship_type_used_prod_date ON ship (shipType, isUsed, prodDate);
+CREATE INDEX idx_ship_used_rating ON ship (isUsed, rating);
+CREATE INDEX idx_ship_rating ON ship (rating);
+CREATE INDEX idx_ship_speed ON ship (speed);
+CREATE INDEX idx_ship_prod_date ON ship (prodDate);
+CREATE INDEX idx_ship_crew_size ON ship (crewSize);
@@ -0,0 +1,8 @@
+-- Settings changed at runtime that have to outlive a restart, one row per name.
+-- rating.reference-year is written by POST /rest/admin/rerate and read by ShipService at startup.
+CREATE TABLE setting
+(
+    name         VARCHAR(64)  NOT NULL,
+    settingValue VARCHAR(255) NOT NULL,
+    PRIMARY KEY (name)
+);
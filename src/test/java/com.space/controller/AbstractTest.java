@@ -3,11 +3,13 @@ package com.space.controller;
 import com.space.config.AppConfig;
 import com.space.config.MyWebAppInit;
 import com.space.config.WebConfig;
+import com.space.service.ShipChangeListener;
 import org.junit.Before;
 import org.junit.runner.RunWith;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.TestPropertySource;
 import org.springframework.test.context.jdbc.Sql;
 import org.springframework.test.context.jdbc.SqlConfig;
 import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
@@ -16,16 +18,23 @@ import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.setup.MockMvcBuilders;
 import org.springframework.web.context.WebApplicationContext;
 
+import java.util.List;
+
 @RunWith(SpringJUnit4ClassRunner.class)
 @ActiveProfiles("dev")
 @ContextConfiguration(classes = {AppConfig.class, MyWebAppInit.class, WebConfig.class})
 @WebAppConfiguration
 @Sql(scripts = "classpath:test.sql", config = @SqlConfig(encoding = "UTF-8"))
+// MockMvc requests come from 127.0.0.1; RateLimitTest limits other addresses and configured API keys.
+@TestPropertySource(properties = "ships.rate-limit.exempt-clients=127.0.0.1")
 public abstract class AbstractTest {
 
     WebApplicationContext context;
     MockMvc mockMvc;
 
+    @Autowired
+    private List<ShipChangeListener> shipChangeListeners;
+
     @Autowired
     public void setContext(WebApplicationContext context) {
         this.context = context;
@@ -33,6 +42,8 @@ public abstract class AbstractTest {
 
     @Before
     public void setup() {
+        // test.sql rewrites the ship table behind the application's back.
+        shipChangeListeners.forEach(ShipChangeListener::shipsChanged);
         mockMvc = MockMvcBuilders.webAppContextSetup(context).build();
     }
 }
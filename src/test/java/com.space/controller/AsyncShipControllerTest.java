@@ -0,0 +1,147 @@
+package com.space.controller;
+
+import com.space.controller.utils.TestsHelper;
+import com.space.service.QueryExecutor;
+import org.junit.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockAsyncContext;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.web.servlet.MvcResult;
+
+import javax.servlet.AsyncEvent;
+import javax.servlet.AsyncListener;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+
+import static org.springframework.test.util.AssertionErrors.assertEquals;
+import static org.springframework.test.util.AssertionErrors.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@TestPropertySource(properties = {"ships.async.pool-size=1", "ships.async.queue-capacity=1"})
+public class AsyncShipControllerTest extends AbstractTest {
+
+    @Autowired
+    private QueryExecutor queryExecutor;
+
+    //test1
+    @Test
+    public void asyncListMatchesSyncList() throws Exception {
+        String uri = "/rest/ships?planet=ur&order=SPEED&pageSize=5";
+        String expected = mockMvc.perform(get(uri).accept(MediaType.APPLICATION_JSON_UTF8))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+
+        MvcResult mvcResult = mockMvc.perform(get("/rest/async" + uri.substring("/rest".length()))
+                .accept(MediaType.APPLICATION_JSON_UTF8))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        String actual = mockMvc.perform(asyncDispatch(mvcResult))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+
+        assertEquals("GET /rest/async/ships возвращает не тот же результат, что GET /rest/ships.", expected, actual);
+    }
+
+    //test2
+    @Test
+    public void asyncCount() throws Exception {
+        MvcResult mvcResult = mockMvc.perform(get("/rest/async/ships/count?isUsed=true"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        String actual = mockMvc.perform(asyncDispatch(mvcResult))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+
+        TestsHelper testsHelper = new TestsHelper();
+        int expected = testsHelper.getShipInfosByIsUsed(true, testsHelper.getAllShips()).size();
+        assertEquals("GET /rest/async/ships/count возвращает не правильный результат.", expected, Integer.parseInt(actual));
+    }
+
+    //test3
+    @Test
+    public void asyncGetUnknownShip() throws Exception {
+        MvcResult mvcResult = mockMvc.perform(get("/rest/async/ships/1000"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        mockMvc.perform(asyncDispatch(mvcResult))
+                .andExpect(status().isNotFound());
+    }
+
+    //test4
+    @Test
+    public void fullQueueIsRejected() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        try {
+            // one task on the only thread, one in the queue
+            occupyThread(release);
+            queryExecutor.submit(() -> await(release));
+
+            mockMvc.perform(get("/rest/async/ships/1"))
+                    .andExpect(status().isServiceUnavailable());
+        } finally {
+            release.countDown();
+            drain();
+        }
+
+        String metrics = mockMvc.perform(get("/rest/metrics")).andReturn().getResponse().getContentAsString();
+        assertTrue("В метриках нет числа отклонённых запросов.", metrics.contains("ships_async_rejected_total"));
+        assertTrue("В метриках нет глубины очереди.", metrics.contains("ships_async_queue_depth"));
+    }
+
+    //test5
+    @Test
+    public void slowQueryTimesOut() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        try {
+            occupyThread(release);
+
+            MvcResult mvcResult = mockMvc.perform(get("/rest/async/ships/1"))
+                    .andExpect(request().asyncStarted())
+                    .andReturn();
+            MockAsyncContext asyncContext = (MockAsyncContext) mvcResult.getRequest().getAsyncContext();
+            for (AsyncListener listener : asyncContext.getListeners()) {
+                listener.onTimeout(new AsyncEvent(asyncContext));
+            }
+            mockMvc.perform(asyncDispatch(mvcResult))
+                    .andExpect(status().isServiceUnavailable());
+        } finally {
+            release.countDown();
+            drain();
+        }
+    }
+
+    // The task may sit in the queue until the idle thread takes it, so wait until it runs.
+    private void occupyThread(CountDownLatch release) throws InterruptedException {
+        CountDownLatch started = new CountDownLatch(1);
+        queryExecutor.submit(() -> {
+            started.countDown();
+            return await(release);
+        });
+        started.await();
+    }
+
+    // With a single thread, a task that completes means every task queued before it has completed too.
+    private void drain() throws InterruptedException {
+        while (true) {
+            try {
+                queryExecutor.submit(() -> null).join();
+                return;
+            } catch (RejectedExecutionException e) {
+                Thread.sleep(10);
+            }
+        }
+    }
+
+    private static Object await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return null;
+    }
+}
@@ -0,0 +1,89 @@
+package com.space.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.space.model.ShipView;
+import org.junit.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.io.ByteArrayInputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.springframework.test.util.AssertionErrors.assertEquals;
+import static org.springframework.test.util.AssertionErrors.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+public class BinaryFormatsTest extends AbstractTest {
+
+    private static final String PAGE = "/rest/ships?pageSize=20";
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    //test1
+    @Test
+    public void smileAndCborMatchJson() throws Exception {
+        String json = perform(PAGE, MediaType.APPLICATION_JSON_UTF8_VALUE).getContentAsString();
+
+        MockHttpServletResponse smile = perform(PAGE, "application/x-jackson-smile");
+        assertTrue("Неверный Content-Type ответа в Smile.", MediaType.parseMediaType("application/x-jackson-smile")
+                .isCompatibleWith(MediaType.parseMediaType(smile.getContentType())));
+        assertEquals("Ответ в Smile отличается от JSON.", json,
+                objectMapper.writeValueAsString(new ObjectMapper(new SmileFactory()).readTree(smile.getContentAsByteArray())));
+
+        MockHttpServletResponse cbor = perform(PAGE, "application/cbor");
+        assertTrue("Неверный Content-Type ответа в CBOR.", MediaType.parseMediaType("application/cbor")
+                .isCompatibleWith(MediaType.parseMediaType(cbor.getContentType())));
+        assertEquals("Ответ в CBOR отличается от JSON.", json,
+                objectMapper.writeValueAsString(new ObjectMapper(new CBORFactory()).readTree(cbor.getContentAsByteArray())));
+    }
+
+    //test2
+    @Test
+    public void shipRowsMatchJson() throws Exception {
+        MockHttpServletResponse json = perform(PAGE, MediaType.APPLICATION_JSON_UTF8_VALUE);
+        MockHttpServletResponse rows = perform(PAGE, ShipRows.CONTENT_TYPE);
+
+        assertEquals("Неверный Content-Type ответа в x-ship-rows.", ShipRows.CONTENT_TYPE, rows.getContentType());
+        List<ShipView> ships = ShipRows.read(new ByteArrayInputStream(rows.getContentAsByteArray()));
+        assertEquals("Ответ в x-ship-rows отличается от JSON.", json.getContentAsString(), objectMapper.writeValueAsString(ships));
+        assertTrue("Ответ в x-ship-rows должен быть меньше JSON.",
+                rows.getContentAsByteArray().length < json.getContentAsByteArray().length / 2);
+    }
+
+    //test3
+    @Test
+    public void exportShipRowsMatchNdjson() throws Exception {
+        MockHttpServletResponse ndjson = perform("/rest/ships/export?order=SPEED", "*/*");
+        MockHttpServletResponse rows = perform("/rest/ships/export?order=SPEED&format=ROWS", "*/*");
+
+        List<String> expected = Arrays.asList(ndjson.getContentAsString().split("\n"));
+        List<String> actual = new ArrayList<>();
+        for (ShipView ship : ShipRows.read(new ByteArrayInputStream(rows.getContentAsByteArray()))) {
+            actual.add(objectMapper.writeValueAsString(ship));
+        }
+        assertEquals("Выгрузка в x-ship-rows отличается от NDJSON.", expected, actual);
+    }
+
+    //test4
+    @Test
+    public void jsonStaysDefault() throws Exception {
+        MockHttpServletResponse response = mockMvc.perform(get(PAGE))
+                .andExpect(status().isOk())
+                .andReturn().getResponse();
+        assertTrue("Без заголовка Accept ответ должен быть в JSON.",
+                MediaType.APPLICATION_JSON.isCompatibleWith(MediaType.parseMediaType(response.getContentType())));
+    }
+
+    private MockHttpServletResponse perform(String url, String accept) throws Exception {
+        return mockMvc.perform(get(url).accept(accept))
+                .andExpect(status().isOk())
+                .andReturn().getResponse();
+    }
+}
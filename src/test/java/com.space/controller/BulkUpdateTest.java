@@ -0,0 +1,96 @@
+package com.space.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.space.controller.utils.ShipInfoTest;
+import com.space.controller.utils.TestsHelper;
+import com.space.model.ShipType;
+import org.junit.Test;
+import org.springframework.http.MediaType;
+
+import java.util.List;
+
+import static org.springframework.test.util.AssertionErrors.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+public class BulkUpdateTest extends AbstractTest {
+
+    private TestsHelper testsHelper = new TestsHelper();
+    private ObjectMapper mapper = new ObjectMapper();
+
+    //test1
+    @Test
+    public void patchSpeedRecomputesRatingLikeUpdate() throws Exception {
+        assertPatchRatesLikeUpdate("{\"speed\":0.47}");
+    }
+
+    //test2
+    @Test
+    public void patchProdDateAndIsUsedRecomputesRatingLikeUpdate() throws Exception {
+        // 3000-07-01
+        assertPatchRatesLikeUpdate("{\"prodDate\":32519232000000,\"isUsed\":true,\"crewSize\":77}");
+    }
+
+    //test3
+    @Test
+    public void deleteByFilter() throws Exception {
+        List<ShipInfoTest> expected = testsHelper.getShipInfosByShipType(ShipType.TRANSPORT, testsHelper.getAllShips());
+
+        String content = mockMvc.perform(delete("/rest/ships?shipType=TRANSPORT"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+
+        assertEquals("Неверное количество удалённых кораблей.", expected.size(), mapper.readTree(content).get("affected").asInt());
+        String count = mockMvc.perform(get("/rest/ships/count?shipType=TRANSPORT"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        assertEquals("Удалённые корабли всё ещё считаются.", "0", count);
+        mockMvc.perform(get("/rest/ships/" + expected.get(0).id)).andExpect(status().isNotFound());
+    }
+
+    //test4
+    @Test
+    public void bulkWithoutFilterIsRejected() throws Exception {
+        mockMvc.perform(delete("/rest/ships")).andExpect(status().isBadRequest());
+        mockMvc.perform(patch("/rest/ships")
+                .contentType(MediaType.APPLICATION_JSON_UTF8)
+                .content("{\"speed\":0.5}"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(patch("/rest/ships?shipType=MILITARY")
+                .contentType(MediaType.APPLICATION_JSON_UTF8)
+                .content("{}"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(patch("/rest/ships?shipType=MILITARY")
+                .contentType(MediaType.APPLICATION_JSON_UTF8)
+                .content("{\"speed\":1.5}"))
+                .andExpect(status().isBadRequest());
+    }
+
+    // Applies the patch to every military ship at once, then to each ship through POST /rest/ships/{id},
+    // which rates it in Java: the ratings must not change.
+    private void assertPatchRatesLikeUpdate(String patch) throws Exception {
+        List<ShipInfoTest> military = testsHelper.getShipInfosByShipType(ShipType.MILITARY, testsHelper.getAllShips());
+
+        String content = mockMvc.perform(patch("/rest/ships?shipType=MILITARY")
+                .contentType(MediaType.APPLICATION_JSON_UTF8)
+                .content(patch))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        assertEquals("Неверное количество изменённых кораблей.", military.size(), mapper.readTree(content).get("affected").asInt());
+
+        for (ShipInfoTest ship : military) {
+            ShipInfoTest bulk = mapper.readValue(mockMvc.perform(get("/rest/ships/" + ship.id))
+                    .andExpect(status().isOk())
+                    .andReturn().getResponse().getContentAsString(), ShipInfoTest.class);
+            ShipInfoTest single = mapper.readValue(mockMvc.perform(post("/rest/ships/" + ship.id)
+                    .contentType(MediaType.APPLICATION_JSON_UTF8)
+                    .content(patch))
+                    .andExpect(status().isOk())
+                    .andReturn().getResponse().getContentAsString(), ShipInfoTest.class);
+            assertEquals("Массовое обновление изменило корабль " + ship.id + " не так, как обновление по id.", single, bulk);
+        }
+    }
+}
@@ -0,0 +1,79 @@
+package com.space.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.space.model.ShipType;
+import com.space.service.ShipFilter;
+import com.space.service.ShipService;
+import org.junit.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.springframework.test.util.AssertionErrors.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+public class CompiledQueryTest extends AbstractTest {
+
+    private ObjectMapper mapper = new ObjectMapper();
+
+    @Autowired
+    private ShipService service;
+
+    //test1
+    @Test
+    public void compiledQueryMatchesSpecification() throws Exception {
+        List<ShipFilter> filters = Arrays.asList(
+                new ShipFilter(),
+                new ShipFilter(null, null, ShipType.MILITARY, null, null, false, null, null, null, null, 1., null),
+                new ShipFilter("ion", "ar", null, null, null, true, 0.1, 0.9, 10, 5000, 0.5, 3.),
+                new ShipFilter("Eagle", null, null, 32503680000000L, 32661446400000L, null, null, null, null, null, null, null),
+                new ShipFilter("zzzz", null, null, null, null, null, null, null, null, null, null, null),
+                new ShipFilter(null, "ur", ShipType.TRANSPORT, null, null, null, null, 0.8, 100, null, null, 2.5));
+        for (ShipFilter filter : filters) {
+            for (String order : new String[]{"id", "speed", "prodDate", "rating"}) {
+                // Ties are unordered in both paths, so the pages are compared with id as a tiebreaker.
+                Pageable page = PageRequest.of(1, 4, Sort.by(order, "id"));
+                String describe = ShipFilter.describeShape(filter.getShape()) + " по " + order;
+                assertEquals("Скомпилированный запрос вернул не те корабли: " + describe + ".",
+                        mapper.writeValueAsString(service.getAll(service.getSpecification(filter), page)),
+                        mapper.writeValueAsString(service.getAllWithCompiledQuery(filter, page)));
+            }
+            assertEquals("Скомпилированный запрос вернул не то количество: " + ShipFilter.describeShape(filter.getShape()) + ".",
+                    service.countShips(service.getSpecification(filter)), service.countShipsWithCompiledQuery(filter));
+        }
+    }
+
+    //test2
+    @Test
+    public void sameShapeIsCompiledOnce() throws Exception {
+        mockMvc.perform(get("/rest/ships/count?shipType=MERCHANT&minCrewSize=123")).andExpect(status().isOk());
+        String before = metrics();
+        mockMvc.perform(get("/rest/ships/count?shipType=MILITARY&minCrewSize=456")).andExpect(status().isOk());
+        String after = metrics();
+
+        assertEquals("Запрос той же формы должен браться из кэша.", 1.,
+                value(after, "ships_query_cache_hits_total") - value(before, "ships_query_cache_hits_total"));
+        assertEquals("Запрос той же формы не должен компилироваться заново.", 0.,
+                value(after, "ships_query_cache_misses_total") - value(before, "ships_query_cache_misses_total"));
+    }
+
+    private String metrics() throws Exception {
+        return mockMvc.perform(get("/rest/metrics"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+    }
+
+    private static double value(String metrics, String sample) {
+        for (String line : metrics.split("\n")) {
+            if (line.startsWith(sample + " ")) {
+                return Double.parseDouble(line.substring(sample.length() + 1));
+            }
+        }
+        return 0;
+    }
+}
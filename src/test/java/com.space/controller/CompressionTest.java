@@ -0,0 +1,129 @@
+package com.space.controller;
+
+import org.junit.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.DelegatingServletOutputStream;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.util.StreamUtils;
+import org.springframework.web.servlet.resource.ResourceUrlProvider;
+
+import javax.servlet.ServletOutputStream;
+import javax.servlet.WriteListener;
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+
+import static org.springframework.test.util.AssertionErrors.assertEquals;
+import static org.springframework.test.util.AssertionErrors.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+public class CompressionTest extends AbstractTest {
+
+    @Autowired
+    private CompressionFilter compressionFilter;
+
+    @Autowired
+    private ResourceUrlProvider resourceUrlProvider;
+
+    //test1
+    @Test
+    public void largeResponseIsGzipped() throws Exception {
+        MockMvc filtered = MockMvcBuilders.webAppContextSetup(context).addFilters(compressionFilter).build();
+        String plain = mockMvc.perform(get("/rest/ships?pageSize=40"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+
+        MockHttpServletResponse gzipped = filtered.perform(get("/rest/ships?pageSize=40")
+                .header(HttpHeaders.ACCEPT_ENCODING, "gzip, deflate"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.CONTENT_ENCODING, "gzip"))
+                .andReturn().getResponse();
+
+        byte[] body = StreamUtils.copyToByteArray(new GZIPInputStream(new ByteArrayInputStream(gzipped.getContentAsByteArray())));
+        assertEquals("Распакованный ответ отличается от несжатого.", plain, new String(body, StandardCharsets.UTF_8));
+        assertTrue("Сжатый ответ должен быть меньше несжатого.", gzipped.getContentAsByteArray().length < body.length);
+        assertTrue("Ответ должен зависеть от Accept-Encoding.",
+                gzipped.getHeaders(HttpHeaders.VARY).contains(HttpHeaders.ACCEPT_ENCODING));
+        assertTrue("ETag сжатого ответа должен быть слабым.", gzipped.getHeader(HttpHeaders.ETAG).startsWith("W/"));
+    }
+
+    //test2
+    @Test
+    public void smallResponseOrNoAcceptEncodingIsPlain() throws Exception {
+        MockMvc filtered = MockMvcBuilders.webAppContextSetup(context).addFilters(compressionFilter).build();
+
+        MockHttpServletResponse count = filtered.perform(get("/rest/ships/count")
+                .header(HttpHeaders.ACCEPT_ENCODING, "gzip"))
+                .andExpect(status().isOk())
+                .andExpect(header().doesNotExist(HttpHeaders.CONTENT_ENCODING))
+                .andReturn().getResponse();
+        assertEquals("Неверный Content-Length несжатого ответа.", count.getContentAsByteArray().length, count.getContentLength());
+
+        filtered.perform(get("/rest/ships?pageSize=40"))
+                .andExpect(status().isOk())
+                .andExpect(header().doesNotExist(HttpHeaders.CONTENT_ENCODING));
+        filtered.perform(get("/rest/ships?pageSize=40").header(HttpHeaders.ACCEPT_ENCODING, "gzip;q=0"))
+                .andExpect(status().isOk())
+                .andExpect(header().doesNotExist(HttpHeaders.CONTENT_ENCODING));
+    }
+
+    //test3
+    @Test
+    public void resourcesAreVersionedAndImmutable() throws Exception {
+        String url = resourceUrlProvider.getForLookupPath("/resources/scripts.js");
+        assertTrue("URL ресурса должен содержать хэш содержимого.", url.matches("/resources/scripts-[0-9a-f]{32}\\.js"));
+
+        mockMvc.perform(get(url))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.CACHE_CONTROL, "max-age=31536000, public, immutable"));
+        mockMvc.perform(get("/resources/scripts-00000000000000000000000000000000.js"))
+                .andExpect(status().isNotFound());
+    }
+
+    //test4
+    @Test
+    public void nonBlockingWritesBypassTheBuffer() throws Exception {
+        List<WriteListener> listeners = new ArrayList<>();
+        MockHttpServletResponse response = new MockHttpServletResponse() {
+            @Override
+            public ServletOutputStream getOutputStream() {
+                ServletOutputStream stream = super.getOutputStream();
+                return new DelegatingServletOutputStream(stream) {
+                    @Override
+                    public void setWriteListener(WriteListener writeListener) {
+                        listeners.add(writeListener);
+                    }
+                };
+            }
+        };
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/rest/ships/count");
+        request.addHeader(HttpHeaders.ACCEPT_ENCODING, "gzip");
+        WriteListener listener = new WriteListener() {
+            @Override
+            public void onWritePossible() {
+            }
+
+            @Override
+            public void onError(Throwable t) {
+            }
+        };
+
+        compressionFilter.doFilter(request, response, (req, res) -> {
+            res.getOutputStream().setWriteListener(listener);
+            res.getOutputStream().write("42".getBytes(StandardCharsets.UTF_8));
+        });
+
+        assertTrue("Слушатель должен передаваться потоку контейнера.",
+                listeners.size() == 1 && listeners.get(0) == listener);
+        assertEquals("Тело должно отправляться без сжатия.", "42", response.getContentAsString());
+        assertTrue("Ответ не должен сжиматься.", response.getHeader(HttpHeaders.CONTENT_ENCODING) == null);
+    }
+}
@@ -0,0 +1,104 @@
+package com.space.controller;
+
+import com.space.controller.utils.TestsHelper;
+import org.junit.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+
+import static org.springframework.test.util.AssertionErrors.assertEquals;
+import static org.springframework.test.util.AssertionErrors.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+public class ConditionalGetTest extends AbstractTest {
+
+    //test1
+    @Test
+    public void unchangedListIsNotModified() throws Exception {
+        String etag = mockMvc.perform(get("/rest/ships?order=RATING").accept(MediaType.APPLICATION_JSON_UTF8))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        mockMvc.perform(delete("/rest/admin/filter-shapes"));
+        String content = mockMvc.perform(get("/rest/ships?order=RATING")
+                .accept(MediaType.APPLICATION_JSON_UTF8)
+                .header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isNotModified())
+                .andReturn().getResponse().getContentAsString();
+        String shapes = mockMvc.perform(get("/rest/admin/filter-shapes"))
+                .andReturn().getResponse().getContentAsString();
+
+        assertTrue("GET /rest/ships не возвращает ETag.", etag != null);
+        assertEquals("Ответ 304 не должен содержать тело.", "", content);
+        assertEquals("При ответе 304 запрос не должен доходить до контроллера.", "[]", shapes);
+    }
+
+    //test2
+    @Test
+    public void createShipChangesEtag() throws Exception {
+        String etag = mockMvc.perform(get("/rest/ships/count"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        mockMvc.perform(post("/rest/ships/")
+                .contentType(MediaType.APPLICATION_JSON_UTF8)
+                .content(TestsHelper.NORMAL_JSON))
+                .andExpect(status().isOk());
+
+        String content = mockMvc.perform(get("/rest/ships/count").header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+
+        assertEquals("После создания корабля GET /rest/ships/count должен вернуть новое значение.",
+                String.valueOf(new TestsHelper().getAllShips().size() + 1), content);
+    }
+
+    //test3
+    @Test
+    public void pointReadIsNotModifiedUntilUpdate() throws Exception {
+        String etag = mockMvc.perform(get("/rest/ships/2"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        mockMvc.perform(get("/rest/ships/2").header(HttpHeaders.IF_NONE_MATCH, "W/" + etag))
+                .andExpect(status().isNotModified());
+
+        mockMvc.perform(post("/rest/ships/2")
+                .contentType(MediaType.APPLICATION_JSON_UTF8)
+                .content("{\"crewSize\":42}"))
+                .andExpect(status().isOk());
+        mockMvc.perform(get("/rest/ships/2").header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isOk());
+    }
+
+    //test4
+    @Test
+    public void etagDependsOnAccept() throws Exception {
+        String json = mockMvc.perform(get("/rest/ships").accept(MediaType.APPLICATION_JSON))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        String any = mockMvc.perform(get("/rest/ships").accept(MediaType.ALL))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        assertTrue("Для разных Accept должны возвращаться разные ETag.", !json.equals(any));
+    }
+
+    //test5
+    @Test
+    public void wildcardAndErrorsReachHandlerWithoutEtag() throws Exception {
+        mockMvc.perform(get("/rest/ships/9999").header(HttpHeaders.IF_NONE_MATCH, "*"))
+                .andExpect(status().isNotFound())
+                .andExpect(header().doesNotExist(HttpHeaders.ETAG));
+        mockMvc.perform(get("/rest/ships/0"))
+                .andExpect(status().isBadRequest())
+                .andExpect(header().doesNotExist(HttpHeaders.ETAG));
+
+        String content = mockMvc.perform(get("/rest/ships/2").header(HttpHeaders.IF_NONE_MATCH, "*"))
+                .andExpect(status().isOk())
+                .andExpect(header().exists(HttpHeaders.ETAG))
+                .andReturn().getResponse().getContentAsString();
+        assertTrue("If-None-Match: * должен доходить до контроллера.", !content.isEmpty());
+    }
+}
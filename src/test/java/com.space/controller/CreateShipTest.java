@@ -131,4 +131,14 @@ public class CreateShipTest extends AbstractTest {
         ShipInfoTest actual = mapper.readValue(contentAsString, ShipInfoTest.class);
         assertEquals("Возвращается не правильный результат при запросе создания корабля с параметром isUsed.", expected, actual);
     }
-}
\ No newline at end of file
+
+    //test10
+    @Test
+    public void createShipWithUnknownFieldsTest() throws Exception {
+        mockMvc.perform(post("/rest/ships/")
+                .contentType(MediaType.APPLICATION_JSON_UTF8)
+                .accept(MediaType.APPLICATION_JSON_UTF8)
+                .content(TestsHelper.NORMAL_JSON.replace("{", "{\"prodYear\": 3000, \"color\": \"red\", ")))
+                .andExpect(status().isOk());
+    }
+}
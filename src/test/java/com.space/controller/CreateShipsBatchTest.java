@@ -0,0 +1,63 @@
+package com.space.controller;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.space.controller.utils.ShipInfoTest;
+import com.space.controller.utils.TestsHelper;
+import com.space.model.ShipType;
+import org.junit.Test;
+import org.springframework.http.MediaType;
+
+import static org.springframework.test.util.AssertionErrors.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+public class CreateShipsBatchTest extends AbstractTest {
+
+    private ObjectMapper mapper = new ObjectMapper();
+
+    //test1
+    @Test
+    public void createShipsBatchReturnsPerItemResults() throws Exception {
+        String body = "[" + TestsHelper.NORMAL_JSON + "," + TestsHelper.NO_SPEED_JSON + "," + TestsHelper.CORRECT_COMPUTE_RATING_JSON + "]";
+        String contentAsString = mockMvc.perform(post("/rest/ships/batch")
+                .contentType(MediaType.APPLICATION_JSON_UTF8)
+                .accept(MediaType.APPLICATION_JSON_UTF8)
+                .content(body))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+
+        JsonNode results = mapper.readTree(contentAsString);
+        assertEquals("Неверное количество результатов при запросе POST /rest/ships/batch.", 3, results.size());
+        assertEquals("Корректный корабль не создан.", 200, results.get(0).get("status").asInt());
+        assertEquals("Корабль без скорости не отклонён.", 400, results.get(1).get("status").asInt());
+        assertEquals("Корабль без скорости получил id.", true, results.get(1).get("id").isNull());
+        assertEquals("Корректный корабль не создан.", 200, results.get(2).get("status").asInt());
+
+        long id = results.get(2).get("id").asLong();
+        String shipAsString = mockMvc.perform(get("/rest/ships/" + id)
+                .accept(MediaType.APPLICATION_JSON_UTF8))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        ShipInfoTest actual = mapper.readValue(shipAsString, ShipInfoTest.class);
+        ShipInfoTest expected = new ShipInfoTest(id, "test10", "Earth", ShipType.MILITARY, 32872203569853L, true, 0.4, 40, 1.78);
+        assertEquals("Корабль из пакета сохранён неправильно.", expected, actual);
+
+        String count = mockMvc.perform(get("/rest/ships/count")
+                .accept(MediaType.APPLICATION_JSON_UTF8))
+                .andReturn().getResponse().getContentAsString();
+        assertEquals("Неверное количество кораблей после POST /rest/ships/batch.",
+                new TestsHelper().getAllShips().size() + 2, Integer.parseInt(count));
+    }
+
+    //test2
+    @Test
+    public void createShipsEmptyBatch() throws Exception {
+        mockMvc.perform(post("/rest/ships/batch")
+                .contentType(MediaType.APPLICATION_JSON_UTF8)
+                .accept(MediaType.APPLICATION_JSON_UTF8)
+                .content("[]"))
+                .andExpect(status().isOk());
+    }
+}
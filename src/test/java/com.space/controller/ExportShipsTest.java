@@ -0,0 +1,78 @@
+package com.space.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.space.controller.utils.ShipInfoTest;
+import com.space.controller.utils.TestsHelper;
+import org.junit.Test;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.springframework.test.util.AssertionErrors.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+public class ExportShipsTest extends AbstractTest {
+
+    private TestsHelper testsHelper = new TestsHelper();
+    private ObjectMapper mapper = new ObjectMapper();
+
+    //test1
+    @Test
+    public void exportAllAsNdjson() throws Exception {
+        MockHttpServletResponse response = mockMvc.perform(get("/rest/ships/export"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse();
+
+        List<ShipInfoTest> actual = new ArrayList<>();
+        for (String line : response.getContentAsString().split("\n")) {
+            actual.add(mapper.readValue(line, ShipInfoTest.class));
+        }
+
+        assertEquals("Не правильный Content-Type при выгрузке в NDJSON.", "application/x-ndjson", response.getContentType());
+        assertEquals("Выгрузка GET /rest/ships/export возвращает не все корабли.", testsHelper.getAllShips(), actual);
+    }
+
+    //test2
+    @Test
+    public void exportWithFiltersAndOrder() throws Exception {
+        String contentAsString = mockMvc.perform(get("/rest/ships/export?planet=ur&maxSpeed=0.8&order=SPEED"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+
+        List<ShipInfoTest> actual = new ArrayList<>();
+        for (String line : contentAsString.split("\n")) {
+            actual.add(mapper.readValue(line, ShipInfoTest.class));
+        }
+        List<ShipInfoTest> expected = testsHelper.getShipInfosByOrder(ShipOrder.SPEED,
+                testsHelper.getShipInfosByMaxSpeed(0.8,
+                        testsHelper.getShipInfosByPlanet("ur",
+                                testsHelper.getAllShips())));
+
+        assertEquals("Выгрузка с параметрами planet, maxSpeed и order возвращает не правильный результат.", expected, actual);
+    }
+
+    //test3
+    @Test
+    public void exportAsCsv() throws Exception {
+        MockHttpServletResponse response = mockMvc.perform(get("/rest/ships/export?format=CSV&name=Orion"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse();
+
+        ShipInfoTest orion = testsHelper.getShipInfosByName("Orion", testsHelper.getAllShips()).get(0);
+        String expected = "id,name,planet,shipType,prodDate,isUsed,speed,crewSize,rating\r\n" +
+                orion.id + "," + orion.name + "," + orion.planet + "," + orion.shipType + "," + orion.prodDate + "," +
+                orion.isUsed + "," + orion.speed + "," + orion.crewSize + "," + orion.rating + "\r\n";
+
+        assertEquals("Не правильный Content-Type при выгрузке в CSV.", "text/csv;charset=UTF-8", response.getContentType());
+        assertEquals("Выгрузка в CSV возвращает не правильный результат.", expected, response.getContentAsString());
+    }
+
+    //test4
+    @Test
+    public void exportWithUnknownFormat() throws Exception {
+        mockMvc.perform(get("/rest/ships/export?format=XML"))
+                .andExpect(status().isBadRequest());
+    }
+}
@@ -0,0 +1,43 @@
+package com.space.controller;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.Test;
+import org.springframework.http.MediaType;
+
+import static org.springframework.test.util.AssertionErrors.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+public class FilterShapesTest extends AbstractTest {
+
+    private ObjectMapper mapper = new ObjectMapper();
+
+    //test1
+    @Test
+    public void filterShapesAreRecordedWithServingIndex() throws Exception {
+        mockMvc.perform(delete("/rest/admin/filter-shapes")).andExpect(status().isOk());
+        mockMvc.perform(get("/rest/ships?shipType=MILITARY&isUsed=true&order=RATING")
+                .accept(MediaType.APPLICATION_JSON_UTF8));
+        mockMvc.perform(get("/rest/ships?shipType=MERCHANT&isUsed=false&order=RATING&pageNumber=1")
+                .accept(MediaType.APPLICATION_JSON_UTF8));
+        mockMvc.perform(get("/rest/ships?name=or&minCrewSize=100")
+                .accept(MediaType.APPLICATION_JSON_UTF8));
+
+        String contentAsString = mockMvc.perform(get("/rest/admin/filter-shapes")
+                .accept(MediaType.APPLICATION_JSON_UTF8))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        JsonNode shapes = mapper.readTree(contentAsString);
+
+        assertEquals("Неверное количество форм фильтров.", 2, shapes.size());
+        JsonNode first = shapes.get(0);
+        assertEquals("Неверные параметры формы фильтра.", "shipType,isUsed", first.get("parameters").asText());
+        assertEquals("Неверное количество запросов формы фильтра.", 2, first.get("count").asInt());
+        assertEquals("Неверный индекс для формы фильтра.", "idx_ship_type_used_rating", first.get("servedBy").asText());
+        assertEquals("Для обслуженной формы предложен лишний индекс.", true, first.get("suggestedIndex").isNull());
+        JsonNode second = shapes.get(1);
+        assertEquals("Неверный индекс для формы фильтра.", "idx_ship_crew_size", second.get("servedBy").asText());
+    }
+}
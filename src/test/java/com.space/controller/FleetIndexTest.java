@@ -0,0 +1,171 @@
+package com.space.controller;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.space.controller.utils.ShipInfoTest;
+import com.space.controller.utils.TestsHelper;
+import com.space.model.ShipType;
+import com.space.service.ShipChangeListener;
+import com.space.service.ShipService;
+import org.junit.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import javax.sql.DataSource;
+import java.util.List;
+
+import static org.springframework.test.util.AssertionErrors.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@TestPropertySource(properties = "ships.index-reads=true")
+public class FleetIndexTest extends AbstractTest {
+
+    private TestsHelper testsHelper = new TestsHelper();
+    private ObjectMapper mapper = new ObjectMapper();
+    private TypeReference<List<ShipInfoTest>> typeReference = new TypeReference<List<ShipInfoTest>>() {
+    };
+
+    @Autowired
+    private ShipService service;
+
+    @Autowired
+    private ShipController shipController;
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Autowired
+    private List<ShipChangeListener> shipChangeListeners;
+
+    //test1
+    @Test
+    public void getAllFromIndexWithFiltersOrderRating() throws Exception {
+        String contentAsString = mockMvc.perform(get("/rest/ships?isUsed=true&minRating=1&maxRating=4&order=RATING&pageSize=5")
+                .accept(MediaType.APPLICATION_JSON_UTF8))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+
+        List<ShipInfoTest> actual = mapper.readValue(contentAsString, typeReference);
+        List<ShipInfoTest> expected = testsHelper.getShipInfosByPage(0, 5,
+                testsHelper.getShipInfosByOrder(ShipOrder.RATING,
+                        testsHelper.getShipInfosByIsUsed(true,
+                                testsHelper.getShipInfosByMinRating(1.,
+                                        testsHelper.getShipInfosByMaxRating(4.,
+                                                testsHelper.getAllShips())))));
+
+        assertEquals("Индекс возвращает не правильный результат при запросе GET /rest/ships с параметрами isUsed, minRating, maxRating и order.", expected, actual);
+    }
+
+    //test2
+    @Test
+    public void getAllFromIndexWithFiltersPlanetAfterPageNumber() throws Exception {
+        //after 00:00 01.01.3000
+        String contentAsString = mockMvc.perform(get("/rest/ships?planet=ur&after=32503672800000&pageNumber=1")
+                .accept(MediaType.APPLICATION_JSON_UTF8))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+
+        List<ShipInfoTest> actual = mapper.readValue(contentAsString, typeReference);
+        List<ShipInfoTest> expected = testsHelper.getShipInfosByPage(1, 3,
+                testsHelper.getShipInfosByAfter(32503672800000L,
+                        testsHelper.getShipInfosByPlanet("ur",
+                                testsHelper.getAllShips())));
+
+        assertEquals("Индекс возвращает не правильный результат при запросе GET /rest/ships с параметрами planet, after и pageNumber.", expected, actual);
+    }
+
+    //test3
+    @Test
+    public void countFromIndexWithFiltersShipTypeMaxCrewSize() throws Exception {
+        String contentAsString = mockMvc.perform(get("/rest/ships/count?shipType=MILITARY&maxCrewSize=3000")
+                .accept(MediaType.APPLICATION_JSON_UTF8))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+
+        int expected = testsHelper.getShipInfosByMaxCrewSize(3000,
+                testsHelper.getShipInfosByShipType(ShipType.MILITARY,
+                        testsHelper.getAllShips())).size();
+
+        assertEquals("Индекс возвращает не правильный результат при запросе GET /rest/ships/count с параметрами shipType и maxCrewSize.", expected, Integer.parseInt(contentAsString));
+    }
+
+    //test4
+    @Test
+    public void streamsAndCyclesReturnSameResult() {
+        PageRequest page = PageRequest.of(2, 4, Sort.Direction.ASC, ShipOrder.SPEED.getFieldName());
+
+        assertEquals("Результаты getAllWithStreams и getAllWithCycles различаются.",
+                mapper.valueToTree(service.getAllWithStreams(null, "a", null, null, null, null, 0.1, null, 500, null, null, null, page)),
+                mapper.valueToTree(service.getAllWithCycles(null, "a", null, null, null, null, 0.1, null, 500, null, null, null, page)));
+        assertEquals("Результаты countShipsWithStreams и countShipsWithCycles различаются.",
+                service.countShipsWithStreams(null, "a", null, null, null, null, 0.1, null, 500, null, null, null),
+                service.countShipsWithCycles(null, "a", null, null, null, null, 0.1, null, 500, null, null, null));
+    }
+
+    //test5
+    @Test
+    public void indexFollowsCreateAndDelete() throws Exception {
+        mockMvc.perform(get("/rest/ships/count").accept(MediaType.APPLICATION_JSON_UTF8));
+
+        mockMvc.perform(post("/rest/ships/")
+                .contentType(MediaType.APPLICATION_JSON_UTF8)
+                .content(TestsHelper.NORMAL_JSON))
+                .andExpect(status().isOk());
+        String afterCreate = mockMvc.perform(get("/rest/ships/count?name=123456789")
+                .accept(MediaType.APPLICATION_JSON_UTF8))
+                .andReturn().getResponse().getContentAsString();
+        assertEquals("Индекс не видит созданный корабль.", "1", afterCreate);
+
+        mockMvc.perform(delete("/rest/ships/1")).andExpect(status().isOk());
+        String afterDelete = mockMvc.perform(get("/rest/ships/count")
+                .accept(MediaType.APPLICATION_JSON_UTF8))
+                .andReturn().getResponse().getContentAsString();
+        assertEquals("Индекс не отражает удаление корабля.", String.valueOf(testsHelper.getAllShips().size()), afterDelete);
+    }
+
+    //test6
+    @Test
+    public void indexMatchesSqlForMixedCaseFiltersAndNullOrder() throws Exception {
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.update("INSERT INTO ship(name, planet, shipType, prodDate, isUsed, speed, crewSize, rating, prodYear) " +
+                "VALUES ('Ghost', 'Pluto', 'MERCHANT', '3000-01-01', false, NULL, 100, NULL, 3000)");
+        shipChangeListeners.forEach(ShipChangeListener::shipsChanged);
+
+        assertSameAsSql("/rest/ships?order=SPEED&pageSize=3");
+        assertSameAsSql("/rest/ships?order=RATING&pageSize=3");
+        assertSameAsSql("/rest/ships/count?name=oR&planet=mAr");
+
+        // MySQL's _ci collations; the index has to fold case after the next load.
+        jdbcTemplate.execute("ALTER TABLE ship ALTER COLUMN name VARCHAR_IGNORECASE(50)");
+        jdbcTemplate.execute("ALTER TABLE ship ALTER COLUMN planet VARCHAR_IGNORECASE(50)");
+        shipChangeListeners.forEach(ShipChangeListener::shipsChanged);
+
+        String count = assertSameAsSql("/rest/ships/count?name=oR&planet=mAr");
+        assertEquals("Фильтр name и planet без учёта регистра должен находить корабли.", "2", count);
+        assertSameAsSql("/rest/ships?name=O_i&planet=MAR");
+    }
+
+    private String assertSameAsSql(String url) throws Exception {
+        String fromIndex = mockMvc.perform(get(url).accept(MediaType.APPLICATION_JSON_UTF8))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        ReflectionTestUtils.setField(shipController, "indexReads", false);
+        try {
+            String fromSql = mockMvc.perform(get(url).accept(MediaType.APPLICATION_JSON_UTF8))
+                    .andExpect(status().isOk())
+                    .andReturn().getResponse().getContentAsString();
+            assertEquals("Индекс и SQL возвращают разные результаты при запросе GET " + url + ".", fromSql, fromIndex);
+        } finally {
+            ReflectionTestUtils.setField(shipController, "indexReads", true);
+        }
+        return fromIndex;
+    }
+}
@@ -0,0 +1,122 @@
+package com.space.controller;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.space.controller.utils.ShipInfoTest;
+import com.space.controller.utils.TestsHelper;
+import com.space.model.ShipType;
+import com.space.service.ShipService;
+import com.space.service.impl.FleetStatistics;
+import org.junit.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Collectors;
+
+import static org.springframework.test.util.AssertionErrors.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+public class FleetStatsTest extends AbstractTest {
+
+    private TestsHelper testsHelper = new TestsHelper();
+    private ObjectMapper mapper = new ObjectMapper();
+
+    @Autowired
+    private FleetStatistics fleetStatistics;
+
+    @Autowired
+    private ShipService service;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    //test1
+    @Test
+    public void statsMatchTable() throws Exception {
+        JsonNode stats = stats();
+        List<ShipInfoTest> ships = testsHelper.getAllShips();
+        List<Integer> crewSizes = ships.stream().map(ship -> ship.crewSize).sorted().collect(Collectors.toList());
+
+        assertEquals("Неверное число кораблей.", ships.size(), stats.get("count").asInt());
+        for (ShipType shipType : ShipType.values()) {
+            assertEquals("Неверное число кораблей типа " + shipType + ".",
+                    testsHelper.getShipInfosByShipType(shipType, ships).size(), stats.get("shipTypes").get(shipType.name()).asInt());
+        }
+        assertEquals("Неверное число кораблей с планеты Earth.",
+                (int) ships.stream().filter(ship -> ship.planet.equals("Earth")).count(), stats.get("planets").get("Earth").asInt());
+        assertEquals("Неверное число использованных кораблей.",
+                testsHelper.getShipInfosByIsUsed(true, ships).size(), stats.get("used").asInt());
+        assertEquals("Неверная минимальная скорость.",
+                ships.stream().mapToDouble(ship -> ship.speed).min().getAsDouble(), stats.get("speed").get("min").asDouble());
+        assertEquals("Неверный максимальный рейтинг.",
+                ships.stream().mapToDouble(ship -> ship.rating).max().getAsDouble(), stats.get("rating").get("max").asDouble());
+        assertEquals("Неверная медиана размера экипажа.",
+                crewSizes.get((crewSizes.size() + 1) / 2 - 1).intValue(), stats.get("crewSize").get("p50").asInt());
+        assertEquals("Неверный максимальный размер экипажа.",
+                crewSizes.get(crewSizes.size() - 1).intValue(), stats.get("crewSize").get("max").asInt());
+    }
+
+    //test2
+    @Test
+    public void writesKeepStatsInSyncWithTable() throws Exception {
+        mockMvc.perform(post("/rest/ships/")
+                .contentType(MediaType.APPLICATION_JSON_UTF8)
+                .content(TestsHelper.NORMAL_JSON))
+                .andExpect(status().isOk());
+        mockMvc.perform(post("/rest/ships/4")
+                .contentType(MediaType.APPLICATION_JSON_UTF8)
+                .content("{\"planet\":\"Earth\",\"speed\":0.99,\"isUsed\":false,\"crewSize\":9999}"))
+                .andExpect(status().isOk());
+        mockMvc.perform(delete("/rest/ships/7"))
+                .andExpect(status().isOk());
+        mockMvc.perform(delete("/rest/ships/12"))
+                .andExpect(status().isOk());
+        JsonNode incremental = stats();
+
+        fleetStatistics.shipsChanged();
+        JsonNode rebuilt = stats();
+
+        assertEquals("После изменений статистика расходится с пересчитанной по таблице.", rebuilt, incremental);
+        assertEquals("Неверное число кораблей после изменений.",
+                testsHelper.getAllShips().size() - 1, incremental.get("count").asInt());
+        assertEquals("Неверная максимальная скорость после изменений.", 0.99, incremental.get("speed").get("max").asDouble());
+    }
+
+    //test3
+    @Test
+    public void loadBetweenCommitAndDeltaIsNotCounted() throws Exception {
+        fleetStatistics.shipsChanged();
+        new TransactionTemplate(transactionManager).execute(status -> {
+            // Runs after the commit but before the delete reaches the listeners, which registered after it.
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+                @Override
+                public void afterCommit() {
+                    CompletableFuture.supplyAsync(fleetStatistics::getStats).join();
+                }
+            });
+            return service.deleteShip(7L);
+        });
+        JsonNode afterRace = stats();
+
+        fleetStatistics.shipsChanged();
+        assertEquals("Удаление, закоммиченное до чтения таблицы, учтено дважды.", stats(), afterRace);
+        assertEquals("Неверное число кораблей после удаления.",
+                testsHelper.getAllShips().size() - 1, afterRace.get("count").asInt());
+    }
+
+    private JsonNode stats() throws Exception {
+        String contentAsString = mockMvc.perform(get("/rest/ships/stats"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        return mapper.readTree(contentAsString);
+    }
+}
@@ -0,0 +1,93 @@
+package com.space.controller;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.space.controller.utils.ShipInfoTest;
+import com.space.controller.utils.TestsHelper;
+import org.junit.Test;
+import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+import static org.springframework.test.util.AssertionErrors.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+public class KeysetPaginationTest extends AbstractTest {
+
+    private TestsHelper testsHelper = new TestsHelper();
+    private ObjectMapper mapper = new ObjectMapper();
+    private TypeReference<List<ShipInfoTest>> typeReference = new TypeReference<List<ShipInfoTest>>() {
+    };
+
+    //test1
+    @Test
+    public void keysetPagesCoverAllOrders() throws Exception {
+        for (ShipOrder order : ShipOrder.values()) {
+            List<ShipInfoTest> actual = readAllPages("/rest/ships?order=" + order + "&pageSize=4");
+            List<ShipInfoTest> expected = new ArrayList<>(testsHelper.getAllShips());
+            expected.sort(comparator(order));
+
+            assertEquals("Постраничный обход по курсору с order=" + order + " вернул не правильный результат.", expected, actual);
+        }
+    }
+
+    //test2
+    @Test
+    public void keysetPagesWithFilters() throws Exception {
+        List<ShipInfoTest> actual = readAllPages("/rest/ships?isUsed=false&minSpeed=0.3&order=RATING&pageSize=3");
+        List<ShipInfoTest> expected = new ArrayList<>(testsHelper.getShipInfosByIsUsed(false,
+                testsHelper.getShipInfosByMinSpeed(0.3, testsHelper.getAllShips())));
+        expected.sort(comparator(ShipOrder.RATING));
+
+        assertEquals("Постраничный обход по курсору с фильтрами вернул не правильный результат.", expected, actual);
+    }
+
+    //test3
+    @Test
+    public void keysetRejectsForeignCursor() throws Exception {
+        MockHttpServletResponse response = mockMvc.perform(get("/rest/ships?order=SPEED&cursor=")
+                .accept(MediaType.APPLICATION_JSON_UTF8))
+                .andExpect(status().isOk())
+                .andReturn().getResponse();
+        String cursor = response.getHeader(ShipController.NEXT_CURSOR_HEADER);
+
+        mockMvc.perform(get("/rest/ships?order=RATING&cursor=" + cursor)
+                .accept(MediaType.APPLICATION_JSON_UTF8))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(get("/rest/ships?cursor=not-a-cursor")
+                .accept(MediaType.APPLICATION_JSON_UTF8))
+                .andExpect(status().isBadRequest());
+    }
+
+    private List<ShipInfoTest> readAllPages(String url) throws Exception {
+        List<ShipInfoTest> result = new ArrayList<>();
+        String cursor = "";
+        while (cursor != null) {
+            MockHttpServletResponse response = mockMvc.perform(get(url + "&cursor=" + cursor)
+                    .accept(MediaType.APPLICATION_JSON_UTF8))
+                    .andExpect(status().isOk())
+                    .andReturn().getResponse();
+            result.addAll(mapper.readValue(response.getContentAsString(), typeReference));
+            cursor = response.getHeader(ShipController.NEXT_CURSOR_HEADER);
+        }
+        return result;
+    }
+
+    private static Comparator<ShipInfoTest> comparator(ShipOrder order) {
+        Comparator<ShipInfoTest> byId = Comparator.comparing(ship -> ship.id);
+        switch (order) {
+            case SPEED:
+                return Comparator.<ShipInfoTest, Double>comparing(ship -> ship.speed).thenComparing(byId);
+            case DATE:
+                return Comparator.<ShipInfoTest, Long>comparing(ship -> ship.prodDate).thenComparing(byId);
+            case RATING:
+                return Comparator.<ShipInfoTest, Double>comparing(ship -> ship.rating).thenComparing(byId);
+            default:
+                return byId;
+        }
+    }
+}
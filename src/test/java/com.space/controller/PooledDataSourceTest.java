@@ -0,0 +1,50 @@
+package com.space.controller;
+
+import com.space.controller.utils.TestsHelper;
+import com.zaxxer.hikari.HikariDataSource;
+import org.junit.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.TestPropertySource;
+
+import javax.sql.DataSource;
+
+import static org.junit.Assert.assertTrue;
+import static org.springframework.test.util.AssertionErrors.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@TestPropertySource(properties = "datasource.dev.pooled=true")
+public class PooledDataSourceTest extends AbstractTest {
+
+    @Autowired
+    private DataSource dataSource;
+
+    //test1
+    @Test
+    public void devProfileUsesPooledDataSource() throws Exception {
+        assertTrue("Профиль dev не использует пул соединений.", dataSource instanceof HikariDataSource);
+
+        String contentAsString = mockMvc.perform(get("/rest/ships/count")
+                .accept(MediaType.APPLICATION_JSON_UTF8))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        assertEquals("Возвращается не правильный результат при запросе GET /rest/ships/count через пул.",
+                new TestsHelper().getAllShips().size(), Integer.parseInt(contentAsString));
+    }
+
+    //test2
+    @Test
+    public void metricsExposePoolState() throws Exception {
+        mockMvc.perform(get("/rest/ships/count").accept(MediaType.APPLICATION_JSON_UTF8));
+
+        String metrics = mockMvc.perform(get("/rest/metrics"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+
+        assertTrue("В метриках нет активных соединений пула.", metrics.contains("hikaricp_connections_active{pool=\"cosmoport\"}"));
+        assertTrue("В метриках нет ожидающих соединения потоков.", metrics.contains("hikaricp_connections_pending{pool=\"cosmoport\"}"));
+        assertTrue("В метриках нет перцентилей времени получения соединения.",
+                metrics.contains("hikaricp_connection_acquire_seconds{pool=\"cosmoport\",quantile=\"0.99\"}"));
+    }
+}
@@ -0,0 +1,75 @@
+package com.space.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.space.controller.utils.TestsHelper;
+import org.junit.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import javax.sql.DataSource;
+import java.util.Calendar;
+import java.util.GregorianCalendar;
+
+import static org.springframework.test.util.AssertionErrors.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+public class ProdYearTest extends AbstractTest {
+
+    private static final String STALE = "SELECT COUNT(*) FROM ship WHERE prodYear <> YEAR(prodDate)";
+
+    @Autowired
+    private DataSource dataSource;
+
+    private ObjectMapper mapper = new ObjectMapper();
+
+    //test1
+    @Test
+    public void prodYearFollowsProdDateOnEveryWrite() throws Exception {
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+        long id = mapper.readTree(mockMvc.perform(post("/rest/ships")
+                .contentType(MediaType.APPLICATION_JSON_UTF8)
+                .content(TestsHelper.NORMAL_JSON))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString()).get("id").asLong();
+        mockMvc.perform(post("/rest/ships/batch")
+                .contentType(MediaType.APPLICATION_JSON_UTF8)
+                .content("[" + TestsHelper.NORMAL_JSON + "]"))
+                .andExpect(status().isOk());
+        assertEquals("prodYear не заполнен при создании.", 0, jdbcTemplate.queryForObject(STALE, Integer.class));
+
+        // 2850-06-01
+        mockMvc.perform(post("/rest/ships/" + id)
+                .contentType(MediaType.APPLICATION_JSON_UTF8)
+                .content("{\"prodDate\":27783648000000}"))
+                .andExpect(status().isOk());
+        assertEquals("prodYear не обновлён вместе с prodDate.", 2850,
+                jdbcTemplate.queryForObject("SELECT prodYear FROM ship WHERE id = ?", Integer.class, id));
+
+        // 3000-07-01
+        mockMvc.perform(patch("/rest/ships?shipType=MILITARY")
+                .contentType(MediaType.APPLICATION_JSON_UTF8)
+                .content("{\"prodDate\":32519232000000}"))
+                .andExpect(status().isOk());
+        assertEquals("prodYear не обновлён массовым изменением.", 0, jdbcTemplate.queryForObject(STALE, Integer.class));
+    }
+
+    //test2
+    @Test
+    public void dateFiltersMatchAcrossYearBoundaries() throws Exception {
+        // The last millisecond of 3010 and the first of 3013 in the JVM's zone, as the UI sends them.
+        long after = new GregorianCalendar(3010, Calendar.DECEMBER, 31, 23, 59, 59).getTimeInMillis() + 999;
+        long before = new GregorianCalendar(3013, Calendar.JANUARY, 1).getTimeInMillis();
+        long expected = new TestsHelper().getAllShips().stream()
+                .filter(ship -> ship.prodDate >= after && ship.prodDate <= before)
+                .count();
+
+        String count = mockMvc.perform(get("/rest/ships/count?after=" + after + "&before=" + before))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        assertEquals("Неверное количество кораблей на границе годов.", expected, Long.parseLong(count));
+    }
+}
@@ -0,0 +1,78 @@
+package com.space.controller;
+
+import org.junit.Test;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+
+import static org.springframework.test.util.AssertionErrors.assertEquals;
+import static org.springframework.test.util.AssertionErrors.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@TestPropertySource(properties = "ships.rate-limit.api-keys=export-first,export-second,count-first")
+public class RateLimitTest extends AbstractTest {
+
+    //test1
+    @Test
+    public void exportOverBurstIsRejected() throws Exception {
+        String apiKey = "export-first";
+        // ships.rate-limit.export.burst=2
+        for (int i = 0; i < 2; i++) {
+            mockMvc.perform(get("/rest/ships/export").header(RateLimitInterceptor.API_KEY_HEADER, apiKey))
+                    .andExpect(status().isOk());
+        }
+        String retryAfter = mockMvc.perform(get("/rest/ships/export").header(RateLimitInterceptor.API_KEY_HEADER, apiKey))
+                .andExpect(status().isTooManyRequests())
+                .andExpect(header().exists("Retry-After"))
+                .andReturn().getResponse().getHeader("Retry-After");
+        assertTrue("Retry-After должен быть положительным числом секунд.", Long.parseLong(retryAfter) >= 1);
+
+        mockMvc.perform(get("/rest/ships/1").header(RateLimitInterceptor.API_KEY_HEADER, apiKey))
+                .andExpect(status().isOk());
+        mockMvc.perform(get("/rest/ships/export").header(RateLimitInterceptor.API_KEY_HEADER, "export-second"))
+                .andExpect(status().isOk());
+    }
+
+    //test2
+    @Test
+    public void rejectionsAreCountedPerClient() throws Exception {
+        String apiKey = "count-first";
+        String sample = "ships_rate_limit_rejected_total{client=\"key:count-fi...\",endpoint=\"EXPORT\"}";
+        for (int i = 0; i < 5; i++) {
+            mockMvc.perform(get("/rest/ships/export").header(RateLimitInterceptor.API_KEY_HEADER, apiKey));
+        }
+        String metrics = mockMvc.perform(get("/rest/metrics"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+
+        assertEquals("Отказы клиента не учтены в метриках.", 3., value(metrics, sample));
+    }
+
+    //test3
+    @Test
+    public void unknownKeysShareTheAddressBucket() throws Exception {
+        for (int i = 0; i < 2; i++) {
+            mockMvc.perform(fromAddress("made-up-" + i)).andExpect(status().isOk());
+        }
+        mockMvc.perform(fromAddress("made-up-2")).andExpect(status().isTooManyRequests());
+    }
+
+    private static MockHttpServletRequestBuilder fromAddress(String apiKey) {
+        return get("/rest/ships/export")
+                .header(RateLimitInterceptor.API_KEY_HEADER, apiKey)
+                .with(request -> {
+                    request.setRemoteAddr("10.0.0.1");
+                    return request;
+                });
+    }
+
+    private static double value(String metrics, String sample) {
+        for (String line : metrics.split("\n")) {
+            if (line.startsWith(sample + " ")) {
+                return Double.parseDouble(line.substring(sample.length() + 1));
+            }
+        }
+        return 0;
+    }
+}
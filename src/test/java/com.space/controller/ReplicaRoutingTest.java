@@ -0,0 +1,150 @@
+package com.space.controller;
+
+import com.space.config.ReplicaRoutingDataSource;
+import com.space.controller.utils.TestsHelper;
+import com.space.metrics.PrometheusWriter;
+import com.space.service.ReadConsistency;
+import org.junit.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.util.Collections;
+
+import static org.springframework.test.util.AssertionErrors.assertEquals;
+import static org.springframework.test.util.AssertionErrors.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// The dev replica is a second H2 database that nothing replicates to, so reads show where they were routed.
+@TestPropertySource(properties = {"datasource.dev.replica=true", "ships.write-behind.enabled=true"})
+public class ReplicaRoutingTest extends AbstractTest {
+
+    @Autowired
+    private DataSource dataSource;
+
+    //test1
+    @Test
+    public void readsGoToReplicaExceptAfterOwnWrite() throws Exception {
+        assertTrue("Профиль dev с репликой должен маршрутизировать соединения.", dataSource instanceof ReplicaRoutingDataSource);
+        int all = new TestsHelper().getAllShips().size();
+
+        mockMvc.perform(delete("/rest/ships/1").header(RateLimitInterceptor.API_KEY_HEADER, "writer"))
+                .andExpect(status().isOk());
+
+        assertEquals("Чтение другого клиента должно идти в реплику.", all, count("reader"));
+        mockMvc.perform(get("/rest/ships/1").header(RateLimitInterceptor.API_KEY_HEADER, "reader"))
+                .andExpect(status().isOk());
+        assertEquals("Клиент должен видеть свою запись.", all - 1, count("writer"));
+        mockMvc.perform(get("/rest/ships/1").header(RateLimitInterceptor.API_KEY_HEADER, "writer"))
+                .andExpect(status().isNotFound());
+    }
+
+    //test2
+    @Test
+    public void readsFailOverToPrimary() throws Exception {
+        EmbeddedDatabase primary = new EmbeddedDatabaseBuilder()
+                .generateUniqueName(true)
+                .setType(EmbeddedDatabaseType.H2)
+                .setScriptEncoding("UTF-8")
+                .addScript("test.sql")
+                .build();
+        DataSource unreachable = new DriverManagerDataSource("jdbc:h2:tcp://localhost:1/unreachable", "sa", "");
+        ReplicaRoutingDataSource routing = new ReplicaRoutingDataSource(primary, Collections.singletonList(unreachable),
+                new ReadConsistency(), 60000);
+        try {
+            TransactionTemplate readOnly = new TransactionTemplate(new DataSourceTransactionManager(routing));
+            readOnly.setReadOnly(true);
+            for (int i = 0; i < 2; i++) {
+                Integer count = readOnly.execute(status ->
+                        new JdbcTemplate(routing).queryForObject("SELECT COUNT(*) FROM ship", Integer.class));
+                assertEquals("Чтение при недоступной реплике должно идти в основную базу.",
+                        new TestsHelper().getAllShips().size(), count);
+            }
+
+            PrometheusWriter writer = new PrometheusWriter();
+            routing.writeTo(writer);
+            assertTrue("Недоступная реплика должна быть выведена из работы.",
+                    writer.toString().contains("ships_datasource_replica_up{replica=\"replica-0\"} 0"));
+            assertTrue("Оба чтения должны уйти в основную базу.",
+                    writer.toString().contains("ships_datasource_connections_total{target=\"primary-failover\"} 2"));
+        } finally {
+            routing.destroy();
+            primary.shutdown();
+        }
+    }
+
+    //test3
+    @Test
+    public void onlyPrimaryReadsAreTagged() throws Exception {
+        mockMvc.perform(get("/rest/ships/2").header(RateLimitInterceptor.API_KEY_HEADER, "reader"))
+                .andExpect(status().isOk())
+                .andExpect(header().doesNotExist(HttpHeaders.ETAG));
+
+        mockMvc.perform(delete("/rest/ships/1").header(RateLimitInterceptor.API_KEY_HEADER, "writer"))
+                .andExpect(status().isOk());
+        String etag = mockMvc.perform(get("/rest/ships/2").header(RateLimitInterceptor.API_KEY_HEADER, "writer"))
+                .andExpect(status().isOk())
+                .andExpect(header().exists(HttpHeaders.ETAG))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        mockMvc.perform(get("/rest/ships/2").header(RateLimitInterceptor.API_KEY_HEADER, "reader")
+                .header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isNotModified());
+    }
+
+    //test4
+    @Test
+    public void indexesAreLoadedFromPrimary() throws Exception {
+        mockMvc.perform(post("/rest/ships").header(RateLimitInterceptor.API_KEY_HEADER, "writer")
+                .contentType(MediaType.APPLICATION_JSON_UTF8)
+                .content(TestsHelper.NORMAL_JSON.replace("123456789", "Qwertyuiop")))
+                .andExpect(status().isOk());
+        // A bulk change clears the trigram index; a reader's query then reloads it.
+        mockMvc.perform(patch("/rest/ships?name=Qwertyuiop").header(RateLimitInterceptor.API_KEY_HEADER, "writer")
+                .contentType(MediaType.APPLICATION_JSON_UTF8)
+                .content("{\"crewSize\":7}"))
+                .andExpect(status().isOk());
+        mockMvc.perform(get("/rest/ships?name=Qwertyuiop").header(RateLimitInterceptor.API_KEY_HEADER, "reader"))
+                .andExpect(status().isOk());
+
+        String found = mockMvc.perform(get("/rest/ships?name=Qwertyuiop").header(RateLimitInterceptor.API_KEY_HEADER, "writer"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        assertTrue("Индекс должен загружаться из основной базы.", found.contains("Qwertyuiop"));
+    }
+
+    //test5
+    @Test
+    public void writeBehindClientReadsOwnWrite() throws Exception {
+        mockMvc.perform(post("/rest/ships/3").header(RateLimitInterceptor.API_KEY_HEADER, "merged-writer")
+                .contentType(MediaType.APPLICATION_JSON_UTF8)
+                .content("{\"crewSize\":7777}"))
+                .andExpect(status().isOk());
+
+        // A query, not a point read: the second-level cache would answer GET /rest/ships/3 from either database.
+        String count = mockMvc.perform(get("/rest/ships/count?minCrewSize=7777&maxCrewSize=7777")
+                .header(RateLimitInterceptor.API_KEY_HEADER, "merged-writer"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        assertEquals("Клиент должен видеть своё объединённое обновление.", "1", count);
+    }
+
+    private int count(String apiKey) throws Exception {
+        return Integer.parseInt(mockMvc.perform(get("/rest/ships/count").header(RateLimitInterceptor.API_KEY_HEADER, apiKey))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString());
+    }
+}
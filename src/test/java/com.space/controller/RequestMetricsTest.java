@@ -0,0 +1,67 @@
+package com.space.controller;
+
+import org.junit.Test;
+import org.springframework.http.MediaType;
+
+import static org.springframework.test.util.AssertionErrors.assertEquals;
+import static org.springframework.test.util.AssertionErrors.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+public class RequestMetricsTest extends AbstractTest {
+
+    private static final String COUNT_LABELS = "{method=\"GET\",path=\"/rest/ships/count\"}";
+    private static final String LIST_LABELS = "{method=\"GET\",path=\"/rest/ships\"}";
+
+    //test1
+    @Test
+    public void countRunsOneStatement() throws Exception {
+        String before = metrics();
+        mockMvc.perform(get("/rest/ships/count?isUsed=true")).andExpect(status().isOk());
+        String after = metrics();
+
+        assertEquals("Запрос GET /rest/ships/count не учтён в гистограмме времени ответа.", 1.,
+                value(after, "ships_http_request_seconds_count" + COUNT_LABELS)
+                        - value(before, "ships_http_request_seconds_count" + COUNT_LABELS));
+        assertEquals("GET /rest/ships/count должен выполнять один SQL-запрос.", 1.,
+                value(after, "ships_http_request_sql_statements_sum" + COUNT_LABELS)
+                        - value(before, "ships_http_request_sql_statements_sum" + COUNT_LABELS));
+        assertEquals("GET /rest/ships/count должен читать одну строку.", 1.,
+                value(after, "ships_http_request_sql_rows_sum" + COUNT_LABELS)
+                        - value(before, "ships_http_request_sql_rows_sum" + COUNT_LABELS));
+        assertTrue("В метриках нет времени вызова ShipService.countShipsWithCompiledQuery.",
+                after.contains("ships_service_call_seconds{method=\"countShipsWithCompiledQuery\",quantile=\"0.99\"}"));
+    }
+
+    //test2
+    @Test
+    public void fullPageRunsOnlySelect() throws Exception {
+        String before = metrics();
+        mockMvc.perform(get("/rest/ships?pageSize=3").accept(MediaType.APPLICATION_JSON_UTF8)).andExpect(status().isOk());
+        String after = metrics();
+
+        assertEquals("Страница GET /rest/ships должна выполнять только выборку, без подсчёта.", 1.,
+                value(after, "ships_http_request_sql_statements_sum" + LIST_LABELS)
+                        - value(before, "ships_http_request_sql_statements_sum" + LIST_LABELS));
+        assertEquals("Страница GET /rest/ships должна читать три корабля.", 3.,
+                value(after, "ships_http_request_sql_rows_sum" + LIST_LABELS)
+                        - value(before, "ships_http_request_sql_rows_sum" + LIST_LABELS));
+        assertTrue("Общее число SQL-запросов не растёт.",
+                value(after, "ships_sql_statements_total") > value(before, "ships_sql_statements_total"));
+    }
+
+    private String metrics() throws Exception {
+        return mockMvc.perform(get("/rest/metrics"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+    }
+
+    private static double value(String metrics, String sample) {
+        for (String line : metrics.split("\n")) {
+            if (line.startsWith(sample + " ")) {
+                return Double.parseDouble(line.substring(sample.length() + 1));
+            }
+        }
+        return 0;
+    }
+}
@@ -0,0 +1,128 @@
+package com.space.controller;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.space.controller.utils.ShipInfoTest;
+import com.space.controller.utils.TestsHelper;
+import com.space.service.RatingCalculator;
+import com.space.service.ShipService;
+import org.junit.After;
+import org.junit.Test;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.AopTestUtils;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import javax.sql.DataSource;
+
+import java.util.Calendar;
+import java.util.GregorianCalendar;
+import java.util.List;
+
+import static org.springframework.test.util.AssertionErrors.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+public class RerateTest extends AbstractTest {
+
+    private TestsHelper testsHelper = new TestsHelper();
+    private ObjectMapper mapper = new ObjectMapper();
+    private TypeReference<List<ShipInfoTest>> typeReference = new TypeReference<List<ShipInfoTest>>() {
+    };
+
+    @Autowired
+    private ShipService service;
+
+    @Autowired
+    private DataSource dataSource;
+
+    @After
+    public void restoreReferenceYear() {
+        service.setRatingReferenceYear(RatingCalculator.DEFAULT_REFERENCE_YEAR);
+    }
+
+    //test1
+    @Test
+    public void rerateForNextYear() throws Exception {
+        mockMvc.perform(post("/rest/admin/rerate?referenceYear=3020"))
+                .andExpect(status().isAccepted());
+        JsonNode status = waitForRerate();
+
+        String contentAsString = mockMvc.perform(get("/rest/ships?pageSize=100")
+                .accept(MediaType.APPLICATION_JSON_UTF8))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        List<ShipInfoTest> actual = mapper.readValue(contentAsString, typeReference);
+        List<ShipInfoTest> expected = testsHelper.getAllShips();
+        for (ShipInfoTest ship : expected) {
+            ship.rating = rating(ship, 3020);
+        }
+
+        assertEquals("Задача пересчёта рейтинга не завершилась успешно.", "DONE", status.get("state").asText());
+        assertEquals("Задача пересчёта рейтинга просмотрела не все корабли.", expected.size(), status.get("scanned").asInt());
+        assertEquals("Рейтинги после пересчёта не соответствуют новому году.", expected, actual);
+    }
+
+    //test2
+    @Test
+    public void createdShipUsesNewReferenceYear() throws Exception {
+        mockMvc.perform(post("/rest/admin/rerate?referenceYear=3030"))
+                .andExpect(status().isAccepted());
+        waitForRerate();
+
+        String contentAsString = mockMvc.perform(post("/rest/ships/")
+                .contentType(MediaType.APPLICATION_JSON_UTF8)
+                .content(TestsHelper.NORMAL_JSON))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        ShipInfoTest created = mapper.readValue(contentAsString, ShipInfoTest.class);
+
+        assertEquals("Новый корабль получил рейтинг по старому году.", rating(created, 3030), created.rating);
+    }
+
+    //test3
+    @Test
+    public void rerateWithPastReferenceYear() throws Exception {
+        mockMvc.perform(post("/rest/admin/rerate?referenceYear=3000"))
+                .andExpect(status().isBadRequest());
+    }
+
+    //test4
+    @Test
+    public void referenceYearSurvivesRestart() throws Exception {
+        mockMvc.perform(post("/rest/admin/rerate?referenceYear=3025"))
+                .andExpect(status().isAccepted());
+        waitForRerate();
+        assertEquals("Новый год не сохранён в базе.", "3025", new JdbcTemplate(dataSource).queryForObject(
+                "SELECT settingValue FROM setting WHERE name = 'rating.reference-year'", String.class));
+
+        // What a restart does: the service starts from the property, then reads the stored year.
+        InitializingBean restarted = AopTestUtils.getTargetObject(service);
+        ReflectionTestUtils.setField(restarted, "referenceYear", RatingCalculator.DEFAULT_REFERENCE_YEAR);
+        restarted.afterPropertiesSet();
+        assertEquals("После перезапуска рейтинг считается не по сохранённому году.", 3025, service.getRatingReferenceYear());
+    }
+
+    private JsonNode waitForRerate() throws Exception {
+        for (int attempt = 0; attempt < 100; attempt++) {
+            JsonNode status = mapper.readTree(mockMvc.perform(get("/rest/admin/rerate"))
+                    .andReturn().getResponse().getContentAsString());
+            if (!"RUNNING".equals(status.get("state").asText())) {
+                return status;
+            }
+            Thread.sleep(50);
+        }
+        throw new AssertionError("Задача пересчёта рейтинга не завершилась за 5 секунд.");
+    }
+
+    private static Double rating(ShipInfoTest ship, int referenceYear) {
+        Calendar prodDate = new GregorianCalendar();
+        prodDate.setTimeInMillis(ship.prodDate);
+        double rating = 80 * ship.speed * (ship.isUsed ? 0.5 : 1) / (referenceYear - prodDate.get(Calendar.YEAR) + 1);
+        return Math.round(rating * 100) / 100.0;
+    }
+}
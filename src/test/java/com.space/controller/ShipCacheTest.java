@@ -0,0 +1,74 @@
+package com.space.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.space.controller.utils.ShipInfoTest;
+import com.space.model.Ship;
+import org.junit.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+
+import javax.persistence.EntityManagerFactory;
+
+import static org.springframework.test.util.AssertionErrors.assertEquals;
+import static org.springframework.test.util.AssertionErrors.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+public class ShipCacheTest extends AbstractTest {
+
+    private ObjectMapper mapper = new ObjectMapper();
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    //test1
+    @Test
+    public void getShipFillsCache() throws Exception {
+        mockMvc.perform(get("/rest/ships/2")).andExpect(status().isOk());
+
+        assertTrue("Корабль, полученный по id, должен попасть в кэш второго уровня.",
+                entityManagerFactory.getCache().contains(Ship.class, 2L));
+    }
+
+    //test2
+    @Test
+    public void updateShipRefreshesCache() throws Exception {
+        mockMvc.perform(get("/rest/ships/2")).andExpect(status().isOk());
+        mockMvc.perform(post("/rest/ships/2")
+                .contentType(MediaType.APPLICATION_JSON_UTF8)
+                .content("{\"crewSize\":42}"))
+                .andExpect(status().isOk());
+
+        String contentAsString = mockMvc.perform(get("/rest/ships/2"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        ShipInfoTest actual = mapper.readValue(contentAsString, ShipInfoTest.class);
+
+        assertEquals("После обновления из кэша возвращается старая версия корабля.", 42, actual.crewSize.intValue());
+    }
+
+    //test3
+    @Test
+    public void deleteShipEvictsCache() throws Exception {
+        mockMvc.perform(get("/rest/ships/2")).andExpect(status().isOk());
+        mockMvc.perform(delete("/rest/ships/2")).andExpect(status().isOk());
+
+        mockMvc.perform(get("/rest/ships/2")).andExpect(status().isNotFound());
+        mockMvc.perform(delete("/rest/ships/2")).andExpect(status().isNotFound());
+    }
+
+    //test4
+    @Test
+    public void updateUnknownShipWithBadBody() throws Exception {
+        mockMvc.perform(post("/rest/ships/1000")
+                .contentType(MediaType.APPLICATION_JSON_UTF8)
+                .content("{\"crewSize\":-1}"))
+                .andExpect(status().isNotFound());
+        mockMvc.perform(post("/rest/ships/2")
+                .contentType(MediaType.APPLICATION_JSON_UTF8)
+                .content("{\"crewSize\":-1}"))
+                .andExpect(status().isBadRequest());
+    }
+}
@@ -0,0 +1,69 @@
+package com.space.controller;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.space.model.ShipType;
+import com.space.service.ShipFilter;
+import com.space.service.ShipService;
+import org.junit.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import static org.springframework.test.util.AssertionErrors.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+public class ShipFacetsTest extends AbstractTest {
+
+    private static final String FILTER = "planet=e&shipType=MERCHANT&isUsed=true&minSpeed=0.3&minRating=1&maxRating=2";
+
+    private ObjectMapper mapper = new ObjectMapper();
+
+    @Autowired
+    private ShipService service;
+
+    //test1
+    @Test
+    public void facetsMatchCounts() throws Exception {
+        JsonNode facets = mapper.readTree(perform("/rest/ships/facets?" + FILTER));
+
+        assertEquals("Общее число не совпадает с GET /rest/ships/count.",
+                count(FILTER), facets.get("count").asInt());
+        for (ShipType shipType : ShipType.values()) {
+            assertEquals("Число для shipType=" + shipType + " не совпадает с GET /rest/ships/count.",
+                    count(FILTER.replace("shipType=MERCHANT", "shipType=" + shipType)),
+                    facets.get("shipType").get(shipType.name()).asInt());
+        }
+        for (boolean isUsed : new boolean[]{true, false}) {
+            assertEquals("Число для isUsed=" + isUsed + " не совпадает с GET /rest/ships/count.",
+                    count(FILTER.replace("isUsed=true", "isUsed=" + isUsed)),
+                    facets.get("isUsed").get(String.valueOf(isUsed)).asInt());
+        }
+        for (int bucket = 0; bucket < 4; bucket++) {
+            JsonNode actual = facets.get("rating").get(String.valueOf(bucket));
+            assertEquals("Число для рейтинга [" + bucket + ", " + (bucket + 1) + ") не совпадает с GET /rest/ships/count.",
+                    count(FILTER.replace("minRating=1&maxRating=2", "minRating=" + bucket + "&maxRating=" + (bucket + 0.99))),
+                    actual == null ? 0 : actual.asInt());
+        }
+    }
+
+    //test2
+    @Test
+    public void indexFacetsMatchDatabaseFacets() throws Exception {
+        ShipFilter filter = new ShipFilter(null, "e", ShipType.MERCHANT, null, null, true,
+                0.3, null, null, null, 1., 2.);
+        JsonNode expected = mapper.valueToTree(service.getFacets(filter));
+        JsonNode actual = mapper.valueToTree(service.getFacetsWithCycles(filter));
+
+        assertEquals("Фасеты по индексу не совпадают с фасетами из базы.", expected, actual);
+    }
+
+    private int count(String query) throws Exception {
+        return Integer.parseInt(perform("/rest/ships/count?" + query));
+    }
+
+    private String perform(String uri) throws Exception {
+        return mockMvc.perform(get(uri))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+    }
+}
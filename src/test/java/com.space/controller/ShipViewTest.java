@@ -0,0 +1,51 @@
+package com.space.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.space.model.Ship;
+import com.space.model.ShipView;
+import com.space.service.ShipFilter;
+import com.space.service.ShipService;
+import org.junit.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.http.MediaType;
+
+import java.util.List;
+
+import static org.springframework.test.util.AssertionErrors.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+public class ShipViewTest extends AbstractTest {
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private ShipService service;
+
+    //test1
+    @Test
+    public void viewSerializesLikeShip() throws Exception {
+        List<Ship> ships = service.getAll(service.getSpecification(new ShipFilter()), PageRequest.of(0, 100));
+        for (Ship ship : ships) {
+            assertEquals("Проекция корабля " + ship.getId() + " сериализуется иначе, чем сущность.",
+                    objectMapper.writeValueAsString(ship), objectMapper.writeValueAsString(ShipView.of(ship)));
+        }
+    }
+
+    //test2
+    @Test
+    public void shipListIsUnchanged() throws Exception {
+        List<Ship> ships = service.getAll(service.getSpecification(new ShipFilter()),
+                PageRequest.of(1, 7, Sort.Direction.ASC, "rating"));
+        String content = mockMvc.perform(get("/rest/ships?order=RATING&pageNumber=1&pageSize=7")
+                .accept(MediaType.APPLICATION_JSON_UTF8))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+
+        assertEquals("Список кораблей должен совпадать с сериализацией сущностей.",
+                objectMapper.writeValueAsString(ships), content);
+    }
+}
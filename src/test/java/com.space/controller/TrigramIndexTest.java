@@ -0,0 +1,95 @@
+package com.space.controller;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.space.controller.utils.ShipInfoTest;
+import com.space.controller.utils.TestsHelper;
+import com.space.service.impl.TrigramIndex;
+import org.junit.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+
+import java.util.List;
+
+import static org.springframework.test.util.AssertionErrors.assertEquals;
+import static org.springframework.test.util.AssertionErrors.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+public class TrigramIndexTest extends AbstractTest {
+
+    private TestsHelper testsHelper = new TestsHelper();
+    private ObjectMapper mapper = new ObjectMapper();
+    private TypeReference<List<ShipInfoTest>> typeReference = new TypeReference<List<ShipInfoTest>>() {
+    };
+
+    @Autowired
+    private TrigramIndex trigramIndex;
+
+    //test1
+    @Test
+    public void getAllWithIndexedNameAndPlanet() throws Exception {
+        String contentAsString = mockMvc.perform(get("/rest/ships?name=er&planet=Ear&pageSize=40")
+                .accept(MediaType.APPLICATION_JSON_UTF8))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+
+        List<ShipInfoTest> actual = mapper.readValue(contentAsString, typeReference);
+        List<ShipInfoTest> expected = testsHelper.getShipInfosByName("er",
+                testsHelper.getShipInfosByPlanet("Ear",
+                        testsHelper.getAllShips()));
+
+        assertTrue("Короткий поисковый запрос не должен обслуживаться индексом.", trigramIndex.findNameCandidates("er") == null);
+        assertTrue("Поисковый запрос из трёх символов должен обслуживаться индексом.", trigramIndex.findPlanetCandidates("Ear") != null);
+        assertEquals("Возвращается не правильный результат при запросе GET /rest/ships с параметрами name и planet.", expected, actual);
+    }
+
+    //test2
+    @Test
+    public void countWithIndexedName() throws Exception {
+        String contentAsString = mockMvc.perform(get("/rest/ships/count?name=ion")
+                .accept(MediaType.APPLICATION_JSON_UTF8))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+
+        int expected = testsHelper.getShipInfosByName("ion", testsHelper.getAllShips()).size();
+
+        assertEquals("Возвращается не правильный результат при запросе GET /rest/ships/count с параметром name.", expected, Integer.parseInt(contentAsString));
+    }
+
+    //test3
+    @Test
+    public void wildcardTermsFallBackToLike() throws Exception {
+        String contentAsString = mockMvc.perform(get("/rest/ships/count?name=Ori_n")
+                .accept(MediaType.APPLICATION_JSON_UTF8))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+
+        assertTrue("Запрос с символами подстановки не должен обслуживаться индексом.", trigramIndex.findNameCandidates("Ori_n") == null);
+        assertEquals("Запрос с символами подстановки должен обрабатываться как LIKE.", "1", contentAsString);
+    }
+
+    //test4
+    @Test
+    public void indexFollowsUpdateAndDelete() throws Exception {
+        mockMvc.perform(get("/rest/ships/count?name=Orion").accept(MediaType.APPLICATION_JSON_UTF8));
+
+        mockMvc.perform(post("/rest/ships/1")
+                .contentType(MediaType.APPLICATION_JSON_UTF8)
+                .content("{\"name\":\"Zzyzx Runner\"}"))
+                .andExpect(status().isOk());
+        String oldName = mockMvc.perform(get("/rest/ships/count?name=Orion")
+                .accept(MediaType.APPLICATION_JSON_UTF8))
+                .andReturn().getResponse().getContentAsString();
+        String newName = mockMvc.perform(get("/rest/ships/count?name=zyzx")
+                .accept(MediaType.APPLICATION_JSON_UTF8))
+                .andReturn().getResponse().getContentAsString();
+        assertEquals("Индекс находит корабль по старому имени.", "0", oldName);
+        assertEquals("Индекс не находит корабль по новому имени.", "1", newName);
+
+        mockMvc.perform(delete("/rest/ships/1")).andExpect(status().isOk());
+        assertEquals("Индекс находит удалённый корабль.", 0, trigramIndex.findNameCandidates("zyzx").length);
+    }
+}
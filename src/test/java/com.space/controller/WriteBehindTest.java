@@ -0,0 +1,124 @@
+package com.space.controller;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.space.model.Ship;
+import com.space.service.impl.UpdateCoalescer;
+import org.junit.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import javax.sql.DataSource;
+import java.util.concurrent.CompletableFuture;
+
+import static org.springframework.test.util.AssertionErrors.assertEquals;
+import static org.springframework.test.util.AssertionErrors.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// The window is long enough for a whole burst to land in it.
+@TestPropertySource(properties = {"ships.write-behind.enabled=true", "ships.write-behind.window-ms=1000"})
+public class WriteBehindTest extends AbstractTest {
+
+    @Autowired
+    private UpdateCoalescer updateCoalescer;
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Autowired
+    private ShipController shipController;
+
+    private ObjectMapper mapper = new ObjectMapper();
+
+    //test1
+    @Test
+    public void burstIsMergedIntoOneWriteAndVisibleToPointReads() throws Exception {
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+        String name = jdbcTemplate.queryForObject("SELECT name FROM ship WHERE id = 1", String.class);
+        String etag = mockMvc.perform(get("/rest/ships/1")).andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        Ship first = new Ship();
+        first.setName("Telemetry");
+        Ship second = new Ship();
+        second.setSpeed(0.5);
+        Ship third = new Ship();
+        third.setSpeed(0.25);
+        third.setCrewSize(42);
+
+        CompletableFuture<Ship> firstDone = updateCoalescer.submit(1L, first);
+        CompletableFuture<Ship> secondDone = updateCoalescer.submit(1L, second);
+        CompletableFuture<Ship> thirdDone = updateCoalescer.submit(1L, third);
+
+        mockMvc.perform(get("/rest/ships/1").header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isOk());
+        JsonNode read = ship(1);
+        assertTrue("Запись не должна выполняться до конца окна.", !firstDone.isDone());
+        assertEquals("До конца окна в базе должно быть прежнее имя.", name,
+                jdbcTemplate.queryForObject("SELECT name FROM ship WHERE id = 1", String.class));
+        assertEquals("Чтение должно видеть ожидающее имя.", "Telemetry", read.get("name").asText());
+        assertEquals("Чтение должно видеть последнюю скорость.", 0.25, read.get("speed").asDouble());
+        assertEquals("Чтение должно видеть ожидающий экипаж.", 42, read.get("crewSize").asInt());
+
+        Ship written = firstDone.join();
+        assertTrue("Все обновления окна должны записываться одним изменением.",
+                written == secondDone.join() && written == thirdDone.join());
+        assertEquals("Объединённое обновление не записано.", 42,
+                jdbcTemplate.queryForObject("SELECT crewSize FROM ship WHERE id = 1 AND name = 'Telemetry' AND speed = 0.25",
+                        Integer.class));
+        assertEquals("Чтение после записи должно совпадать с ответом записи.", written.getRating(),
+                ship(1).get("rating").asDouble());
+        assertEquals("Чтение до записи должно совпадать с ответом записи.", written.getRating(),
+                read.get("rating").asDouble());
+    }
+
+    //test2
+    @Test
+    public void updateIsAnsweredAfterCommit() throws Exception {
+        JsonNode updated = mapper.readTree(mockMvc.perform(post("/rest/ships/2")
+                .contentType(MediaType.APPLICATION_JSON_UTF8)
+                .content("{\"speed\":0.7}"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString());
+        assertEquals("Ответ должен содержать обновлённую скорость.", 0.7, updated.get("speed").asDouble());
+        assertEquals("Ответ должен приходить после фиксации записи.", 0.7,
+                new JdbcTemplate(dataSource).queryForObject("SELECT speed FROM ship WHERE id = 2", Double.class));
+
+        mockMvc.perform(post("/rest/ships/100000")
+                .contentType(MediaType.APPLICATION_JSON_UTF8)
+                .content("{\"speed\":0.7}"))
+                .andExpect(status().isNotFound());
+        mockMvc.perform(post("/rest/ships/2")
+                .contentType(MediaType.APPLICATION_JSON_UTF8)
+                .content("{\"speed\":2.0}"))
+                .andExpect(status().isBadRequest());
+    }
+
+    //test3
+    @Test
+    public void updateNotCommittedInTimeIsUnavailable() throws Exception {
+        Object timeoutMs = ReflectionTestUtils.getField(shipController, "writeBehindTimeoutMs");
+        ReflectionTestUtils.setField(shipController, "writeBehindTimeoutMs", 100L);
+        try {
+            mockMvc.perform(post("/rest/ships/3")
+                    .contentType(MediaType.APPLICATION_JSON_UTF8)
+                    .content("{\"crewSize\":77}"))
+                    .andExpect(status().isServiceUnavailable());
+        } finally {
+            ReflectionTestUtils.setField(shipController, "writeBehindTimeoutMs", timeoutMs);
+        }
+        // The update stays queued and still commits with the window.
+        assertEquals("Обновление должно записаться после таймаута.", 77,
+                updateCoalescer.submit(3L, new Ship()).join().getCrewSize());
+    }
+
+    private JsonNode ship(long id) throws Exception {
+        return mapper.readTree(mockMvc.perform(get("/rest/ships/" + id))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString());
+    }
+}